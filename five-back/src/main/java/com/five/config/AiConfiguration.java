@@ -0,0 +1,54 @@
+package com.five.config;
+
+import com.five.pojo.pojo.AiProperties;
+import com.five.utils.AiMoveExecutor;
+import com.five.utils.OpeningBook;
+import com.five.utils.SearchThreadPool;
+import com.five.utils.TranspositionTablePool;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+@Configuration
+@Slf4j
+public class AiConfiguration {
+
+    @Bean(destroyMethod = "shutdown")
+    public SearchThreadPool searchThreadPool(AiProperties aiProperties) {
+        log.info("AI search helpers: {} per search, {} in total",
+                aiProperties.getThreadsPerSearch() - 1, aiProperties.getMaxSearchThreads());
+        return new SearchThreadPool(aiProperties.getMaxSearchThreads());
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public AiMoveExecutor aiMoveExecutor(AiProperties aiProperties) {
+        log.info("AI move threads: {}, queue limit {}", aiProperties.getMoveThreads(), aiProperties.getMoveQueueLimit());
+        return new AiMoveExecutor(aiProperties.getMoveThreads(), aiProperties.getMoveQueueLimit());
+    }
+
+    // One table per AI move thread, each search runs on one of them
+    @Bean
+    public TranspositionTablePool transpositionTablePool(AiProperties aiProperties) {
+        return new TranspositionTablePool(aiProperties.getTableSizeBits(), aiProperties.getMoveThreads());
+    }
+
+    // A missing or unreadable book only costs search time, so the server starts without it
+    @Bean
+    public OpeningBook openingBook(AiProperties aiProperties) {
+        if (!StringUtils.hasText(aiProperties.getBookPath())) {
+            return OpeningBook.empty();
+        }
+        try {
+            OpeningBook book = OpeningBook.open(Paths.get(aiProperties.getBookPath()));
+            log.info("Opening book {} mapped, {} positions", aiProperties.getBookPath(), book.size());
+            return book;
+        } catch (IOException e) {
+            log.warn("Opening book {} could not be loaded, AI rooms will search every move", aiProperties.getBookPath(), e);
+            return OpeningBook.empty();
+        }
+    }
+}
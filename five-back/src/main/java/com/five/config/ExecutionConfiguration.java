@@ -0,0 +1,31 @@
+package com.five.config;
+
+import com.five.pojo.pojo.ExecutionProperties;
+import com.five.utils.ExecutionMode;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@Slf4j
+public class ExecutionConfiguration {
+
+    // In VIRTUAL mode Tomcat runs each request and each websocket message, with the MyBatis calls
+    // it makes, on its own virtual thread instead of its worker pool
+    @Bean
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> executionModeCustomizer(ExecutionProperties executionProperties) {
+        ExecutionMode mode = executionProperties.getMode();
+        if (mode != mode.effective()) {
+            log.warn("Execution mode {} needs Java 21, running {} on Java {}", mode, mode.effective(), Runtime.version());
+        } else {
+            log.info("Execution mode {}", mode);
+        }
+        return protocolHandler -> {
+            if (mode.effective() == ExecutionMode.VIRTUAL) {
+                protocolHandler.setExecutor(ExecutionMode.newVirtualThreadPerTaskExecutor());
+            }
+        };
+    }
+}
@@ -0,0 +1,25 @@
+package com.five.config;
+
+import com.five.pojo.pojo.JournalProperties;
+import com.five.utils.MoveJournal;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+@Configuration
+@Slf4j
+public class JournalConfiguration {
+
+    @Bean(destroyMethod = "close")
+    public MoveJournal moveJournal(JournalProperties journalProperties) throws IOException {
+        if (!journalProperties.isEnabled()) {
+            log.info("Move journal disabled, a restart ends the games in progress");
+            return MoveJournal.disabled();
+        }
+        return new MoveJournal(Path.of(journalProperties.getDirectory()), journalProperties.getSegmentBytes(),
+                journalProperties.getFsyncIntervalMillis());
+    }
+}
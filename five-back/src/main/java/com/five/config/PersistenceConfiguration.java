@@ -0,0 +1,25 @@
+package com.five.config;
+
+import com.five.pojo.pojo.PersistenceProperties;
+import com.five.service.GameResultWriter;
+import com.five.service.UserProfileCache;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@Slf4j
+public class PersistenceConfiguration {
+
+    @Bean(destroyMethod = "shutdown")
+    public GameResultWriter gameResultWriter(SqlSessionFactory sqlSessionFactory, UserProfileCache userProfileCache,
+                                             PersistenceProperties persistenceProperties) {
+        log.info("Game results written behind: queue of {}, batches of {}",
+                persistenceProperties.getQueueCapacity(), persistenceProperties.getBatchSize());
+        return new GameResultWriter(persistenceProperties.getQueueCapacity(), persistenceProperties.getBatchSize(),
+                persistenceProperties.getShutdownTimeoutMillis(), persistenceProperties.getWriteRetries(),
+                persistenceProperties.getRetryBackoffMillis(),
+                GameResultWriter.myBatisSink(sqlSessionFactory, userProfileCache));
+    }
+}
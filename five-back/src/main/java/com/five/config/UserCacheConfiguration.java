@@ -0,0 +1,19 @@
+package com.five.config;
+
+import com.five.mapper.UserMapper;
+import com.five.pojo.pojo.UserCacheProperties;
+import com.five.service.UserProfileCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@Slf4j
+public class UserCacheConfiguration {
+
+    @Bean
+    public UserProfileCache userProfileCache(UserMapper userMapper, UserCacheProperties userCacheProperties) {
+        log.info("User profile cache: {} profiles for {} ms", userCacheProperties.getMaxSize(), userCacheProperties.getTtlMillis());
+        return new UserProfileCache(userMapper, userCacheProperties.getMaxSize(), userCacheProperties.getTtlMillis());
+    }
+}
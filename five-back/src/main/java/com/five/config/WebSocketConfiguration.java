@@ -1,10 +1,19 @@
 package com.five.config;
 
+import com.five.pojo.pojo.ExecutionProperties;
+import com.five.pojo.pojo.RateLimitProperties;
+import com.five.pojo.pojo.WebsocketProperties;
+import com.five.utils.ExecutionMode;
+import com.five.utils.RoomExecutor;
+import com.five.utils.TimingWheel;
+import com.five.websocket.FrameRateLimiter;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.socket.server.standard.ServerEndpointExporter;
 
 @Configuration
+@Slf4j
 public class WebSocketConfiguration {
 
     @Bean
@@ -12,4 +21,25 @@ public class WebSocketConfiguration {
         return new ServerEndpointExporter();
     }
 
+    @Bean(destroyMethod = "shutdown")
+    public RoomExecutor roomExecutor(WebsocketProperties websocketProperties, ExecutionProperties executionProperties) {
+        if (executionProperties.getMode().effective() == ExecutionMode.VIRTUAL) {
+            log.info("Room tasks on virtual threads");
+            return new RoomExecutor(ExecutionMode.newVirtualThreadPerTaskExecutor());
+        }
+        log.info("Room threads: {}", websocketProperties.getRoomThreads());
+        return new RoomExecutor(websocketProperties.getRoomThreads());
+    }
+
+    // The room timeouts, 512 ticks a turn
+    @Bean(destroyMethod = "shutdown")
+    public TimingWheel roomTimer(WebsocketProperties websocketProperties) {
+        return new TimingWheel(websocketProperties.getTimerTickMillis(), 512, "room-timer");
+    }
+
+    @Bean
+    public FrameRateLimiter frameRateLimiter(RateLimitProperties rateLimitProperties) {
+        return new FrameRateLimiter(rateLimitProperties);
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,16 @@
+package com.five.constant;
+
+public class GameConstant {
+    // Query parameter value on /game/online/five/{roomId}/{userId} that opens a room against the AI
+    public static final String AI_MODE = "ai";
+    // The AI seat has no user row, id 0 is never generated by auto increment
+    public static final Long AI_USER_ID = 0L;
+    public static final String AI_USERNAME = "IA";
+    // Message of a RESIGN result: the winner already had a forced win, or the game was still open
+    public static final String RESIGN_FORCED_WIN = "forced";
+    public static final String RESIGN_OPEN = "open";
+    // Message of a RESIGN result when the loser's flag fell
+    public static final String RESIGN_TIMEOUT = "time";
+    // Message of a RESIGN result, a draw, when the server ended a game left unfinished
+    public static final String RESIGN_ABANDONED = "abandoned";
+}
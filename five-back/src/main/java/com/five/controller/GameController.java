@@ -0,0 +1,43 @@
+package com.five.controller;
+
+import com.five.service.GameService;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+
+@RestController
+@RequestMapping(value = "/api/game")
+@Slf4j
+public class GameController {
+    @Autowired
+    private GameService gameService;
+
+
+    // The moves of a finished game for a replay, in the GameRecord form: a few bytes a move
+    @GetMapping("/{id}/moves")
+    public ResponseEntity<byte[]> getMoves(@PathVariable Long id) {
+        log.info("Query the moves of game {}", id);
+        byte[] moves = gameService.getMoves(id);
+        if (moves == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_OCTET_STREAM).body(moves);
+    }
+
+
+    // A page of the user's games, newest first. The next page starts after the id in "next".
+    @GetMapping("/user/{userId}")
+    public void listByUser(@PathVariable Long userId, @RequestParam(required = false) Long after,
+                           @RequestParam(defaultValue = "20") int limit, HttpServletResponse response) throws IOException {
+        log.info("Query the games of user {} before game {}", userId, after);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        gameService.writeUserGames(userId, after, limit, response.getOutputStream());
+    }
+
+}
@@ -0,0 +1,11 @@
+package com.five.exception;
+
+// An inbound websocket frame that does not follow the game protocol
+public class MessageFormatException extends BaseException {
+    public MessageFormatException() {
+    }
+
+    public MessageFormatException(String message) {
+        super(message);
+    }
+}
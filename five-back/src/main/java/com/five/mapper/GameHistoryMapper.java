@@ -2,8 +2,10 @@ package com.five.mapper;
 
 import com.five.pojo.entity.GameHistory;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.Update;
+import org.apache.ibatis.cursor.Cursor;
 
 
 @Mapper
@@ -11,10 +13,13 @@ public interface GameHistoryMapper {
 
     void insert(GameHistory gameHistory);
 
-    @Update("update game_history set end_time=#{endTime} ,game_result=#{gameResult}")
+    @Update("update game_history set end_time=#{endTime} ,game_result=#{gameResult} ,moves=#{moves} where id=#{id}")
     void update(GameHistory gameHistory);
 
-    @Select("select * from game_history where room_id=#{roomId} order by begin_time desc limit 1 ")
-    GameHistory selectByRoomId(Long roomId);
+    @Select("select id, moves from game_history where id=#{id}")
+    GameHistory selectMovesById(Long id);
+
+    // The user's games, newest first, from the one before afterId; read row by row
+    Cursor<GameHistory> selectByUser(@Param("userId") Long userId, @Param("afterId") Long afterId, @Param("limit") int limit);
 
 }
@@ -1,10 +1,16 @@
 package com.five.mapper;
 
 import com.five.pojo.dto.UserRegisterDTO;
+import com.five.pojo.dto.UserStatisticsDTO;
 import com.five.pojo.entity.User;
 import com.five.pojo.vo.UserSelectByIdVO;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.Collection;
+import java.util.List;
 
 @Mapper
 public interface UserMapper {
@@ -19,8 +25,16 @@ public interface UserMapper {
     @Select("select * from user where id=#{id} and deleted=0")
     UserSelectByIdVO selectUserById(Long id);
 
+    List<UserSelectByIdVO> selectUsersByIds(@Param("ids") Collection<Long> ids);
+
     int update(User user);
 
+    // Adds the games to the user's counters in place, no read needed
+    @Update("update user set game_total_counts=game_total_counts+#{total}, game_success_counts=game_success_counts+#{success}, " +
+            "game_fail_counts=game_fail_counts+#{fail}, game_dead_heat_counts=game_dead_heat_counts+#{deadHeat} " +
+            "where id=#{userId} and deleted=0")
+    int addStatistics(UserStatisticsDTO statistics);
+
     @Select("select * from user where username=#{username} ")
     User selectByUsername(String username);
 }
@@ -0,0 +1,24 @@
+package com.five.pojo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Games to add to a user's statistics, applied as increments
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserStatisticsDTO {
+    private Long userId;
+    private int total;
+    private int success;
+    private int fail;
+    private int deadHeat;
+
+    public void add(UserStatisticsDTO other) {
+        total += other.total;
+        success += other.success;
+        fail += other.fail;
+        deadHeat += other.deadHeat;
+    }
+}
@@ -28,4 +28,7 @@ public class GameHistory {
 
     private Integer gameResult;
 
+    // The moves, see GameRecord
+    private byte[] moves;
+
 }
@@ -0,0 +1,34 @@
+package com.five.pojo.pojo;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+
+@Component
+@ConfigurationProperties(prefix = "five.ai")
+@Data
+public class AiProperties {
+
+    // Wall-clock budget for one AI move
+    private long timeBudgetMillis = 200;
+    // Iterative deepening stops here even if time is left
+    private int maxDepth = 10;
+    // The transposition table holds 2^tableSizeBits entries of 16 bytes
+    private int tableSizeBits = 16;
+    // Threads one search may use, itself included; helpers share the transposition table
+    private int threadsPerSearch = 4;
+    // Helper threads across all searches on this node, so AI games cannot starve the websocket threads
+    private int maxSearchThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    // Threads computing AI moves, separate from the websocket threads
+    private int moveThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    // AI moves waiting for a thread; past this an AI move waits moveRetryMillis and is queued again
+    private int moveQueueLimit = 64;
+    private long moveRetryMillis = 250;
+    // Longest an AI move may take from the player's move, time spent queued included
+    private long moveDeadlineMillis = 2000;
+    // Opening book written by OpeningBookBuilder, no book is used when empty
+    private String bookPath;
+    // The book is consulted while the board has fewer stones than this
+    private int bookPlies = 8;
+}
@@ -0,0 +1,28 @@
+package com.five.pojo.pojo;
+
+import com.five.utils.TimeControl;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+
+@Component
+@ConfigurationProperties(prefix = "five.clock")
+@Data
+public class ClockProperties {
+
+    // The time control of a room whose creator asks for none; NONE turns the clocks off
+    private TimeControl.Kind kind = TimeControl.Kind.FISCHER;
+    private long mainMillis = 600_000;
+    // Added after every move under FISCHER
+    private long incrementMillis = 5_000;
+    // The byo-yomi periods after the main time under BYO_YOMI
+    private long periodMillis = 30_000;
+    private int periods = 3;
+    // Longest main time, increment or period a room may ask for
+    private long maxMillis = 3_600_000;
+
+    public TimeControl defaults() {
+        return new TimeControl(kind, mainMillis, incrementMillis, periodMillis, periods);
+    }
+}
@@ -0,0 +1,16 @@
+package com.five.pojo.pojo;
+
+import com.five.utils.ExecutionMode;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+
+@Component
+@ConfigurationProperties(prefix = "five.execution")
+@Data
+public class ExecutionProperties {
+
+    // PLATFORM or VIRTUAL, e.g. --five.execution.mode=virtual; VIRTUAL falls back to PLATFORM before Java 21
+    private ExecutionMode mode = ExecutionMode.PLATFORM;
+}
@@ -0,0 +1,20 @@
+package com.five.pojo.pojo;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+
+@Component
+@ConfigurationProperties(prefix = "five.journal")
+@Data
+public class JournalProperties {
+
+    // Journal the games in progress so a restart resumes them
+    private boolean enabled = true;
+    private String directory = "journal";
+    // Size of a segment file; a full one is replaced by a new one starting with the live games
+    private int segmentBytes = 64 * 1024 * 1024;
+    // How often new records are forced to the disk, 0 leaves it to the operating system
+    private long fsyncIntervalMillis = 50;
+}
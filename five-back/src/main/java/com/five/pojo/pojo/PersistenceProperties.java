@@ -0,0 +1,23 @@
+package com.five.pojo.pojo;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+
+@Component
+@ConfigurationProperties(prefix = "five.persistence")
+@Data
+public class PersistenceProperties {
+
+    // Game results and statistics waiting for the database; dropped once it is full
+    private int queueCapacity = 10000;
+    // Results and statistics written in one transaction at most
+    private int batchSize = 500;
+    // Times a failed batch is tried again before it is written row by row
+    private int writeRetries = 5;
+    // Wait before the first retry, doubled for each one after
+    private long retryBackoffMillis = 200;
+    // How long shutdown waits for the queue to be written
+    private long shutdownTimeoutMillis = 10_000;
+}
@@ -0,0 +1,33 @@
+package com.five.pojo.pojo;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+
+@Component
+@ConfigurationProperties(prefix = "five.rate-limit")
+@Data
+public class RateLimitProperties {
+
+    // Frames a session may send per second of each type, and how many at once
+    private Budget chat = new Budget(2, 5);
+    private Budget move = new Budget(4, 8);
+    private Budget join = new Budget(1, 5);
+    private Budget resign = new Budget(1, 2);
+    // Frames of every session of the node together, past which frames are dropped
+    private Budget node = new Budget(20_000, 40_000);
+    // Frames a session may have refused for being over its budget, past which it is closed
+    private Budget violations = new Budget(1, 20);
+
+    // A perSecond of 0 or less is no limit
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Budget {
+        private double perSecond;
+        private int burst;
+    }
+}
@@ -0,0 +1,17 @@
+package com.five.pojo.pojo;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+
+@Component
+@ConfigurationProperties(prefix = "five.user-cache")
+@Data
+public class UserCacheProperties {
+
+    // Profiles kept at most, the least recently used are dropped first
+    private int maxSize = 10000;
+    // A cached profile is read again from the database after this long
+    private long ttlMillis = 300_000;
+}
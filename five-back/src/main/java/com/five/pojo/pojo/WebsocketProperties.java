@@ -0,0 +1,36 @@
+package com.five.pojo.pojo;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+
+@Component
+@ConfigurationProperties(prefix = "five.websocket")
+@Data
+public class WebsocketProperties {
+
+    // Frames a session may have waiting to be written before it counts as a slow consumer
+    private int outboundHighWaterMark = 64;
+    // A session over the high-water mark for this long is disconnected
+    private long slowConsumerMillis = 3000;
+    // Hard bound on the frames waiting for one session, reaching it disconnects right away
+    private int outboundQueueLimit = 256;
+    // Recent events kept per room for spectators that reconnect, at most 128
+    private int resumeBufferSize = 64;
+    // Sessions in a room from which its spectators get their events in batches, 0 never batches
+    private int spectatorBatchThreshold = 200;
+    // How often the spectators of a batched room get their batch
+    private long spectatorTickMillis = 100;
+    // Threads running the rooms' tasks, each room on one thread at a time. A room task still inserts
+    // the row of each game that starts, hence more threads than cores.
+    private int roomThreads = Runtime.getRuntime().availableProcessors() * 2;
+    // A room without any message for this long is closed
+    private long roomIdleMillis = 300_000;
+    // A game still running after this long has its room closed
+    private long roomMaxGameMillis = 3_600_000;
+    // How long a player cut off from a running game keeps the seat before forfeiting the game
+    private long reconnectGraceMillis = 30_000;
+    // Resolution of the shared timing wheel of the room timeouts
+    private long timerTickMillis = 100;
+}
@@ -0,0 +1,35 @@
+package com.five.pojo.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class GameAIMessageVO {
+
+    // The move chosen by the AI
+    private AICoordinate AIPieces;
+
+    // Score of the move from the AI's point of view
+    private int score;
+
+    // Deepest fully searched depth, in plies
+    private int depth;
+
+    private long nodes;
+
+    private long elapsedMillis;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class AICoordinate {
+        private byte x;
+        private byte y;
+    }
+}
@@ -0,0 +1,25 @@
+package com.five.pojo.vo;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// One game of a user's game list, without its moves
+@Data
+public class GameHistoryVO {
+
+    private Long id;
+
+    private Long roomId;
+
+    private Long blackId;
+
+    private Long whiteId;
+
+    private LocalDateTime beginTime;
+
+    private LocalDateTime endTime;
+
+    private Integer gameResult;
+
+}
@@ -0,0 +1,52 @@
+package com.five.pojo.vo;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.five.utils.GameBoard;
+import com.five.utils.GameResult;
+import com.five.utils.Role;
+import com.five.utils.TimeControl;
+
+import java.util.List;
+
+// The events the game socket sends to its clients. Each one is encoded once and the same frame
+// goes to every session of the room; the field names are the JSON keys the board page reads.
+// Room-wide events carry seq, their place in the room's event sequence starting at 1.
+public sealed interface RoomEventVO {
+
+    // The event's sequence number, 0 for the events sent to a single session
+    default long seq() {
+        return 0;
+    }
+
+    // WARNING: the room already has two players
+    record Warning(int type) implements RoomEventVO {
+    }
+
+    // USER_ACTOR_CONFIRM: the role given to a user who joined
+    record RoleConfirm(int type, Long userId, Role role, Long gameId, TimeControl timeControl) implements RoomEventVO {
+    }
+
+    // CHAT_MESSAGE and RESIGN, with the game state after the event. The role of a RESIGN is the
+    // winner's, none for a draw.
+    record Game(int type, long seq, Long id, Role role, String message, int isGameOver) implements RoomEventVO {
+    }
+
+    // MOVE, with the game state after the move. The point goes out as the "(x,y)" message.
+    record Move(int type, long seq, Long id, Role role, @JsonIgnore int x, @JsonIgnore int y, int isGameOver) implements RoomEventVO {
+
+        @JsonProperty("message")
+        public String message() {
+            return "(" + x + "," + y + ")";
+        }
+    }
+
+    // ROOM_COUNT_UPDATE: everyone in the room
+    record RoomCount(int type, long seq, List<GameActor> actors) implements RoomEventVO {
+    }
+
+    // OBSERVER_UPDATE: the whole board for a spectator who joined mid-game, as of event seq of the
+    // game gameId. A spectator that reconnects sends both back, its seq only counts in that game.
+    record ObserverUpdate(int type, long seq, Long id, Role role, GameBoard message, GameResult isGameOver, Long gameId) implements RoomEventVO {
+    }
+}
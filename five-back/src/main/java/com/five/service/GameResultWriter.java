@@ -0,0 +1,226 @@
+package com.five.service;
+
+import com.five.mapper.GameHistoryMapper;
+import com.five.mapper.UserMapper;
+import com.five.pojo.dto.UserStatisticsDTO;
+import com.five.pojo.entity.GameHistory;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Writes game results and player statistics behind the games. A game that ends only queues its
+// result and its players' statistics; one writer thread takes whatever has queued up since its last
+// write, adds up the statistics of each user and hands it all to the sink as one batch. The queue is
+// bounded: when the database falls that far behind, what no longer fits is dropped and counted,
+// so ending a game never waits for the database on a room thread.
+// A batch that fails is tried again, waiting twice as long each time, so a short outage loses
+// nothing; a batch that still fails is written row by row, so a bad row only loses itself.
+// shutdown() writes what is still queued before it returns.
+@Slf4j
+public class GameResultWriter {
+
+    // Where the batches go. The MyBatis sink runs each batch as JDBC batches in one transaction.
+    @FunctionalInterface
+    public interface Sink {
+        void write(List<GameHistory> results, Collection<UserStatisticsDTO> statistics);
+    }
+
+    private static final Object STOP = new Object();
+    private static final long MAX_BACKOFF_MILLIS = 30_000;
+
+    private final BlockingQueue<Object> queue;
+    private final int batchSize;
+    private final long shutdownTimeoutMillis;
+    private final int retries;
+    private final long retryBackoffMillis;
+    private final Sink sink;
+    private final Thread writer;
+    private final AtomicLong failedBatches = new AtomicLong(0);
+    private final AtomicLong lostRows = new AtomicLong(0);
+    private final AtomicLong droppedRows = new AtomicLong(0);
+    private volatile boolean closed;
+
+    public GameResultWriter(int queueCapacity, int batchSize, long shutdownTimeoutMillis, int retries,
+                            long retryBackoffMillis, Sink sink) {
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.batchSize = Math.max(1, batchSize);
+        this.shutdownTimeoutMillis = shutdownTimeoutMillis;
+        this.retries = Math.max(0, retries);
+        this.retryBackoffMillis = Math.max(1, retryBackoffMillis);
+        this.sink = sink;
+        this.writer = new Thread(this::run, "game-result-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    // Sets the end time and result of the game, by the game's id
+    public void recordResult(GameHistory result) {
+        enqueue(result);
+    }
+
+    public void addStatistics(UserStatisticsDTO statistics) {
+        enqueue(statistics);
+    }
+
+    private void enqueue(Object item) {
+        if (closed) {
+            log.warn("Writer stopped, writing {} inline", item);
+            write(List.of(item));
+            return;
+        }
+        if (!queue.offer(item)) {
+            long dropped = droppedRows.incrementAndGet();
+            log.error("Game result queue full, dropped {}. Dropped rows: {}", item, dropped);
+        }
+    }
+
+    private void run() {
+        List<Object> batch = new ArrayList<>(batchSize);
+        while (true) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                // Only shutdown() interrupts, once it has given up waiting
+                return;
+            }
+            queue.drainTo(batch, batchSize - 1);
+            boolean stop = batch.remove(STOP);
+            write(batch);
+            batch.clear();
+            if (stop && queue.isEmpty()) {
+                return;
+            }
+        }
+    }
+
+    private void write(List<Object> items) {
+        List<GameHistory> results = new ArrayList<>();
+        Map<Long, UserStatisticsDTO> statistics = new LinkedHashMap<>();
+        for (Object item : items) {
+            if (item instanceof GameHistory result) {
+                results.add(result);
+            } else if (item instanceof UserStatisticsDTO delta) {
+                statistics.merge(delta.getUserId(), copy(delta), (sum, more) -> {
+                    sum.add(more);
+                    return sum;
+                });
+            }
+        }
+        if (results.isEmpty() && statistics.isEmpty()) {
+            return;
+        }
+        // A batch is one transaction, so trying it again never writes a statistic twice
+        long backoff = retryBackoffMillis;
+        for (int attempt = 0; ; attempt++) {
+            try {
+                sink.write(results, statistics.values());
+                return;
+            } catch (RuntimeException e) {
+                if (attempt == retries || !sleep(backoff)) {
+                    long failed = failedBatches.incrementAndGet();
+                    log.error("Batch of {} game results and the statistics of {} users failed {} times, writing it row by row. Failed batches: {}",
+                            results.size(), statistics.size(), attempt + 1, failed, e);
+                    break;
+                }
+                log.warn("Batch of {} game results failed, trying again in {} ms: {}", results.size(), backoff, e.getMessage());
+                backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+            }
+        }
+        for (GameHistory result : results) {
+            writeRow(List.of(result), List.of(), result);
+        }
+        for (UserStatisticsDTO delta : statistics.values()) {
+            writeRow(List.of(), List.of(delta), delta);
+        }
+    }
+
+    private void writeRow(List<GameHistory> results, Collection<UserStatisticsDTO> statistics, Object row) {
+        try {
+            sink.write(results, statistics);
+        } catch (RuntimeException e) {
+            long lost = lostRows.incrementAndGet();
+            log.error("Lost {}. Lost rows: {}", row, lost, e);
+        }
+    }
+
+    // False if the writer was interrupted, by a shutdown that gave up waiting
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static UserStatisticsDTO copy(UserStatisticsDTO delta) {
+        return new UserStatisticsDTO(delta.getUserId(), delta.getTotal(), delta.getSuccess(), delta.getFail(), delta.getDeadHeat());
+    }
+
+    public int queued() {
+        return queue.size();
+    }
+
+    // Batches that still failed after their retries, and were written row by row
+    public long getFailedBatches() {
+        return failedBatches.get();
+    }
+
+    // Results and statistics that could not be written even on their own
+    public long getLostRows() {
+        return lostRows.get();
+    }
+
+    // Results and statistics dropped because the queue was full
+    public long getDroppedRows() {
+        return droppedRows.get();
+    }
+
+    // Writes everything queued so far, waiting up to the shutdown timeout for the database
+    public void shutdown() {
+        closed = true;
+        try {
+            queue.put(STOP);
+            writer.join(shutdownTimeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer.isAlive()) {
+            log.error("Gave up on {} game results and statistics still queued", queue.size());
+            writer.interrupt();
+            return;
+        }
+        // Whatever was queued while the writer was stopping
+        List<Object> late = new ArrayList<>();
+        queue.drainTo(late);
+        late.remove(STOP);
+        write(late);
+    }
+
+    // Each batch in one transaction: the results as one JDBC batch, the statistics as another, then
+    // the profiles cached for those users are dropped
+    public static Sink myBatisSink(SqlSessionFactory sqlSessionFactory, UserProfileCache userProfileCache) {
+        return (results, statistics) -> {
+            try (SqlSession session = sqlSessionFactory.openSession(ExecutorType.BATCH, false)) {
+                GameHistoryMapper gameHistoryMapper = session.getMapper(GameHistoryMapper.class);
+                UserMapper userMapper = session.getMapper(UserMapper.class);
+                results.forEach(gameHistoryMapper::update);
+                statistics.forEach(userMapper::addStatistics);
+                session.flushStatements();
+                session.commit();
+            }
+            statistics.forEach(delta -> userProfileCache.invalidate(delta.getUserId()));
+        };
+    }
+}
@@ -0,0 +1,14 @@
+package com.five.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+
+public interface GameService {
+
+    // The game's moves as a GameRecord, or null if it has none
+    byte[] getMoves(Long gameId);
+
+    // Writes one page of the user's games as a Result, newest first, starting before afterId
+    void writeUserGames(Long userId, Long afterId, int limit, OutputStream out) throws IOException;
+}
@@ -0,0 +1,137 @@
+package com.five.service;
+
+import com.five.mapper.UserMapper;
+import com.five.pojo.entity.User;
+import com.five.pojo.vo.UserSelectByIdVO;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// User profiles in front of UserMapper. Room rosters and game statistics read the same users over
+// and over, so a profile is kept for ttlMillis, at most maxSize of them with the least recently
+// used dropped first, and the misses of a roster are read with a single query. Changes to a user
+// go through update(), which drops the cached profile. The profiles are shared, don't modify them.
+public class UserProfileCache {
+
+    private record Entry(UserSelectByIdVO profile, long expiresAt) {
+    }
+
+    private final UserMapper userMapper;
+    private final long ttlNanos;
+    private final AtomicLong hitCount = new AtomicLong(0);
+    private final AtomicLong missCount = new AtomicLong(0);
+
+    // Guarded by itself
+    private final LinkedHashMap<Long, Entry> entries;
+    // Bumped by every invalidation, so a load that raced one does not cache what it read
+    private long generation;
+
+    public UserProfileCache(UserMapper userMapper, int maxSize, long ttlMillis) {
+        this.userMapper = userMapper;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    // The profile of the user, or null if there is no such user
+    public UserSelectByIdVO get(Long id) {
+        return getAll(List.of(id)).get(id);
+    }
+
+    // The profiles of the users among ids that exist, by id
+    public Map<Long, UserSelectByIdVO> getAll(Collection<Long> ids) {
+        Map<Long, UserSelectByIdVO> profiles = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        long loadGeneration;
+        synchronized (entries) {
+            long now = System.nanoTime();
+            for (Long id : ids) {
+                Entry entry = entries.get(id);
+                if (entry != null && entry.expiresAt() - now > 0) {
+                    profiles.put(id, entry.profile());
+                } else {
+                    if (entry != null) {
+                        entries.remove(id);
+                    }
+                    missing.add(id);
+                }
+            }
+            loadGeneration = generation;
+        }
+        hitCount.addAndGet(profiles.size());
+        if (missing.isEmpty()) {
+            return profiles;
+        }
+        missCount.addAndGet(missing.size());
+        List<UserSelectByIdVO> loaded = load(missing);
+        long expiresAt = System.nanoTime() + ttlNanos;
+        synchronized (entries) {
+            boolean current = generation == loadGeneration;
+            for (UserSelectByIdVO profile : loaded) {
+                profiles.put(profile.getId(), profile);
+                if (current) {
+                    entries.put(profile.getId(), new Entry(profile, expiresAt));
+                }
+            }
+        }
+        return profiles;
+    }
+
+    private List<UserSelectByIdVO> load(List<Long> ids) {
+        if (ids.size() > 1) {
+            return userMapper.selectUsersByIds(ids);
+        }
+        UserSelectByIdVO profile = userMapper.selectUserById(ids.get(0));
+        return profile == null ? List.of() : List.of(profile);
+    }
+
+    // Updates the user and drops its cached profile, again once the surrounding transaction ends
+    // since a read before the commit may have cached the old row
+    public int update(User user) {
+        Long id = user.getId();
+        int updated = userMapper.update(user);
+        invalidate(id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidate(id);
+                }
+            });
+        }
+        return updated;
+    }
+
+    public void invalidate(Long id) {
+        synchronized (entries) {
+            generation++;
+            entries.remove(id);
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+}
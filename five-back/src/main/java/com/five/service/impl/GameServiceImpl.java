@@ -0,0 +1,72 @@
+package com.five.service.impl;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.five.mapper.GameHistoryMapper;
+import com.five.pojo.entity.GameHistory;
+import com.five.pojo.vo.GameHistoryVO;
+import com.five.service.GameService;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+@Service
+@Slf4j
+public class GameServiceImpl implements GameService {
+
+    // Games in one page of a game list at most
+    private static final int MAX_PAGE = 100;
+
+    @Autowired
+    private GameHistoryMapper gameHistoryMapper;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+
+    @Override
+    public byte[] getMoves(Long gameId) {
+        GameHistory gameHistory = gameHistoryMapper.selectMovesById(gameId);
+        return gameHistory == null ? null : gameHistory.getMoves();
+    }
+
+    // The page goes from the cursor to the response one game at a time, the cursor needs the
+    // transaction's connection open until it is read. "next" is the afterId of the next page, null
+    // on the last one.
+    @Override
+    @Transactional(readOnly = true)
+    public void writeUserGames(Long userId, Long afterId, int limit, OutputStream out) throws IOException {
+        int pageSize = Math.min(Math.max(limit, 1), MAX_PAGE);
+        try (Cursor<GameHistory> games = gameHistoryMapper.selectByUser(userId, afterId, pageSize);
+             JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+            json.writeStartObject();
+            json.writeNumberField("code", 1);
+            json.writeStringField("msg", "success");
+            json.writeObjectFieldStart("data");
+            json.writeArrayFieldStart("games");
+            Long lastId = null;
+            int count = 0;
+            GameHistoryVO gameHistoryVO = new GameHistoryVO();
+            for (GameHistory game : games) {
+                BeanUtils.copyProperties(game, gameHistoryVO);
+                objectMapper.writeValue(json, gameHistoryVO);
+                lastId = game.getId();
+                count++;
+            }
+            json.writeEndArray();
+            if (count == pageSize) {
+                json.writeNumberField("next", lastId);
+            } else {
+                json.writeNullField("next");
+            }
+            json.writeEndObject();
+            json.writeEndObject();
+        }
+    }
+}
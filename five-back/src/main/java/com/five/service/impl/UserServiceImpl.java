@@ -8,6 +8,7 @@ import com.five.pojo.entity.User;
 import com.five.pojo.pojo.JwtProperties;
 import com.five.pojo.vo.UserLoginVO;
 import com.five.pojo.vo.UserSelectByIdVO;
+import com.five.service.UserProfileCache;
 import com.five.service.UserService;
 import com.five.utils.JwtUtil;
 import lombok.extern.slf4j.Slf4j;
@@ -28,6 +29,9 @@ public class UserServiceImpl implements UserService {
     @Autowired
     private JwtProperties jwtProperties;
 
+    @Autowired
+    private UserProfileCache userProfileCache;
+
 
     @Override
     @Transactional
@@ -80,7 +84,7 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public UserSelectByIdVO getById(Long id) {
-        return userMapper.selectUserById(id);
+        return userProfileCache.get(id);
     }
 
     @Override
@@ -88,7 +92,7 @@ public class UserServiceImpl implements UserService {
     public void deleteById(Long id) {
         User user = User.builder().id(id).deleted(1).build();
         // Call conditional update
-        int deleted = userMapper.update(user);
+        int deleted = userProfileCache.update(user);
         // Update failed
         if (deleted == 0) {
             throw new UserException(UserConstant.DELETE_FAILED);
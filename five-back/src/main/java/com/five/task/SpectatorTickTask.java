@@ -0,0 +1,19 @@
+package com.five.task;
+
+import com.five.websocket.OnlineFiveServer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+public class SpectatorTickTask {
+
+    @Autowired
+    private OnlineFiveServer onlineFiveServer;
+
+    // Sends the spectators of the rooms with a large audience what happened since the last tick
+    @Scheduled(fixedRateString = "${five.websocket.spectator-tick-millis:100}")
+    public void tick() {
+        onlineFiveServer.flushSpectators();
+    }
+}
@@ -1,21 +1,20 @@
 package com.five.task;
 
-import com.five.mapper.GameHistoryMapper;
-import com.five.pojo.entity.GameHistory;
-import com.five.pojo.pojo.OnlineFiveActor;
+import com.five.pojo.pojo.WebsocketProperties;
+import com.five.utils.TimingWheel;
 import com.five.websocket.OnlineFiveServer;
+import com.five.websocket.Room;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
-import java.io.IOException;
-import java.time.Duration;
-import java.time.LocalDateTime;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
 
+// Closes the rooms nobody uses any more, from the times the rooms keep in memory. Each open room has
+// one timeout on the room timer, due when it would have been idle for roomIdleMillis or its game
+// would have run for roomMaxGameMillis. A game on the clock is never idle, its flag ends it. A
+// message only updates the room's last activity; when the timeout fires the room's times are
+// checked on its own executor, and the room is closed or gets a timeout for what is left.
 @Component
 @Slf4j
 public class WebsocketSessionTask {
@@ -24,53 +23,54 @@ public class WebsocketSessionTask {
     private OnlineFiveServer onlineFiveServer;
 
     @Autowired
-    private GameHistoryMapper gameHistoryMapper;
+    private TimingWheel roomTimer;
+
+    @Autowired
+    private WebsocketProperties websocketProperties;
 
     private static AtomicLong closeRoomCount = new AtomicLong(0); // Use atomic operation to avoid concurrency issues in multi-threading
+    private static AtomicLong reapedRoomCount = new AtomicLong(0);
 
+    // Rooms closed because their game ran too long
     public AtomicLong getCloseRoomCount() {
         return closeRoomCount;
     }
 
-    
-    @Scheduled(cron = "0 0 * * * ?")  // Execute every hour
-    public void removeSessions() {
-        // Get roomSessions and roomBoards
-        ConcurrentHashMap<Long, ConcurrentHashMap<Long, OnlineFiveActor>> roomSessions = onlineFiveServer.getRoomSessions();
-        ConcurrentHashMap<Long, Integer[][]> roomBoards = onlineFiveServer.getRoomBoards();
+    // Rooms closed because nothing happened in them for too long
+    public AtomicLong getReapedRoomCount() {
+        return reapedRoomCount;
+    }
 
-        // Iterate through all rooms and check how long they have been active
-        for (Map.Entry<Long, ConcurrentHashMap<Long, OnlineFiveActor>> roomEntry : roomSessions.entrySet()) {
-            Long roomId = roomEntry.getKey(); // Room ID
-            ConcurrentHashMap<Long, OnlineFiveActor> userSessions = roomEntry.getValue();
+    // Starts watching a room that just opened
+    public void watch(Room room) {
+        schedule(room, websocketProperties.getRoomIdleMillis());
+    }
 
-            GameHistory gameHistory = gameHistoryMapper.selectByRoomId(roomId);
+    private void schedule(Room room, long delayMillis) {
+        roomTimer.schedule(delayMillis, () -> onlineFiveServer.inRoom(room, () -> check(room)));
+    }
 
-            if (gameHistory != null) {
-                // If the difference between the current time and the start time is greater than one hour, close the connections
-                LocalDateTime beginTime = gameHistory.getBeginTime();
-                // Check the time difference between the current time and the start time
-                if (Duration.between(beginTime, LocalDateTime.now()).toHours() > 1) {
-                    long l = closeRoomCount.incrementAndGet();
-                    log.info("Room {} has exceeded the time limit, closing all sessions. Total closed rooms: {}", roomId, l);
-                    // If the time difference is greater than one hour, close all related sessions
-                    for (OnlineFiveActor actor : userSessions.values()) {
-                        try {
-                            if (actor.getSession().isOpen()) {
-                                actor.getSession().close();
-                            }
-                        } catch (IOException e) {
-                            log.error("An exception occurred while closing user session in scheduled task: {}", e.getMessage());
-                        }
-                    }
-                    // Remove the sessions
-                    roomSessions.remove(roomId);
-                    roomBoards.remove(roomId);
-                }
-            }
+    // On the room's executor
+    private void check(Room room) {
+        long now = System.currentTimeMillis();
+        // A game on the clock is bounded by its flag timeout, a player may think longer than the
+        // idle limit within their own time
+        long idleLeft = room.getClock() != null ? Long.MAX_VALUE
+                : room.getLastActivityMillis() + websocketProperties.getRoomIdleMillis() - now;
+        long gameLeft = room.getGameStartMillis() == 0 ? Long.MAX_VALUE
+                : room.getGameStartMillis() + websocketProperties.getRoomMaxGameMillis() - now;
+        if (gameLeft <= 0) {
+            long l = closeRoomCount.incrementAndGet();
+            log.info("Room {} has exceeded the time limit, closing all sessions. Total closed rooms: {}", room.getId(), l);
+            onlineFiveServer.expireRoom(room);
+        } else if (idleLeft <= 0) {
+            long l = reapedRoomCount.incrementAndGet();
+            log.info("Room {} has been idle for {} ms, closing all sessions. Total reaped rooms: {}",
+                    room.getId(), now - room.getLastActivityMillis(), l);
+            onlineFiveServer.expireRoom(room);
+        } else {
+            // Looked at again within the idle limit, in case the clock is gone by then
+            schedule(room, Math.min(websocketProperties.getRoomIdleMillis(), Math.min(idleLeft, gameLeft)));
         }
-
     }
-
-
 }
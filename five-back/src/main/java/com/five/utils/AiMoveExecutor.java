@@ -0,0 +1,69 @@
+package com.five.utils;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Runs AI move computations off the websocket threads. Both the pool and its queue are bounded,
+// so a burst of AI games waits here instead of holding container threads. Each room has at most
+// one computation pending; cancelling a room interrupts it, which the search checks for.
+public class AiMoveExecutor {
+
+    private final ThreadPoolExecutor executor;
+    private final ConcurrentHashMap<Long, FutureTask<?>> pending = new ConcurrentHashMap<>();
+
+    public AiMoveExecutor(int threads, int queueLimit) {
+        int poolSize = Math.max(1, threads);
+        AtomicInteger threadNumber = new AtomicInteger(1);
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueLimit)), runnable -> {
+            Thread thread = new Thread(runnable, "ai-move-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    // Queues the room's move computation, replacing one still pending for the room. Returns false
+    // when the queue is full.
+    public boolean submit(Long roomId, Runnable task) {
+        FutureTask<Void> future = new FutureTask<>(task, null) {
+            @Override
+            protected void done() {
+                pending.remove(roomId, this);
+            }
+        };
+        FutureTask<?> previous = pending.put(roomId, future);
+        if (previous != null) {
+            previous.cancel(true);
+        }
+        try {
+            executor.execute(future);
+            return true;
+        } catch (RejectedExecutionException e) {
+            pending.remove(roomId, future);
+            return false;
+        }
+    }
+
+    // Stops the room's pending computation, if any. A running search notices the interrupt and
+    // its result is dropped.
+    public void cancel(Long roomId) {
+        FutureTask<?> future = pending.remove(roomId);
+        if (future != null) {
+            future.cancel(true);
+            executor.remove(future);
+        }
+    }
+
+    public int queued() {
+        return executor.getQueue().size();
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,99 @@
+package com.five.utils;
+
+import com.five.constant.GameConstant;
+import com.five.pojo.vo.RoomEventVO;
+
+import java.nio.ByteBuffer;
+
+// The "five.bin.v1" subprotocol: the game events of a room as binary frames. A client that asks
+// for it at the handshake gets moves, resignations and board snapshots in this form; every other
+// event, and every client that does not ask, stays on the JSON text frames.
+//
+// Every frame starts with its MessageType value. A point is one byte, x * 15 + y; a role is one
+// byte, its Role code, 0 for none; a result is a GameResult value. Room events end
+// with the low byte of their sequence number, which the client widens to the full number within
+// 128 either way of the last one it has: a room keeps fewer than 128 events for replay, and a
+// spectator batch can hold events older than the snapshot before it, so the low byte is never
+// ambiguous.
+//   server BATCH           type, then for each event its length as 4 bytes and its frame (see
+//                          SpectatorBatch)
+//   server MOVE            type, point, role << 4 | result, seq
+//   server RESIGN          type, role << 4 | result, 1 if the winner had a forced win, 2 if the
+//                          loser ran out of time, 3 if the server ended the game, else 0, seq
+//   server OBSERVER_UPDATE type, result, seq as 4 bytes, game id as 8 bytes, board with 2 bits per
+//                          cell, four cells per byte, the first cell in the low bits
+//   client JOIN_ROOM       type, optionally the seq of the last event seen as 4 bytes and the
+//                          game id it belongs to as 8 bytes
+//   client MOVE            type, point, role
+//   client RESIGN          type, role
+public final class BinaryFrames {
+
+    public static final String SUBPROTOCOL = "five.bin.v1";
+
+    static final int BOARD_BYTES = (GameBoard.CELLS + 3) / 4;
+
+    private BinaryFrames() {
+    }
+
+    // The binary form of the event, or null if it only has a JSON form. The buffer is read-only
+    // and can be shared by every session it is sent to.
+    public static ByteBuffer encode(RoomEventVO event) {
+        ByteBuffer frame;
+        if (event instanceof RoomEventVO.Move move) {
+            frame = ByteBuffer.allocate(4)
+                    .put((byte) move.type())
+                    .put((byte) (move.x() * GameBoard.SIZE + move.y()))
+                    .put((byte) (roleCode(move.role()) << 4 | move.isGameOver()))
+                    .put((byte) move.seq());
+        } else if (event instanceof RoomEventVO.Game game && game.type() == MessageType.RESIGN.getValue()) {
+            frame = ByteBuffer.allocate(4)
+                    .put((byte) game.type())
+                    .put((byte) (roleCode(game.role()) << 4 | game.isGameOver()))
+                    .put((byte) resignReason(game.message()))
+                    .put((byte) game.seq());
+        } else if (event instanceof RoomEventVO.ObserverUpdate update && update.message() != null) {
+            frame = ByteBuffer.allocate(14 + BOARD_BYTES)
+                    .put((byte) update.type())
+                    .put((byte) update.isGameOver().getValue())
+                    .putInt((int) update.seq())
+                    .putLong(update.gameId() == null ? 0 : update.gameId());
+            packBoard(update.message(), frame);
+        } else {
+            return null;
+        }
+        return frame.flip().asReadOnlyBuffer();
+    }
+
+    private static int resignReason(String message) {
+        if (GameConstant.RESIGN_FORCED_WIN.equals(message)) {
+            return 1;
+        }
+        if (GameConstant.RESIGN_TIMEOUT.equals(message)) {
+            return 2;
+        }
+        return GameConstant.RESIGN_ABANDONED.equals(message) ? 3 : 0;
+    }
+
+    private static int roleCode(Role role) {
+        return role == null ? 0 : role.getCode();
+    }
+
+    private static void packBoard(GameBoard board, ByteBuffer frame) {
+        int packed = 0;
+        int shift = 0;
+        for (int x = 0; x < GameBoard.SIZE; x++) {
+            for (int y = 0; y < GameBoard.SIZE; y++) {
+                packed |= board.get(x, y) << shift;
+                shift += 2;
+                if (shift == 8) {
+                    frame.put((byte) packed);
+                    packed = 0;
+                    shift = 0;
+                }
+            }
+        }
+        if (shift != 0) {
+            frame.put((byte) packed);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.five.utils;
+
+// One bit-plane per color: 225 cells fit in four longs, so a room board costs two small
+// arrays instead of 225 boxed Integers spread over 16 array objects.
+public class BitGameBoard implements GameBoard {
+
+    private static final int WORDS = (CELLS + 63) >>> 6;
+
+    private final long[] black = new long[WORDS];
+    private final long[] white = new long[WORDS];
+    private int stoneCount;
+
+    // Copies a legacy Integer[15][15] board, null cells are treated as empty
+    public static BitGameBoard of(Integer[][] chessBoard) {
+        BitGameBoard board = new BitGameBoard();
+        for (int x = 0; x < SIZE; x++) {
+            for (int y = 0; y < SIZE; y++) {
+                Integer color = chessBoard[x][y];
+                if (color != null && color != EMPTY) {
+                    board.place(x, y, color);
+                }
+            }
+        }
+        return board;
+    }
+
+    @Override
+    public BitGameBoard copy() {
+        BitGameBoard board = new BitGameBoard();
+        System.arraycopy(black, 0, board.black, 0, WORDS);
+        System.arraycopy(white, 0, board.white, 0, WORDS);
+        board.stoneCount = stoneCount;
+        return board;
+    }
+
+    @Override
+    public int get(int x, int y) {
+        int index = x * SIZE + y;
+        long bit = 1L << index;
+        if ((black[index >>> 6] & bit) != 0) {
+            return BLACK;
+        }
+        if ((white[index >>> 6] & bit) != 0) {
+            return WHITE;
+        }
+        return EMPTY;
+    }
+
+    @Override
+    public boolean place(int x, int y, int color) {
+        if (!GameBoard.isValidPoint(x, y) || (color != BLACK && color != WHITE)) {
+            return false;
+        }
+        int index = x * SIZE + y;
+        int word = index >>> 6;
+        long bit = 1L << index;
+        if (((black[word] | white[word]) & bit) != 0) {
+            return false;
+        }
+        if (color == BLACK) {
+            black[word] |= bit;
+        } else {
+            white[word] |= bit;
+        }
+        stoneCount++;
+        return true;
+    }
+
+    @Override
+    public int stoneCount() {
+        return stoneCount;
+    }
+}
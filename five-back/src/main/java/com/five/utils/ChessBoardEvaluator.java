@@ -0,0 +1,209 @@
+package com.five.utils;
+
+import com.five.pojo.vo.GameAIMessageVO;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Gomoku AI: negamax alpha-beta with iterative deepening under a time budget, a Zobrist keyed
+// transposition table, candidate moves limited to points near existing stones, and
+// killer / history move ordering. The search itself lives in SearchWorker. A threat-space solver
+// runs first and answers at once when the AI has a forced win through fours and threes.
+public class ChessBoardEvaluator {
+
+    public static final byte EMPTY = GameBoard.EMPTY;
+    public static final byte BLACK = GameBoard.BLACK;
+    public static final byte WHITE = GameBoard.WHITE;
+
+    public static final long DEFAULT_TIME_BUDGET_MILLIS = 200;
+    public static final int DEFAULT_TABLE_SIZE_BITS = 16;
+
+    // The threat solver may use up to 1/THREAT_BUDGET_SHARE of the time budget
+    private static final int THREAT_BUDGET_SHARE = 4;
+    private static final int CENTER = (GameBoard.SIZE / 2) * GameBoard.SIZE + GameBoard.SIZE / 2;
+
+    // Position as set up through makeMove, copied by helper workers at search time
+    private final SearchWorker mainWorker = new SearchWorker();
+    private final int tableSizeBits;
+    private final int maxDepth;
+    private final byte aiColor;
+    private final long timeBudgetMillis;
+    private TranspositionTablePool tablePool;
+    private SearchThreadPool threadPool;
+    private int threadsPerSearch = 1;
+    private OpeningBook openingBook = OpeningBook.empty();
+    private int bookPlies;
+    private long deadline = Long.MAX_VALUE;
+
+    // The AI plays white by default, as the human opens the game with black
+    public ChessBoardEvaluator(Byte[][] board, int depth) {
+        this(board, depth, WHITE, DEFAULT_TIME_BUDGET_MILLIS);
+    }
+
+    public ChessBoardEvaluator(Byte[][] board, int depth, byte aiColor, long timeBudgetMillis) {
+        this(depth, aiColor, timeBudgetMillis, DEFAULT_TABLE_SIZE_BITS);
+        for (int x = 0; x < GameBoard.SIZE; x++) {
+            for (int y = 0; y < GameBoard.SIZE; y++) {
+                Byte color = board[x][y];
+                if (color != null && color != EMPTY) {
+                    makeMove((byte) x, (byte) y, color);
+                }
+            }
+        }
+    }
+
+    public ChessBoardEvaluator(GameBoard board, int depth, byte aiColor, long timeBudgetMillis, int tableSizeBits) {
+        this(depth, aiColor, timeBudgetMillis, tableSizeBits);
+        for (int x = 0; x < GameBoard.SIZE; x++) {
+            for (int y = 0; y < GameBoard.SIZE; y++) {
+                int color = board.get(x, y);
+                if (color != EMPTY) {
+                    makeMove((byte) x, (byte) y, (byte) color);
+                }
+            }
+        }
+    }
+
+    private ChessBoardEvaluator(int depth, byte aiColor, long timeBudgetMillis, int tableSizeBits) {
+        if (depth < 1 || depth >= SearchWorker.MAX_PLY / 2) {
+            throw new IllegalArgumentException("Search depth out of range: " + depth);
+        }
+        if (aiColor != BLACK && aiColor != WHITE) {
+            throw new IllegalArgumentException("AI color must be black or white: " + aiColor);
+        }
+        this.maxDepth = depth;
+        this.aiColor = aiColor;
+        this.timeBudgetMillis = timeBudgetMillis;
+        this.tableSizeBits = tableSizeBits;
+    }
+
+    // Puts a stone on the board, occupied or off-board points are ignored
+    public void makeMove(byte x, byte y, byte color) {
+        if (!GameBoard.isValidPoint(x, y) || (color != BLACK && color != WHITE)) {
+            return;
+        }
+        int index = x * GameBoard.SIZE + y;
+        if (mainWorker.get(index) == EMPTY) {
+            mainWorker.place(index, color);
+        }
+    }
+
+    // Takes the search's table from the pool and gives it back afterwards, instead of allocating one
+    public ChessBoardEvaluator withTables(TranspositionTablePool tablePool) {
+        this.tablePool = tablePool;
+        return this;
+    }
+
+    // Lets the search run helper threads from the shared pool (Lazy SMP). Every thread searches
+    // the same position and they cooperate only through the lock-free transposition table.
+    public ChessBoardEvaluator withThreads(SearchThreadPool threadPool, int threadsPerSearch) {
+        this.threadPool = threadPool;
+        this.threadsPerSearch = Math.max(1, threadsPerSearch);
+        return this;
+    }
+
+    // Plays book moves instead of searching while the board has fewer than bookPlies stones
+    public ChessBoardEvaluator withOpeningBook(OpeningBook openingBook, int bookPlies) {
+        this.openingBook = openingBook;
+        this.bookPlies = bookPlies;
+        return this;
+    }
+
+    // Ends the search at this wall-clock time even if the time budget is not used up
+    public ChessBoardEvaluator withDeadline(long deadlineMillis) {
+        this.deadline = deadlineMillis;
+        return this;
+    }
+
+    // Searches for the AI's best move within the time budget. Interrupting the calling thread
+    // stops the search early.
+    public GameAIMessageVO work() {
+        long start = System.currentTimeMillis();
+        long end = Math.min(start + timeBudgetMillis, deadline);
+        SearchWorker.SearchControl control = new SearchWorker.SearchControl(end);
+
+        long[] nodes = new long[1];
+        int[] result = findBestMove(start, control, nodes);
+        int move = result[0];
+        return GameAIMessageVO.builder()
+                .AIPieces(move < 0 ? null : new GameAIMessageVO.AICoordinate(
+                        (byte) (move / GameBoard.SIZE), (byte) (move % GameBoard.SIZE)))
+                .score(result[1])
+                .depth(result[2])
+                .nodes(nodes[0])
+                .elapsedMillis(System.currentTimeMillis() - start)
+                .build();
+    }
+
+    // Returns {move, score, completed depth}
+    private int[] findBestMove(long start, SearchWorker.SearchControl control, long[] nodes) {
+        if (mainWorker.stoneCount() >= GameBoard.CELLS) {
+            return new int[]{-1, 0, 0};
+        }
+        if (mainWorker.stoneCount() == 0) {
+            return new int[]{CENTER, 0, 0};
+        }
+        if (mainWorker.stoneCount() < bookPlies) {
+            int bookMove = openingBook.probe(mainWorker.hash());
+            if (bookMove >= 0 && mainWorker.get(bookMove) == EMPTY) {
+                return new int[]{bookMove, 0, 0};
+            }
+        }
+        int side = aiColor;
+        // A five on the board or a single forced block needs no search
+        int[] rootMoves = mainWorker.rootMoves(side);
+        if (rootMoves.length == 1) {
+            int move = rootMoves[0];
+            return new int[]{move, mainWorker.makesFive(move, side) ? SearchWorker.WIN - 1 : 0, 0};
+        }
+        // The solver gets a share of the budget, what it leaves unused goes to the full search
+        ThreatSolver solver = new ThreatSolver(mainWorker,
+                Math.min(start + timeBudgetMillis / THREAT_BUDGET_SHARE, control.deadline));
+        int threat = solver.findWin(side);
+        nodes[0] = solver.nodes();
+        if (threat >= 0) {
+            return new int[]{threat, SearchWorker.WIN_THRESHOLD, 0};
+        }
+
+        TranspositionTable table = tablePool == null ? new TranspositionTable(tableSizeBits) : tablePool.take();
+        int helpers = threadPool == null ? 0 : threadPool.acquire(threadsPerSearch - 1);
+        CountDownLatch helpersDone = new CountDownLatch(helpers);
+        AtomicLong helperNodes = new AtomicLong();
+        for (int i = 1; i <= helpers; i++) {
+            int helperId = i;
+            SearchWorker helper = mainWorker.copy();
+            try {
+                threadPool.execute(() -> {
+                    try {
+                        helper.search(rootMoves, side, maxDepth, table, control, helperId);
+                        helperNodes.addAndGet(helper.nodes());
+                    } finally {
+                        helpersDone.countDown();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                helpersDone.countDown();
+            }
+        }
+        try {
+            int[] result = mainWorker.search(rootMoves, side, maxDepth, table, control, 0);
+            control.stopped = true;
+            helpersDone.await();
+            nodes[0] += mainWorker.nodes() + helperNodes.get();
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new int[]{rootMoves[0], 0, 0};
+        } finally {
+            control.stopped = true;
+            if (helpers > 0) {
+                threadPool.release(helpers);
+            }
+            // Helpers still running after an interrupt keep writing to the table, it is not reused
+            if (tablePool != null && helpersDone.getCount() == 0) {
+                tablePool.give(table);
+            }
+        }
+    }
+}
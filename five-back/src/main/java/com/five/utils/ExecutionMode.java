@@ -0,0 +1,46 @@
+package com.five.utils;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Which threads run the blocking work of the server: Tomcat's requests and websocket messages, the
+// rooms' tasks and the database calls they make. PLATFORM keeps the bounded pools; VIRTUAL gives
+// every task its own virtual thread, so a task waiting on the database or a socket parks instead
+// of holding a pool thread. Virtual threads need Java 21; the server is built for 17, so they are
+// looked up at runtime and an older JVM stays on PLATFORM.
+public enum ExecutionMode {
+    PLATFORM,
+    VIRTUAL;
+
+    private static final Method NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR = findVirtualThreadPerTaskExecutor();
+
+    private static Method findVirtualThreadPerTaskExecutor() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    public static boolean isVirtualAvailable() {
+        return NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR != null;
+    }
+
+    // The mode the server can actually run in
+    public ExecutionMode effective() {
+        return this == VIRTUAL && !isVirtualAvailable() ? PLATFORM : this;
+    }
+
+    // An executor starting a new virtual thread for each task. Only in an effective VIRTUAL mode.
+    public static ExecutorService newVirtualThreadPerTaskExecutor() {
+        if (!isVirtualAvailable()) {
+            throw new IllegalStateException("Virtual threads need Java 21, running " + Runtime.version());
+        }
+        try {
+            return (ExecutorService) NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not create a virtual thread executor", e);
+        }
+    }
+}
@@ -3,34 +3,57 @@ import static com.five.utils.GameResult.*;
 
 public class FiveGameUtil {
 
-    private static final int WIN_CONDITION = 5;
+    static final int WIN_CONDITION = 5;
+
+    // The four line directions through a stone: vertical, horizontal and both diagonals
+    private static final int[][] DIRECTIONS = {{1, 0}, {0, 1}, {1, 1}, {1, -1}};
 
     public static GameResult isGameOver(Integer[][] chessBoard) {
         if (chessBoard == null) {
             return CONTINUE;
         }
-        boolean isDeadHeat = true;
-
-        for (int x = 0; x < chessBoard.length; x++) {
-            for (int y = 0; y < chessBoard[x].length; y++) {
-                Integer player = chessBoard[x][y];
-                if (player == null || player == 0) {
-                    isDeadHeat = false;
-                    continue;
-                }
+        return isGameOver(BitGameBoard.of(chessBoard));
+    }
+
+    public static GameResult isGameOver(GameBoard chessBoard) {
+        if (chessBoard == null) {
+            return CONTINUE;
+        }
+        for (int x = 0; x < GameBoard.SIZE; x++) {
+            for (int y = 0; y < GameBoard.SIZE; y++) {
+                int player = chessBoard.get(x, y);
                 // Check if the current player has five in a row in any direction.
-                if (player != 0 && (hasFiveInARow(chessBoard, x, y, 1, 0, player) ||
-                        hasFiveInARow(chessBoard, x, y, 0, 1, player) ||
-                        hasFiveInARow(chessBoard, x, y, 1, 1, player) ||
-                        hasFiveInARow(chessBoard, x, y, 1, -1, player))) {
+                if (player != GameBoard.EMPTY && hasFiveThrough(chessBoard, x, y, player)) {
                     return getGameResultFromPlayer(player);
                 }
             }
         }
-        return isDeadHeat ? DRAW : CONTINUE;
+        return chessBoard.isFull() ? DRAW : CONTINUE;
     }
 
-    private static boolean hasFiveInARow(Integer[][] chessBoard, int x, int y, int deltaX, int deltaY, Integer player) {
+    // Only a line through the stone just placed can have become a five, so the four
+    // lines through (lastX, lastY) are all that needs checking after a move. The board
+    // keeps its own stone count, which makes the draw check O(1).
+    public static GameResult isGameOver(GameBoard chessBoard, int lastX, int lastY, int color) {
+        if (chessBoard == null || !GameBoard.isValidPoint(lastX, lastY) || color == GameBoard.EMPTY) {
+            return CONTINUE;
+        }
+        if (hasFiveThrough(chessBoard, lastX, lastY, color)) {
+            return getGameResultFromPlayer(color);
+        }
+        return chessBoard.isFull() ? DRAW : CONTINUE;
+    }
+
+    private static boolean hasFiveThrough(GameBoard chessBoard, int x, int y, int player) {
+        for (int[] direction : DIRECTIONS) {
+            if (hasFiveInARow(chessBoard, x, y, direction[0], direction[1], player)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasFiveInARow(GameBoard chessBoard, int x, int y, int deltaX, int deltaY, int player) {
         int count = 1;
 
         count += countConsecutivePieces(chessBoard, x, y, deltaX, deltaY, player);
@@ -39,12 +62,12 @@ public class FiveGameUtil {
         return count >= WIN_CONDITION;
     }
 
-    private static int countConsecutivePieces(Integer[][] chessBoard, int x, int y, int deltaX, int deltaY, Integer player) {
+    private static int countConsecutivePieces(GameBoard chessBoard, int x, int y, int deltaX, int deltaY, int player) {
         int count = 0;
         for (int i = 1; i < WIN_CONDITION; i++) {
             int newX = x + i * deltaX;
             int newY = y + i * deltaY;
-            if (!isValidPoint(chessBoard, newX, newY) || !player.equals(chessBoard[newX][newY])) {
+            if (!GameBoard.isValidPoint(newX, newY) || chessBoard.get(newX, newY) != player) {
                 break;
             }
             count++;
@@ -52,11 +75,6 @@ public class FiveGameUtil {
         return count;
     }
 
-    private static boolean isValidPoint(Integer[][] chessBoard, int x, int y) {
-        return x >= 0 && x < chessBoard.length && y >= 0 && y < chessBoard[0].length;
-    }
-
 
 }
 
-
@@ -0,0 +1,34 @@
+package com.five.utils;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+// A 15x15 gomoku board. Cells hold EMPTY, BLACK or WHITE; x is the row and y the column,
+// matching the "(x,y)" coordinates sent by the clients.
+@JsonSerialize(using = GameBoardSerializer.class)
+public interface GameBoard {
+
+    int SIZE = 15;
+    int CELLS = SIZE * SIZE;
+
+    int EMPTY = 0;
+    int BLACK = 1;
+    int WHITE = 2;
+
+    int get(int x, int y);
+
+    // Places a stone, returns false if the point is off the board or already occupied
+    boolean place(int x, int y, int color);
+
+    int stoneCount();
+
+    // A copy of the board, for reading it off the thread that plays on it
+    GameBoard copy();
+
+    default boolean isFull() {
+        return stoneCount() >= CELLS;
+    }
+
+    static boolean isValidPoint(int x, int y) {
+        return x >= 0 && x < SIZE && y >= 0 && y < SIZE;
+    }
+}
@@ -0,0 +1,28 @@
+package com.five.utils;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+// Writes a board as the nested 15x15 number array the clients have always received
+public class GameBoardSerializer extends StdSerializer<GameBoard> {
+
+    public GameBoardSerializer() {
+        super(GameBoard.class);
+    }
+
+    @Override
+    public void serialize(GameBoard board, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartArray();
+        for (int x = 0; x < GameBoard.SIZE; x++) {
+            gen.writeStartArray();
+            for (int y = 0; y < GameBoard.SIZE; y++) {
+                gen.writeNumber(board.get(x, y));
+            }
+            gen.writeEndArray();
+        }
+        gen.writeEndArray();
+    }
+}
@@ -0,0 +1,96 @@
+package com.five.utils;
+
+// The two clocks of a game under a TimeControl. Only the player to move has a running clock; a move
+// charges it the time since the turn started and hands the turn over. The clock never ticks by
+// itself: the room asks timeLeft() to set one timeout on the room timer for the turn, and checks
+// isFlagged() when it fires. Touched by the room's tasks only.
+public final class GameClock {
+
+    private final TimeControl timeControl;
+    // Indexed by color - 1
+    private final long[] mainLeft = new long[2];
+    private final int[] periodsLeft = new int[2];
+    private int toMove;
+    private long turnStartMillis;
+    // Counts the turns, so a timeout set for an earlier turn is recognized
+    private long turn;
+
+    // Both players get the full time, toMove's clock starts running
+    public GameClock(TimeControl timeControl, int toMove, long nowMillis) {
+        this.timeControl = timeControl;
+        mainLeft[0] = mainLeft[1] = timeControl.mainMillis();
+        periodsLeft[0] = periodsLeft[1] = timeControl.periods();
+        this.toMove = toMove;
+        turnStartMillis = nowMillis;
+    }
+
+    public int toMove() {
+        return toMove;
+    }
+
+    public long turn() {
+        return turn;
+    }
+
+    // Charges the move to the player to move and hands the turn over. False if that player's flag
+    // had already fallen. The room only passes moves made in turn.
+    public boolean moved(int color, long nowMillis) {
+        if (color != toMove) {
+            throw new IllegalArgumentException("Not the turn of color " + color);
+        }
+        long used = Math.max(0, nowMillis - turnStartMillis);
+        if (!charge(color - 1, used)) {
+            return false;
+        }
+        toMove = color == GameBoard.BLACK ? GameBoard.WHITE : GameBoard.BLACK;
+        turnStartMillis = nowMillis;
+        turn++;
+        return true;
+    }
+
+    // Time the player to move has left in this turn
+    public long timeLeft(long nowMillis) {
+        int side = toMove - 1;
+        long left = mainLeft[side] - Math.max(0, nowMillis - turnStartMillis);
+        if (timeControl.kind() == TimeControl.Kind.BYO_YOMI) {
+            left += periodsLeft[side] * timeControl.periodMillis();
+        }
+        return left;
+    }
+
+    public boolean isFlagged(long nowMillis) {
+        return timeLeft(nowMillis) < 0;
+    }
+
+    // Main time of the color, then its periods, as the clients show them
+    public long mainLeft(int color) {
+        return mainLeft[color - 1];
+    }
+
+    public int periodsLeft(int color) {
+        return periodsLeft[color - 1];
+    }
+
+    private boolean charge(int side, long used) {
+        if (timeControl.kind() == TimeControl.Kind.FISCHER) {
+            if (used > mainLeft[side]) {
+                return false;
+            }
+            mainLeft[side] += timeControl.incrementMillis() - used;
+            return true;
+        }
+        if (used <= mainLeft[side]) {
+            mainLeft[side] -= used;
+            return true;
+        }
+        used -= mainLeft[side];
+        mainLeft[side] = 0;
+        // Each period used up is lost, the one the move was made in is kept
+        long periodsUsed = used / timeControl.periodMillis() - (used % timeControl.periodMillis() == 0 ? 1 : 0);
+        if (periodsUsed >= periodsLeft[side]) {
+            return false;
+        }
+        periodsLeft[side] -= (int) periodsUsed;
+        return true;
+    }
+}
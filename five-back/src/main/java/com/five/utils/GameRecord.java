@@ -0,0 +1,103 @@
+package com.five.utils;
+
+import java.util.Arrays;
+
+// The moves of a game in the compact form stored with its history and sent to replays. The record
+// starts with its format version, then each move is one byte, its point x * 15 + y, followed by the
+// milliseconds since the move before (since the start for the first) as a varint: seven bits a byte,
+// low bits first, the high bit set on every byte but the last. Black moves first and the colors
+// alternate; a move that breaks the alternation is preceded by the byte TURN_KEPT. A typical move
+// takes three bytes, a whole game well under a kilobyte.
+public final class GameRecord {
+
+    public static final int VERSION = 1;
+
+    // Before a move played by the same color as the move before it
+    static final int TURN_KEPT = 0xff;
+
+    @FunctionalInterface
+    public interface MoveVisitor {
+        void visit(int x, int y, int color, long elapsedMillis);
+    }
+
+    private byte[] bytes = new byte[64];
+    private int size;
+    private int moves;
+    private int nextColor = GameBoard.BLACK;
+    private long lastMillis;
+
+    public GameRecord(long startMillis) {
+        lastMillis = startMillis;
+        bytes[size++] = VERSION;
+    }
+
+    public void add(int x, int y, int color, long timeMillis) {
+        ensure(12);
+        if (color != nextColor) {
+            bytes[size++] = (byte) TURN_KEPT;
+        }
+        bytes[size++] = (byte) (x * GameBoard.SIZE + y);
+        long elapsed = Math.max(0, timeMillis - lastMillis);
+        while (elapsed >= 0x80) {
+            bytes[size++] = (byte) (elapsed | 0x80);
+            elapsed >>>= 7;
+        }
+        bytes[size++] = (byte) elapsed;
+        lastMillis = timeMillis;
+        nextColor = opponent(color);
+        moves++;
+    }
+
+    public int moveCount() {
+        return moves;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(bytes, size);
+    }
+
+    private void ensure(int more) {
+        if (size + more > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + more));
+        }
+    }
+
+    private static int opponent(int color) {
+        return color == GameBoard.BLACK ? GameBoard.WHITE : GameBoard.BLACK;
+    }
+
+    // Visits the moves of the record in order and returns how many there are
+    public static int decode(byte[] record, MoveVisitor visitor) {
+        if (record.length == 0 || record[0] != VERSION) {
+            throw new IllegalArgumentException("Not a game record of version " + VERSION);
+        }
+        int color = GameBoard.BLACK;
+        int moves = 0;
+        int pos = 1;
+        while (pos < record.length) {
+            int point = record[pos++] & 0xff;
+            if (point == TURN_KEPT) {
+                color = opponent(color);
+                point = pos < record.length ? record[pos++] & 0xff : TURN_KEPT;
+            }
+            if (point >= GameBoard.CELLS) {
+                throw new IllegalArgumentException("Bad point " + point + " in move " + moves);
+            }
+            long elapsed = 0;
+            for (int shift = 0; ; shift += 7) {
+                if (pos == record.length || shift > 56) {
+                    throw new IllegalArgumentException("Truncated time in move " + moves);
+                }
+                int b = record[pos++];
+                elapsed |= (long) (b & 0x7f) << shift;
+                if (b >= 0) {
+                    break;
+                }
+            }
+            visitor.visit(point / GameBoard.SIZE, point % GameBoard.SIZE, color, elapsed);
+            color = opponent(color);
+            moves++;
+        }
+        return moves;
+    }
+}
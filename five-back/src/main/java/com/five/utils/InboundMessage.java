@@ -0,0 +1,69 @@
+package com.five.utils;
+
+// One decoded inbound frame. MessageDecoder fills the same instance for every frame of a session,
+// so the fields are primitives. The role a client claims is checked but not kept, the room knows
+// each user's role. The text of a chat message stays a range of the frame until getMessage asks
+// for it.
+public final class InboundMessage {
+
+    MessageType type;
+    int stepOrder;
+    long gameId;
+    long seq = -1;
+    int x = -1;
+    int y = -1;
+
+    String frame;
+    int messageStart = -1;
+    int messageEnd = -1;
+    boolean messageEscaped;
+
+    void reset(String frame) {
+        this.frame = frame;
+        type = null;
+        stepOrder = 0;
+        gameId = 0;
+        seq = -1;
+        x = -1;
+        y = -1;
+        messageStart = -1;
+        messageEnd = -1;
+        messageEscaped = false;
+    }
+
+    public MessageType getType() {
+        return type;
+    }
+
+    public int getStepOrder() {
+        return stepOrder;
+    }
+
+    public long getGameId() {
+        return gameId;
+    }
+
+    // Sequence number of the last room event the client saw, sent with JOIN_ROOM when it
+    // reconnects along with the game it saw it in, getGameId; -1 when the frame has none
+    public long getSeq() {
+        return seq;
+    }
+
+    // Coordinates of a MOVE, -1 for other types
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    // The message field as a String, built on each call; null when the frame has none
+    public String getMessage() {
+        if (messageStart < 0) {
+            return null;
+        }
+        return messageEscaped ? MessageDecoder.unescape(frame, messageStart, messageEnd)
+                : frame.substring(messageStart, messageEnd);
+    }
+}
@@ -0,0 +1,391 @@
+package com.five.utils;
+
+import com.five.exception.MessageFormatException;
+
+import java.nio.ByteBuffer;
+
+// Streaming decoder for the inbound JSON frames
+// {"type":4,"role":"Joueur Noir","stepOrder":3,"gameId":12,"message":"(7,8)"}.
+// One pass over the frame reads the fields straight into a reused InboundMessage: numbers as
+// primitives, the role checked in place against the Role names and a move's "(x,y)" parsed
+// without regex or substrings. Unknown fields are skipped; anything that is not valid JSON, or a
+// move that is not two coordinates on the board, is rejected with MessageFormatException.
+// Binary frames of the five.bin.v1 subprotocol are read into the same message.
+// A decoder is not thread-safe, keep one per session.
+public final class MessageDecoder {
+
+    private static final MessageType[] TYPES = MessageType.values();
+    // Nesting allowed inside skipped fields
+    private static final int MAX_DEPTH = 16;
+
+    private final InboundMessage message = new InboundMessage();
+    private String frame;
+    private int pos;
+
+    // Decodes frame into this decoder's message, which is overwritten by the next call
+    public InboundMessage decode(String frame) {
+        this.frame = frame;
+        this.pos = 0;
+        message.reset(frame);
+        try {
+            readObject();
+            skipWhitespace();
+            if (pos != frame.length()) {
+                throw error("Trailing characters");
+            }
+            if (message.type == null) {
+                throw error("Missing type");
+            }
+            if (message.type == MessageType.MOVE) {
+                readMove();
+            }
+            return message;
+        } finally {
+            this.frame = null;
+        }
+    }
+
+    // Decodes a frame of the binary subprotocol, see BinaryFrames, into this decoder's message
+    public InboundMessage decode(ByteBuffer frame) {
+        message.reset(null);
+        int start = frame.position();
+        int length = frame.remaining();
+        int type = length > 0 ? frame.get(start) & 0xFF : -1;
+        if (type == MessageType.JOIN_ROOM.getValue() && (length == 1 || length == 13)) {
+            message.type = MessageType.JOIN_ROOM;
+            if (length == 13) {
+                message.seq = frame.getInt(start + 1) & 0xFFFFFFFFL;
+                message.gameId = frame.getLong(start + 5);
+            }
+        } else if (type == MessageType.MOVE.getValue() && length == 3) {
+            int point = frame.get(start + 1) & 0xFF;
+            if (point >= GameBoard.CELLS) {
+                throw new MessageFormatException("Move off the board");
+            }
+            message.type = MessageType.MOVE;
+            message.x = point / GameBoard.SIZE;
+            message.y = point % GameBoard.SIZE;
+            checkRole(frame.get(start + 2));
+        } else if (type == MessageType.RESIGN.getValue() && length == 2) {
+            message.type = MessageType.RESIGN;
+            checkRole(frame.get(start + 1));
+        } else {
+            throw new MessageFormatException("Unsupported binary frame of type " + type + " and length " + length);
+        }
+        return message;
+    }
+
+    private static void checkRole(byte code) {
+        if (Role.ofCode(code) == null) {
+            throw new MessageFormatException("Unknown role " + code);
+        }
+    }
+
+    private void readObject() {
+        skipWhitespace();
+        expect('{');
+        skipWhitespace();
+        if (peek() == '}') {
+            pos++;
+            return;
+        }
+        while (true) {
+            skipWhitespace();
+            expect('"');
+            int keyStart = pos;
+            int keyEnd = skipStringBody();
+            skipWhitespace();
+            expect(':');
+            skipWhitespace();
+            readField(keyStart, keyEnd);
+            skipWhitespace();
+            char c = next();
+            if (c == '}') {
+                return;
+            }
+            if (c != ',') {
+                throw error("Expected , or }");
+            }
+        }
+    }
+
+    private void readField(int keyStart, int keyEnd) {
+        if (keyIs("type", keyStart, keyEnd)) {
+            // The board page sends the type as a number, and as a quoted number for JOIN_ROOM
+            boolean quoted = peek() == '"';
+            if (quoted) {
+                pos++;
+            }
+            long type = readLong();
+            if (quoted) {
+                expect('"');
+            }
+            if (type < 0 || type >= TYPES.length) {
+                throw error("Unknown type " + type);
+            }
+            message.type = TYPES[(int) type];
+        } else if (keyIs("role", keyStart, keyEnd)) {
+            if (!readNull()) {
+                expect('"');
+                int start = pos;
+                int end = skipStringBody();
+                checkRole(start, end);
+            }
+        } else if (keyIs("stepOrder", keyStart, keyEnd)) {
+            if (!readNull()) {
+                long stepOrder = readLong();
+                if (stepOrder < Integer.MIN_VALUE || stepOrder > Integer.MAX_VALUE) {
+                    throw error("stepOrder out of range");
+                }
+                message.stepOrder = (int) stepOrder;
+            }
+        } else if (keyIs("seq", keyStart, keyEnd)) {
+            if (!readNull()) {
+                long seq = readLong();
+                if (seq < 0) {
+                    throw error("Negative seq");
+                }
+                message.seq = seq;
+            }
+        } else if (keyIs("gameId", keyStart, keyEnd)) {
+            if (!readNull()) {
+                message.gameId = readLong();
+            }
+        } else if (keyIs("message", keyStart, keyEnd)) {
+            if (!readNull()) {
+                expect('"');
+                message.messageStart = pos;
+                message.messageEscaped = false;
+                message.messageEnd = skipStringBody();
+            }
+        } else {
+            skipValue(0);
+        }
+    }
+
+    // "(x,y)" with both coordinates on the board
+    private void readMove() {
+        int start = message.messageStart;
+        int end = message.messageEnd;
+        if (start < 0 || message.messageEscaped) {
+            throw error("A move needs a plain \"(x,y)\" message");
+        }
+        int i = start;
+        if (i >= end || frame.charAt(i++) != '(') {
+            throw error("Move must start with (");
+        }
+        int x = 0;
+        int digits = 0;
+        while (i < end && isDigit(frame.charAt(i)) && digits < 3) {
+            x = x * 10 + frame.charAt(i++) - '0';
+            digits++;
+        }
+        if (digits == 0 || i >= end || frame.charAt(i++) != ',') {
+            throw error("Bad move x");
+        }
+        int y = 0;
+        digits = 0;
+        while (i < end && isDigit(frame.charAt(i)) && digits < 3) {
+            y = y * 10 + frame.charAt(i++) - '0';
+            digits++;
+        }
+        if (digits == 0 || i >= end || frame.charAt(i++) != ')' || i != end) {
+            throw error("Bad move y");
+        }
+        if (!GameBoard.isValidPoint(x, y)) {
+            throw error("Move off the board");
+        }
+        message.x = x;
+        message.y = y;
+    }
+
+    private void checkRole(int start, int end) {
+        for (Role role : Role.values()) {
+            String name = role.getName();
+            if (name.length() == end - start && frame.regionMatches(start, name, 0, name.length())) {
+                return;
+            }
+        }
+        throw error("Unknown role");
+    }
+
+    private boolean keyIs(String key, int start, int end) {
+        return key.length() == end - start && frame.regionMatches(start, key, 0, key.length());
+    }
+
+    private boolean readNull() {
+        if (frame.startsWith("null", pos)) {
+            pos += 4;
+            return true;
+        }
+        return false;
+    }
+
+    private long readLong() {
+        boolean negative = peek() == '-';
+        if (negative) {
+            pos++;
+        }
+        long value = 0;
+        int digits = 0;
+        while (pos < frame.length() && isDigit(frame.charAt(pos))) {
+            if (++digits > 18) {
+                throw error("Number too long");
+            }
+            value = value * 10 + frame.charAt(pos++) - '0';
+        }
+        if (digits == 0) {
+            throw error("Expected a number");
+        }
+        return negative ? -value : value;
+    }
+
+    // Skips to the closing quote of a string whose opening quote was just read and returns the
+    // index of that quote. Escapes are checked, and flagged on the message field.
+    private int skipStringBody() {
+        int start = pos;
+        while (pos < frame.length()) {
+            char c = frame.charAt(pos++);
+            if (c == '"') {
+                return pos - 1;
+            }
+            if (c == '\\') {
+                if (pos >= frame.length()) {
+                    break;
+                }
+                char escaped = frame.charAt(pos++);
+                if (escaped == 'u') {
+                    if (pos + 4 > frame.length()) {
+                        break;
+                    }
+                    for (int i = 0; i < 4; i++) {
+                        if (Character.digit(frame.charAt(pos++), 16) < 0) {
+                            throw error("Bad unicode escape");
+                        }
+                    }
+                } else if ("\"\\/bfnrt".indexOf(escaped) < 0) {
+                    throw error("Bad escape");
+                }
+                if (start == message.messageStart) {
+                    message.messageEscaped = true;
+                }
+            } else if (c < 0x20) {
+                throw error("Control character in string");
+            }
+        }
+        throw error("Unterminated string");
+    }
+
+    private void skipValue(int depth) {
+        if (depth > MAX_DEPTH) {
+            throw error("Nested too deep");
+        }
+        char c = peek();
+        if (c == '"') {
+            pos++;
+            skipStringBody();
+        } else if (c == '{' || c == '[') {
+            char close = c == '{' ? '}' : ']';
+            pos++;
+            skipWhitespace();
+            if (peek() == close) {
+                pos++;
+                return;
+            }
+            while (true) {
+                skipWhitespace();
+                if (c == '{') {
+                    expect('"');
+                    skipStringBody();
+                    skipWhitespace();
+                    expect(':');
+                    skipWhitespace();
+                }
+                skipValue(depth + 1);
+                skipWhitespace();
+                char separator = next();
+                if (separator == close) {
+                    return;
+                }
+                if (separator != ',') {
+                    throw error("Expected , or " + close);
+                }
+            }
+        } else if (frame.startsWith("true", pos)) {
+            pos += 4;
+        } else if (frame.startsWith("false", pos)) {
+            pos += 5;
+        } else if (!readNull()) {
+            int start = pos;
+            while (pos < frame.length() && "+-.eE0123456789".indexOf(frame.charAt(pos)) >= 0) {
+                pos++;
+            }
+            if (pos == start) {
+                throw error("Unexpected value");
+            }
+        }
+    }
+
+    // Decodes the JSON escapes of frame[start, end)
+    static String unescape(String frame, int start, int end) {
+        StringBuilder sb = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) {
+            char c = frame.charAt(i);
+            if (c != '\\') {
+                sb.append(c);
+                continue;
+            }
+            char escaped = frame.charAt(++i);
+            switch (escaped) {
+                case 'b' -> sb.append('\b');
+                case 'f' -> sb.append('\f');
+                case 'n' -> sb.append('\n');
+                case 'r' -> sb.append('\r');
+                case 't' -> sb.append('\t');
+                case 'u' -> {
+                    sb.append((char) Integer.parseInt(frame, i + 1, i + 5, 16));
+                    i += 4;
+                }
+                default -> sb.append(escaped);
+            }
+        }
+        return sb.toString();
+    }
+
+    private void skipWhitespace() {
+        while (pos < frame.length()) {
+            char c = frame.charAt(pos);
+            if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+                return;
+            }
+            pos++;
+        }
+    }
+
+    private char peek() {
+        if (pos >= frame.length()) {
+            throw error("Unexpected end of frame");
+        }
+        return frame.charAt(pos);
+    }
+
+    private char next() {
+        char c = peek();
+        pos++;
+        return c;
+    }
+
+    private void expect(char expected) {
+        if (next() != expected) {
+            throw error("Expected " + expected);
+        }
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private MessageFormatException error(String reason) {
+        return new MessageFormatException(reason + " at " + pos);
+    }
+}
@@ -7,7 +7,9 @@ public enum MessageType {
     CHAT_MESSAGE(3),
     MOVE(4) ,
     ROOM_COUNT_UPDATE(5),
-    OBSERVER_UPDATE(6);
+    OBSERVER_UPDATE(6),
+    RESIGN(7),
+    BATCH(8);
 
     private final int value;
 
@@ -0,0 +1,491 @@
+package com.five.utils;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+// Write-ahead log of the games in progress, so a restart or a crash does not lose them. Every game
+// start, move and end is a fixed-size record appended to a memory-mapped segment file: an append is
+// a few puts into the page cache under a short lock, with no system call, and survives the process
+// dying. A background thread forces the segment to the disk every fsyncIntervalMillis if it has new
+// records, one fsync for all the moves since the last; with 0 the writes reach the disk when the
+// operating system writes the pages back, which survives a crash of the process but not of the
+// machine.
+//
+// A full segment is followed by the next one, mapped ahead of time by the background thread, so
+// the append that fills a segment only switches to the spare and notes the live games: their
+// records and move counts, not their moves. The background thread then forces the full segment,
+// writes the checkpoint of the games in progress at the switch, the starts and moves of every game
+// still in progress, as a file of its own, deletes the segments and checkpoints before it, and maps
+// the next spare. The log never holds more than the live games and what happened since the last
+// rotation. Opening the journal replays the newest checkpoint and the segments from it on, in
+// order, and keeps the games that started and did not end, see recovered().
+//
+// A record is 40 bytes: the CRC32 of the other 36, the type, the stone color of a move, its ply,
+// the room id, the game id, then the black and white player ids of a start or the point of a move.
+// A record whose CRC does not match, torn by a crash in the middle of its write, ends the replay of
+// its segment. A checkpoint is written under a temporary name and renamed once it is on the disk,
+// so it is whole or absent. A journal that fails to write logs it once and stops, the games go on
+// without it.
+@Slf4j
+public class MoveJournal {
+
+    // A game in progress: its players and its moves so far, each color << 8 | x * 15 + y
+    public record Game(long roomId, long gameId, long blackId, long whiteId, boolean ai, int[] moves) {
+    }
+
+    static final int RECORD_BYTES = 40;
+
+    private static final byte START = 1;
+    private static final byte MOVE = 2;
+    private static final byte END = 3;
+
+    private static final String SUFFIX = ".journal";
+    private static final String CHECKPOINT_SUFFIX = ".checkpoint";
+
+    private final Path directory;
+    private final int segmentBytes;
+    // The games in progress by room, for the checkpoints. Guarded by this.
+    private final Map<Long, LiveGame> live = new LinkedHashMap<>();
+    private final List<Game> recovered;
+    private final byte[] record = new byte[RECORD_BYTES];
+    private final CRC32 crc = new CRC32();
+    // Forces the segment, finishes the rotations and maps the spare segments, one task at a time
+    private final ScheduledExecutorService background;
+    private MappedByteBuffer segment;
+    private long segmentIndex;
+    // The next segment, mapped ahead of time, and the last index given to a segment file
+    private MappedByteBuffer spare;
+    private long spareIndex;
+    private long lastIndex;
+    private boolean dirty;
+    private boolean closed;
+
+    // Opens the journal in the directory, replaying what it holds
+    public MoveJournal(Path directory, int segmentBytes, long fsyncIntervalMillis) throws IOException {
+        this.directory = directory;
+        this.segmentBytes = Math.max(segmentBytes, RECORD_BYTES * 1024);
+        Files.createDirectories(directory);
+        List<Path> checkpoints = files(CHECKPOINT_SUFFIX);
+        long checkpointIndex = checkpoints.isEmpty() ? 0 : indexOf(checkpoints.get(checkpoints.size() - 1));
+        if (checkpointIndex > 0) {
+            replay(checkpoints.get(checkpoints.size() - 1));
+        }
+        List<Path> segments = files(SUFFIX);
+        int replayed = 0;
+        for (Path path : segments) {
+            // Segments older than the checkpoint are in it, a rotation left them behind
+            if (indexOf(path) >= checkpointIndex) {
+                replay(path);
+                replayed++;
+            }
+        }
+        recovered = live.values().stream().map(LiveGame::toGame).toList();
+        lastIndex = Math.max(checkpointIndex, segments.isEmpty() ? 0 : indexOf(segments.get(segments.size() - 1)));
+        segmentIndex = ++lastIndex;
+        segment = map(segmentIndex);
+        background = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // The games recovered are the checkpoint of the new segment
+        finishRotation(null, segmentIndex, snapshot());
+        log.info("Move journal in {}: {} games in progress recovered from {} segments", directory, recovered.size(), replayed);
+        if (fsyncIntervalMillis > 0) {
+            background.scheduleWithFixedDelay(this::force, fsyncIntervalMillis, fsyncIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // A journal that records nothing
+    private MoveJournal() {
+        directory = null;
+        segmentBytes = 0;
+        recovered = List.of();
+        background = null;
+        closed = true;
+    }
+
+    public static MoveJournal disabled() {
+        return new MoveJournal();
+    }
+
+    // The games the journal held when it was opened, oldest start first
+    public List<Game> recovered() {
+        return recovered;
+    }
+
+    public synchronized void gameStarted(long roomId, long gameId, long blackId, long whiteId, boolean ai) {
+        if (closed) {
+            return;
+        }
+        LiveGame game = new LiveGame(roomId, gameId, blackId, whiteId, ai);
+        live.put(roomId, game);
+        append(START, game.ai ? 1 : 0, 0, roomId, gameId, blackId, whiteId);
+    }
+
+    public synchronized void moved(long roomId, long gameId, int x, int y, int color) {
+        LiveGame game = live.get(roomId);
+        if (closed || game == null || game.gameId != gameId) {
+            return;
+        }
+        int ply = game.add(color << 8 | x * GameBoard.SIZE + y);
+        append(MOVE, color, ply, roomId, gameId, x * GameBoard.SIZE + y, 0);
+    }
+
+    public synchronized void gameEnded(long roomId, long gameId) {
+        LiveGame game = live.get(roomId);
+        if (closed || game == null || game.gameId != gameId) {
+            return;
+        }
+        live.remove(roomId);
+        append(END, 0, 0, roomId, gameId, 0, 0);
+    }
+
+    // Games in progress
+    public synchronized int liveGames() {
+        return live.size();
+    }
+
+    // Forces what was appended since the last call to the disk
+    public void force() {
+        MappedByteBuffer toForce;
+        synchronized (this) {
+            if (!dirty || closed) {
+                return;
+            }
+            dirty = false;
+            toForce = segment;
+        }
+        toForce.force();
+    }
+
+    // Stops taking records, finishes the rotation under way, forces the journal to the disk and
+    // stops. The games still in its segments are recovered when it is opened again.
+    public void close() {
+        boolean wasOpen;
+        synchronized (this) {
+            // Closed first, so no append rotates onto the executor once it is shut down
+            wasOpen = !closed;
+            closed = true;
+        }
+        if (background != null) {
+            background.shutdown();
+            try {
+                if (!background.awaitTermination(10, TimeUnit.SECONDS)) {
+                    log.warn("Move journal rotation still running at close");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (wasOpen) {
+            segment.force();
+            log.info("Move journal closed with {} games in progress", liveGames());
+        }
+        // A spare never written to has nothing to replay
+        long unused;
+        synchronized (this) {
+            unused = spare != null ? spareIndex : -1;
+            spare = null;
+        }
+        if (unused >= 0) {
+            try {
+                Files.deleteIfExists(segmentPath(unused));
+            } catch (IOException e) {
+                log.warn("Could not delete the unused journal segment {}", unused, e);
+            }
+        }
+    }
+
+    private void append(byte type, int color, int ply, long roomId, long gameId, long a, long b) {
+        if (segment.remaining() < RECORD_BYTES) {
+            try {
+                rotate();
+            } catch (IOException e) {
+                fail(e);
+                return;
+            }
+        }
+        encode(record, 0, crc, type, color, ply, roomId, gameId, a, b);
+        segment.put(record);
+        dirty = true;
+    }
+
+    // Switches to the spare segment and leaves the rest of the rotation to the background thread
+    private void rotate() throws IOException {
+        MappedByteBuffer full = segment;
+        if (spare != null) {
+            segment = spare;
+            segmentIndex = spareIndex;
+            spare = null;
+        } else {
+            // The spare is not mapped yet, the segments fill faster than they are mapped
+            log.warn("No spare journal segment, mapping one on the room thread");
+            segmentIndex = ++lastIndex;
+            segment = map(segmentIndex);
+        }
+        long index = segmentIndex;
+        List<LiveGame.Snapshot> checkpoint = snapshot();
+        background.execute(() -> finishRotation(full, index, checkpoint));
+    }
+
+    // The live games as they are now. Moves are only ever added past a game's size, so the moves
+    // array seen here keeps the snapshot's moves whatever is played after.
+    private List<LiveGame.Snapshot> snapshot() {
+        List<LiveGame.Snapshot> games = new ArrayList<>(live.size());
+        for (LiveGame game : live.values()) {
+            games.add(new LiveGame.Snapshot(game, game.moves, game.size));
+        }
+        return games;
+    }
+
+    // On the background thread: the full segment is forced and the checkpoint written before the
+    // older files are deleted, so a crash at any point leaves a journal that replays
+    private void finishRotation(MappedByteBuffer full, long index, List<LiveGame.Snapshot> checkpoint) {
+        try {
+            if (full != null) {
+                full.force();
+            }
+            writeCheckpoint(index, checkpoint);
+            for (Path path : files(SUFFIX)) {
+                if (indexOf(path) < index) {
+                    Files.delete(path);
+                }
+            }
+            for (Path path : files(CHECKPOINT_SUFFIX)) {
+                if (indexOf(path) < index) {
+                    Files.delete(path);
+                }
+            }
+        } catch (IOException e) {
+            // The older files stay, the journal still replays from the checkpoint before
+            log.error("Move journal rotation to segment {} failed", index, e);
+        }
+        mapSpare();
+    }
+
+    private void writeCheckpoint(long index, List<LiveGame.Snapshot> checkpoint) throws IOException {
+        int records = 0;
+        for (LiveGame.Snapshot game : checkpoint) {
+            records += 1 + game.size();
+        }
+        ByteBuffer bytes = ByteBuffer.allocate(records * RECORD_BYTES);
+        byte[] buffer = new byte[RECORD_BYTES];
+        CRC32 checksum = new CRC32();
+        for (LiveGame.Snapshot snapshot : checkpoint) {
+            LiveGame game = snapshot.game();
+            encode(buffer, 0, checksum, START, game.ai ? 1 : 0, 0, game.roomId, game.gameId, game.blackId, game.whiteId);
+            bytes.put(buffer);
+            for (int ply = 0; ply < snapshot.size(); ply++) {
+                int move = snapshot.moves()[ply];
+                encode(buffer, 0, checksum, MOVE, move >> 8, ply, game.roomId, game.gameId, move & 0xff, 0);
+                bytes.put(buffer);
+            }
+        }
+        bytes.flip();
+        String name = String.format("%016d", index) + CHECKPOINT_SUFFIX;
+        Path temporary = directory.resolve(name + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, directory.resolve(name), StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // On the background thread: maps the segment the next rotation switches to
+    private void mapSpare() {
+        long index;
+        synchronized (this) {
+            if (closed || spare != null) {
+                return;
+            }
+            index = ++lastIndex;
+        }
+        MappedByteBuffer mapped;
+        try {
+            mapped = map(index);
+        } catch (IOException e) {
+            log.error("Could not map the spare journal segment {}", index, e);
+            return;
+        }
+        synchronized (this) {
+            // A segment mapped on a room thread meanwhile is ahead of this one, which must not follow it
+            if (!closed && spare == null && index > segmentIndex) {
+                spare = mapped;
+                spareIndex = index;
+                return;
+            }
+        }
+        try {
+            Files.deleteIfExists(segmentPath(index));
+        } catch (IOException e) {
+            log.warn("Could not delete the unused journal segment {}", index, e);
+        }
+    }
+
+    private MappedByteBuffer map(long index) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentPath(index),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        }
+    }
+
+    private Path segmentPath(long index) {
+        return directory.resolve(String.format("%016d", index) + SUFFIX);
+    }
+
+    private void fail(IOException e) {
+        log.error("Move journal failed, games are no longer journaled", e);
+        closed = true;
+    }
+
+    private void replay(Path path) throws IOException {
+        byte[] bytes = Files.readAllBytes(path);
+        for (int pos = 0; pos + RECORD_BYTES <= bytes.length; pos += RECORD_BYTES) {
+            crc.reset();
+            crc.update(bytes, pos + 4, RECORD_BYTES - 4);
+            if (bytes[pos + 4] == 0 || (int) crc.getValue() != getInt(bytes, pos)) {
+                return; // The end of what was written, or a record torn by a crash
+            }
+            long roomId = getLong(bytes, pos + 8);
+            long gameId = getLong(bytes, pos + 16);
+            long a = getLong(bytes, pos + 24);
+            switch (bytes[pos + 4]) {
+                case START -> live.put(roomId, new LiveGame(roomId, gameId, a, getLong(bytes, pos + 32), bytes[pos + 5] == 1));
+                case MOVE -> {
+                    LiveGame game = live.get(roomId);
+                    int ply = (bytes[pos + 6] & 0xff) << 8 | bytes[pos + 7] & 0xff;
+                    // A move is only taken in order, after its game's start
+                    if (game != null && game.gameId == gameId && game.size == ply) {
+                        game.add((bytes[pos + 5] & 0xff) << 8 | (int) a);
+                    }
+                }
+                case END -> {
+                    LiveGame game = live.get(roomId);
+                    if (game != null && game.gameId == gameId) {
+                        live.remove(roomId);
+                    }
+                }
+                default -> {
+                    return;
+                }
+            }
+        }
+    }
+
+    // The segments or the checkpoints, oldest first
+    private List<Path> files(String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> isJournalFile(path, suffix))
+                    .sorted((first, second) -> Long.compare(indexOf(first), indexOf(second)))
+                    .toList();
+        }
+    }
+
+    private static boolean isJournalFile(Path path, String suffix) {
+        String name = path.getFileName().toString();
+        return name.endsWith(suffix) && name.length() == 16 + suffix.length();
+    }
+
+    private static long indexOf(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(0, 16));
+    }
+
+    private static void encode(byte[] bytes, int pos, CRC32 crc, byte type, int color, int ply, long roomId, long gameId,
+                               long a, long b) {
+        bytes[pos + 4] = type;
+        bytes[pos + 5] = (byte) color;
+        putShort(bytes, pos + 6, ply);
+        putLong(bytes, pos + 8, roomId);
+        putLong(bytes, pos + 16, gameId);
+        putLong(bytes, pos + 24, a);
+        putLong(bytes, pos + 32, b);
+        crc.reset();
+        crc.update(bytes, pos + 4, RECORD_BYTES - 4);
+        putInt(bytes, pos, (int) crc.getValue());
+    }
+
+    private static void putShort(byte[] bytes, int pos, int value) {
+        bytes[pos] = (byte) (value >> 8);
+        bytes[pos + 1] = (byte) value;
+    }
+
+    private static void putInt(byte[] bytes, int pos, int value) {
+        for (int i = 3; i >= 0; i--) {
+            bytes[pos + i] = (byte) value;
+            value >>= 8;
+        }
+    }
+
+    private static void putLong(byte[] bytes, int pos, long value) {
+        for (int i = 7; i >= 0; i--) {
+            bytes[pos + i] = (byte) value;
+            value >>= 8;
+        }
+    }
+
+    private static int getInt(byte[] bytes, int pos) {
+        return (bytes[pos] & 0xff) << 24 | (bytes[pos + 1] & 0xff) << 16 | (bytes[pos + 2] & 0xff) << 8 | bytes[pos + 3] & 0xff;
+    }
+
+    private static long getLong(byte[] bytes, int pos) {
+        return (long) getInt(bytes, pos) << 32 | getInt(bytes, pos + 4) & 0xffffffffL;
+    }
+
+    private static final class LiveGame {
+        final long roomId;
+        final long gameId;
+        final long blackId;
+        final long whiteId;
+        final boolean ai;
+        int[] moves = new int[16];
+        int size;
+
+        LiveGame(long roomId, long gameId, long blackId, long whiteId, boolean ai) {
+            this.roomId = roomId;
+            this.gameId = gameId;
+            this.blackId = blackId;
+            this.whiteId = whiteId;
+            this.ai = ai;
+        }
+
+        // Adds the move and returns its ply
+        int add(int move) {
+            if (size == moves.length) {
+                moves = Arrays.copyOf(moves, size * 2);
+            }
+            moves[size] = move;
+            return size++;
+        }
+
+        Game toGame() {
+            return new Game(roomId, gameId, blackId, whiteId, ai, Arrays.copyOf(moves, size));
+        }
+
+        // A game's moves at a rotation, the first size of the array
+        record Snapshot(LiveGame game, int[] moves, int size) {
+        }
+    }
+}
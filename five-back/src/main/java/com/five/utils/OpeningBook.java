@@ -0,0 +1,81 @@
+package com.five.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Read-only opening book: Zobrist hash of a position -> the move to play in it. The file is
+// memory mapped, so the entries stay off the heap and every server process on a host shares one
+// copy through the page cache. Lookups are a binary search with absolute reads on the mapping,
+// which is safe from any number of threads.
+//
+// File layout, big-endian: int MAGIC, long key fingerprint, int entry count, then the entries
+// sorted by hash, each a long hash followed by a short move index.
+public final class OpeningBook {
+
+    static final int MAGIC = 0x46424B31; // "FBK1"
+    static final int HEADER_BYTES = 16;
+    static final int ENTRY_BYTES = 10;
+
+    private static final OpeningBook EMPTY = new OpeningBook(ByteBuffer.allocate(0), 0);
+
+    private final ByteBuffer entries;
+    private final int count;
+
+    private OpeningBook(ByteBuffer entries, int count) {
+        this.entries = entries;
+        this.count = count;
+    }
+
+    public static OpeningBook empty() {
+        return EMPTY;
+    }
+
+    public static OpeningBook open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+                throw new IOException("Not an opening book: " + path);
+            }
+            if (buffer.getLong(4) != keyFingerprint()) {
+                throw new IOException("Opening book was built with other Zobrist keys: " + path);
+            }
+            int count = buffer.getInt(12);
+            if ((long) count * ENTRY_BYTES != buffer.capacity() - HEADER_BYTES) {
+                throw new IOException("Opening book is truncated: " + path);
+            }
+            return new OpeningBook(buffer.slice(HEADER_BYTES, count * ENTRY_BYTES), count);
+        }
+    }
+
+    // A book only matches positions hashed with the same key table
+    static long keyFingerprint() {
+        return Zobrist.key(GameBoard.BLACK, 0) ^ Zobrist.key(GameBoard.WHITE, GameBoard.CELLS - 1);
+    }
+
+    public int size() {
+        return count;
+    }
+
+    // The book move for the position, or -1 if it is not in the book
+    int probe(long hash) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long key = entries.getLong(mid * ENTRY_BYTES);
+            if (key < hash) {
+                low = mid + 1;
+            } else if (key > hash) {
+                high = mid - 1;
+            } else {
+                return entries.getShort(mid * ENTRY_BYTES + 8);
+            }
+        }
+        return -1;
+    }
+}
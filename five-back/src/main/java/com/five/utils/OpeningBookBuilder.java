@@ -0,0 +1,132 @@
+package com.five.utils;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+
+// Offline tool that writes an opening book from self-play. Every game opens in the centre and
+// plays the first plies with the search given far more time than a live game allows; now and then
+// a runner-up move is played instead so the games cover more openings. Each searched position is
+// stored under all eight symmetries of the board, so a mirrored or rotated opening hits too.
+//
+// Usage, from five-back after a build:
+//   java -cp target/classes com.five.utils.OpeningBookBuilder <book file> [games] [plies] [millis per move]
+public final class OpeningBookBuilder {
+
+    private static final int DEFAULT_GAMES = 200;
+    private static final int DEFAULT_PLIES = 8;
+    private static final long DEFAULT_MILLIS_PER_MOVE = 1000;
+    private static final int SEARCH_DEPTH = 10;
+    // Chance of playing a runner-up instead of the book move, and how far down the list it may be
+    private static final double VARIATION = 0.3;
+    private static final int VARIATION_WIDTH = 4;
+
+    private final Map<Long, Integer> moves = new TreeMap<>();
+    private final int plies;
+    private final long millisPerMove;
+    private final SplittableRandom random;
+
+    OpeningBookBuilder(int plies, long millisPerMove, long seed) {
+        this.plies = plies;
+        this.millisPerMove = millisPerMove;
+        this.random = new SplittableRandom(seed);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: OpeningBookBuilder <book file> [games] [plies] [millis per move]");
+            System.exit(1);
+        }
+        int games = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_GAMES;
+        int plies = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_PLIES;
+        long millis = args.length > 3 ? Long.parseLong(args[3]) : DEFAULT_MILLIS_PER_MOVE;
+        OpeningBookBuilder builder = new OpeningBookBuilder(plies, millis, System.nanoTime());
+        for (int game = 1; game <= games; game++) {
+            builder.playGame();
+            System.out.printf("game %d/%d, %d positions%n", game, games, builder.size());
+        }
+        builder.write(Paths.get(args[0]));
+    }
+
+    int size() {
+        return moves.size();
+    }
+
+    void playGame() {
+        SearchWorker worker = new SearchWorker();
+        worker.place((GameBoard.SIZE / 2) * GameBoard.SIZE + GameBoard.SIZE / 2, GameBoard.BLACK);
+        for (int ply = 1; ply < plies; ply++) {
+            int side = ply % 2 == 0 ? GameBoard.BLACK : GameBoard.WHITE;
+            int[] rootMoves = worker.rootMoves(side);
+            Integer bookMove = moves.get(worker.hash());
+            int best;
+            if (bookMove != null) {
+                best = bookMove;
+            } else {
+                SearchWorker.SearchControl control = new SearchWorker.SearchControl(System.currentTimeMillis() + millisPerMove);
+                best = worker.copy().search(rootMoves, side, SEARCH_DEPTH,
+                        new TranspositionTable(ChessBoardEvaluator.DEFAULT_TABLE_SIZE_BITS + 4), control, 0)[0];
+                addAllSymmetries(worker, best);
+            }
+            if (worker.makesFive(best, side)) {
+                return;
+            }
+            int played = best;
+            if (rootMoves.length > 1 && random.nextDouble() < VARIATION) {
+                played = rootMoves[random.nextInt(Math.min(rootMoves.length, VARIATION_WIDTH))];
+            }
+            worker.place(played, side);
+        }
+    }
+
+    // Stores the move under each rotation and reflection of the position
+    private void addAllSymmetries(SearchWorker worker, int move) {
+        for (int symmetry = 0; symmetry < 8; symmetry++) {
+            long hash = 0;
+            for (int i = 0; i < GameBoard.CELLS; i++) {
+                byte color = worker.get(i);
+                if (color != GameBoard.EMPTY) {
+                    hash ^= Zobrist.key(color, transform(i, symmetry));
+                }
+            }
+            moves.putIfAbsent(hash, transform(move, symmetry));
+        }
+    }
+
+    private static int transform(int index, int symmetry) {
+        int last = GameBoard.SIZE - 1;
+        int x = index / GameBoard.SIZE;
+        int y = index % GameBoard.SIZE;
+        if ((symmetry & 1) != 0) {
+            x = last - x;
+        }
+        if ((symmetry & 2) != 0) {
+            y = last - y;
+        }
+        if ((symmetry & 4) != 0) {
+            int swap = x;
+            x = y;
+            y = swap;
+        }
+        return x * GameBoard.SIZE + y;
+    }
+
+    // Writes the entries in the order OpeningBook searches them: signed hash order, as the map keeps them
+    void write(Path path) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(OpeningBook.MAGIC);
+            out.writeLong(OpeningBook.keyFingerprint());
+            out.writeInt(moves.size());
+            for (Map.Entry<Long, Integer> entry : moves.entrySet()) {
+                out.writeLong(entry.getKey());
+                out.writeShort(entry.getValue());
+            }
+        }
+    }
+}
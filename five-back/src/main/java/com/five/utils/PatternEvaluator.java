@@ -0,0 +1,300 @@
+package com.five.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Incremental position score from precomputed line patterns. Each of the 72 lines of length 5+
+// on the board is kept as one bitmask per color. A run of points free of opposing stones is
+// looked up in SHAPES by (run length, own stones in the run) and classified in one step as five,
+// open four, four, open three and so on. Placing or removing a stone re-scores only the four
+// lines through that point.
+public final class PatternEvaluator {
+
+    static final int NONE = 0;
+    static final int ONE = 1;
+    static final int TWO = 2;
+    static final int OPEN_TWO = 3;
+    static final int THREE = 4;
+    static final int OPEN_THREE = 5;
+    static final int FOUR = 6;
+    static final int OPEN_FOUR = 7;
+    static final int FIVE = 8;
+
+    private static final int[] VALUES = {0, 1, 10, 100, 100, 1000, 1000, 10000, 100000};
+    // An open three of the side to move becomes an open four next move unless it is answered
+    private static final int TEMPO_BONUS = 3000;
+
+    private static final int WIN = FiveGameUtil.WIN_CONDITION;
+    private static final int MAX_LENGTH = GameBoard.SIZE;
+
+    // SHAPES[SHAPE_OFFSET[length] + ownMask] is the shape of a run of that length
+    private static final int[] SHAPE_OFFSET = new int[MAX_LENGTH + 1];
+    private static final byte[] SHAPES;
+
+    private static final int LINE_COUNT;
+    private static final int[] LINE_LENGTH;
+    // For each direction and point: the line through it and the point's bit in that line
+    private static final int[][] LINE_OF = new int[4][GameBoard.CELLS];
+    private static final int[][] BIT_OF = new int[4][GameBoard.CELLS];
+
+    static {
+        int offset = 0;
+        for (int length = WIN; length <= MAX_LENGTH; length++) {
+            SHAPE_OFFSET[length] = offset;
+            offset += 1 << length;
+        }
+        SHAPES = new byte[offset];
+        for (int length = WIN; length <= MAX_LENGTH; length++) {
+            boolean[] known = new boolean[1 << length];
+            for (int mask = 0; mask < 1 << length; mask++) {
+                classify(length, mask, known);
+            }
+        }
+
+        int[][] directions = {{1, 0}, {0, 1}, {1, 1}, {1, -1}};
+        List<Integer> lengths = new ArrayList<>();
+        for (int d = 0; d < directions.length; d++) {
+            int dx = directions[d][0];
+            int dy = directions[d][1];
+            for (int x = 0; x < GameBoard.SIZE; x++) {
+                for (int y = 0; y < GameBoard.SIZE; y++) {
+                    // A line starts at a point whose predecessor is off the board
+                    if (GameBoard.isValidPoint(x - dx, y - dy)) {
+                        continue;
+                    }
+                    int length = 0;
+                    while (GameBoard.isValidPoint(x + length * dx, y + length * dy)) {
+                        length++;
+                    }
+                    int line = length >= WIN ? lengths.size() : -1;
+                    if (line >= 0) {
+                        lengths.add(length);
+                    }
+                    for (int i = 0; i < length; i++) {
+                        int cell = (x + i * dx) * GameBoard.SIZE + (y + i * dy);
+                        LINE_OF[d][cell] = line;
+                        BIT_OF[d][cell] = i;
+                    }
+                }
+            }
+        }
+        LINE_COUNT = lengths.size();
+        LINE_LENGTH = lengths.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    // Shape of a run holding own stones at mask, by looking one stone ahead
+    private static int classify(int length, int mask, boolean[] known) {
+        int index = SHAPE_OFFSET[length] + mask;
+        if (known[mask]) {
+            return SHAPES[index];
+        }
+        int shape;
+        if (hasFive(mask)) {
+            shape = FIVE;
+        } else {
+            int fivePoints = 0;
+            int best = NONE;
+            for (int p = 0; p < length; p++) {
+                int bit = 1 << p;
+                if ((mask & bit) == 0 && hasFive(mask | bit)) {
+                    fivePoints++;
+                }
+            }
+            if (fivePoints >= 2) {
+                shape = OPEN_FOUR;
+            } else if (fivePoints == 1) {
+                shape = FOUR;
+            } else {
+                for (int p = 0; p < length; p++) {
+                    int bit = 1 << p;
+                    if ((mask & bit) == 0) {
+                        best = Math.max(best, promote(classify(length, mask | bit, known)));
+                    }
+                }
+                shape = best == NONE && mask != 0 ? ONE : best;
+            }
+        }
+        known[mask] = true;
+        SHAPES[index] = (byte) shape;
+        return shape;
+    }
+
+    // The shape one stone short of the given one
+    private static int promote(int shape) {
+        switch (shape) {
+            case OPEN_FOUR:
+                return OPEN_THREE;
+            case FOUR:
+                return THREE;
+            case OPEN_THREE:
+                return OPEN_TWO;
+            case THREE:
+                return TWO;
+            case OPEN_TWO:
+            case TWO:
+                return ONE;
+            default:
+                return NONE;
+        }
+    }
+
+    private static boolean hasFive(int mask) {
+        int run = mask;
+        for (int i = 1; i < WIN; i++) {
+            run &= mask >>> i;
+        }
+        return run != 0;
+    }
+
+    // Stones of each color per line, one bit per point
+    private final int[][] masks = new int[3][LINE_COUNT];
+    private final int[][] lineScores = new int[3][LINE_COUNT];
+    private final int[][] lineFours = new int[3][LINE_COUNT];
+    private final int[][] lineThrees = new int[3][LINE_COUNT];
+    private final int[] scores = new int[3];
+    // Runs holding a four (a point that completes five) for each color
+    private final int[] fours = new int[3];
+    // Runs holding an open three for each color
+    private final int[] threes = new int[3];
+
+    // Shape of a run of length points free of opposing stones, holding own stones at own
+    static int shapeOf(int length, int own) {
+        return SHAPES[SHAPE_OFFSET[length] + own];
+    }
+
+    public void place(int index, int color) {
+        for (int d = 0; d < 4; d++) {
+            int line = LINE_OF[d][index];
+            if (line >= 0) {
+                masks[color][line] |= 1 << BIT_OF[d][index];
+                rescore(line);
+            }
+        }
+    }
+
+    public void remove(int index, int color) {
+        for (int d = 0; d < 4; d++) {
+            int line = LINE_OF[d][index];
+            if (line >= 0) {
+                masks[color][line] &= ~(1 << BIT_OF[d][index]);
+                rescore(line);
+            }
+        }
+    }
+
+    private void rescore(int line) {
+        for (int color = GameBoard.BLACK; color <= GameBoard.WHITE; color++) {
+            long packed = scoreLine(LINE_LENGTH[line], masks[color][line], masks[3 - color][line]);
+            int score = (int) (packed >> 8);
+            int lineFour = (int) packed & 0xF;
+            int lineThree = (int) (packed >> 4) & 0xF;
+            scores[color] += score - lineScores[color][line];
+            fours[color] += lineFour - lineFours[color][line];
+            threes[color] += lineThree - lineThrees[color][line];
+            lineScores[color][line] = score;
+            lineFours[color][line] = lineFour;
+            lineThrees[color][line] = lineThree;
+        }
+    }
+
+    // Sum of shape values over the runs of a line free of opposing stones, packed with the
+    // number of runs holding an open three (bits 4-7) and a four (bits 0-3) in the low byte
+    private static long scoreLine(int length, int own, int opposing) {
+        int free = ~opposing & ((1 << length) - 1);
+        long score = 0;
+        int lineFours = 0;
+        int lineThrees = 0;
+        while (free != 0) {
+            int start = Integer.numberOfTrailingZeros(free);
+            int run = Integer.numberOfTrailingZeros(~(free >>> start));
+            int runMask = (int) ((1L << run) - 1) << start;
+            free &= ~runMask;
+            if (run < WIN) {
+                continue; // Too short to ever hold a five
+            }
+            int ownRun = (own & runMask) >>> start;
+            if (ownRun == 0) {
+                continue;
+            }
+            int shape = SHAPES[SHAPE_OFFSET[run] + ownRun];
+            score += VALUES[shape];
+            if (shape >= FOUR) {
+                lineFours++;
+            } else if (shape == OPEN_THREE) {
+                lineThrees++;
+            }
+        }
+        return score << 8 | lineThrees << 4 | lineFours;
+    }
+
+    // Static score from the point of view of the side to move. Opposing shapes count half again:
+    // the side to move can break only one of them, the rest stay for the opponent to build on.
+    public int evaluate(int side) {
+        int score = scores[side] - scores[3 - side] * 3 / 2;
+        return threes[side] > 0 ? score + TEMPO_BONUS : score;
+    }
+
+    // How much the evaluation for color improves if it plays at index: its own lines through the
+    // point gain a stone and the opponent's lines through it get blocked
+    int scoreMove(int index, int color) {
+        int other = 3 - color;
+        int gain = 0;
+        for (int d = 0; d < 4; d++) {
+            int line = LINE_OF[d][index];
+            if (line < 0) {
+                continue;
+            }
+            int length = LINE_LENGTH[line];
+            int own = masks[color][line] | 1 << BIT_OF[d][index];
+            int opposing = masks[other][line];
+            gain += (int) (scoreLine(length, own, opposing) >> 8) - lineScores[color][line];
+            gain += lineScores[other][line] - (int) (scoreLine(length, opposing, own) >> 8);
+        }
+        return gain;
+    }
+
+    // True if color completes five by playing at index
+    boolean makesFive(int index, int color) {
+        for (int d = 0; d < 4; d++) {
+            int line = LINE_OF[d][index];
+            if (line >= 0 && hasFive(masks[color][line] | 1 << BIT_OF[d][index])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // True if playing at index gives color a new four, without placing the stone
+    boolean makesFour(int index, int color) {
+        for (int d = 0; d < 4; d++) {
+            int line = LINE_OF[d][index];
+            // A four needs three stones of color on the line already
+            if (line >= 0 && Integer.bitCount(masks[color][line]) >= WIN - 2) {
+                long packed = scoreLine(LINE_LENGTH[line], masks[color][line] | 1 << BIT_OF[d][index], masks[3 - color][line]);
+                if ((packed & 0xF) > lineFours[color][line]) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // True if playing at index gives color a new open three, without placing the stone
+    boolean makesOpenThree(int index, int color) {
+        for (int d = 0; d < 4; d++) {
+            int line = LINE_OF[d][index];
+            if (line >= 0 && Integer.bitCount(masks[color][line]) >= WIN - 3) {
+                long packed = scoreLine(LINE_LENGTH[line], masks[color][line] | 1 << BIT_OF[d][index], masks[3 - color][line]);
+                if ((packed >> 4 & 0xF) > lineThrees[color][line]) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // Number of lines where color threatens to complete five
+    int fourCount(int color) {
+        return fours[color];
+    }
+}
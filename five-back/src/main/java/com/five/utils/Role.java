@@ -0,0 +1,56 @@
+package com.five.utils;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+// The seat of a user in a room. The name is what the clients send and show, and what a role is
+// written as in JSON; the code is the role byte of the binary subprotocol.
+public enum Role {
+    BLACK("Joueur Noir", 1),
+    WHITE("Joueur Blanc", 2),
+    SPECTATOR("Spectateur", 3);
+
+    private final String name;
+    private final int code;
+
+    Role(String name, int code) {
+        this.name = name;
+        this.code = code;
+    }
+
+    @JsonValue
+    public String getName() {
+        return name;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    public boolean isPlayer() {
+        return this != SPECTATOR;
+    }
+
+    public int stoneColor() {
+        return this == BLACK ? GameBoard.BLACK : GameBoard.WHITE;
+    }
+
+    // The role with this name, or null
+    public static Role of(String name) {
+        for (Role role : values()) {
+            if (role.name.equals(name)) {
+                return role;
+            }
+        }
+        return null;
+    }
+
+    // The role with this code, or null
+    public static Role ofCode(int code) {
+        for (Role role : values()) {
+            if (role.code == code) {
+                return role;
+            }
+        }
+        return null;
+    }
+}
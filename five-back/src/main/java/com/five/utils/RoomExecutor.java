@@ -0,0 +1,119 @@
+package com.five.utils;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Runs the work of each room one task at a time, in the order it was submitted, on a pool shared by
+// all rooms. A room is a mailbox: the first task submitted to an idle room schedules it on the pool,
+// and the thread that picks it up drains its tasks, handing the thread back after a few so a busy
+// room cannot hold it. Whatever a room's tasks touch is only ever touched by one thread at a time,
+// with no lock held across rooms. An idle room costs nothing; its mailbox is dropped when it drains.
+// The pool may also be a virtual thread per task executor, see ExecutionMode.
+@Slf4j
+public class RoomExecutor {
+
+    // Tasks one room runs before giving its thread to the other rooms
+    private static final int BATCH = 32;
+
+    private final ExecutorService executor;
+    // A room is present while it has tasks queued or running
+    private final ConcurrentHashMap<Long, Mailbox> mailboxes = new ConcurrentHashMap<>();
+
+    public RoomExecutor(int threads) {
+        this(newPool(threads));
+    }
+
+    public RoomExecutor(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    private static ExecutorService newPool(int threads) {
+        int poolSize = Math.max(1, threads);
+        AtomicInteger threadNumber = new AtomicInteger(1);
+        return new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "room-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Queues the task after the room's other tasks
+    public void execute(Long roomId, Runnable task) {
+        Mailbox[] scheduled = new Mailbox[1];
+        mailboxes.compute(roomId, (id, mailbox) -> {
+            if (mailbox == null) {
+                mailbox = new Mailbox(id);
+                scheduled[0] = mailbox;
+            }
+            mailbox.tasks.add(task);
+            return mailbox;
+        });
+        if (scheduled[0] != null) {
+            executor.execute(scheduled[0]);
+        }
+    }
+
+    // Rooms with tasks queued or running
+    public int activeRooms() {
+        return mailboxes.size();
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private final class Mailbox implements Runnable {
+        private final Long roomId;
+        // Guarded by the mailboxes entry of the room
+        private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+
+        Mailbox(Long roomId) {
+            this.roomId = roomId;
+        }
+
+        @Override
+        public void run() {
+            for (int i = 0; i < BATCH; i++) {
+                Runnable task = next();
+                if (task == null) {
+                    return;
+                }
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    log.error("Task of room {} failed", roomId, e);
+                }
+            }
+            if (reschedule()) {
+                executor.execute(this);
+            }
+        }
+
+        // The next task, or null once the room has none and its mailbox is dropped
+        private Runnable next() {
+            Runnable[] next = new Runnable[1];
+            mailboxes.computeIfPresent(roomId, (id, mailbox) -> {
+                next[0] = tasks.poll();
+                return next[0] == null ? null : mailbox;
+            });
+            return next[0];
+        }
+
+        private boolean reschedule() {
+            boolean[] more = new boolean[1];
+            mailboxes.computeIfPresent(roomId, (id, mailbox) -> {
+                more[0] = !tasks.isEmpty();
+                return more[0] ? mailbox : null;
+            });
+            return more[0];
+        }
+    }
+}
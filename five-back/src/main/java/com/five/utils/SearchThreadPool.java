@@ -0,0 +1,55 @@
+package com.five.utils;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Helper threads for parallel AI searches. The permits cap how many helpers run across all
+// searches at once; a search that finds none left simply runs on its own thread.
+public class SearchThreadPool {
+
+    private final ExecutorService executor;
+    private final Semaphore permits;
+
+    public SearchThreadPool(int maxThreads) {
+        int threads = Math.max(1, maxThreads);
+        AtomicInteger threadNumber = new AtomicInteger(1);
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "ai-search-helper-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        pool.allowCoreThreadTimeOut(true);
+        this.executor = pool;
+        this.permits = new Semaphore(maxThreads);
+    }
+
+    // Takes up to wanted permits without waiting and returns how many were granted
+    int acquire(int wanted) {
+        int granted = 0;
+        while (granted < wanted && permits.tryAcquire()) {
+            granted++;
+        }
+        return granted;
+    }
+
+    void release(int count) {
+        permits.release(count);
+    }
+
+    void execute(Runnable task) {
+        executor.execute(task);
+    }
+
+    public int availableThreads() {
+        return permits.availablePermits();
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
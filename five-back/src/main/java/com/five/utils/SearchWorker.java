@@ -0,0 +1,333 @@
+package com.five.utils;
+
+import java.util.Arrays;
+
+// One search thread's private position and move-ordering state. Several workers can search the
+// same position at once, they only share the transposition table and the stop signal.
+final class SearchWorker {
+
+    static final int WIN = 10_000_000;
+    static final int WIN_THRESHOLD = WIN - 1000;
+    static final int MAX_PLY = 64;
+    // Moves searched at each interior node, the root always searches every candidate
+    private static final int BRANCH_LIMIT = 14;
+    // Candidates are empty points within this distance of a stone
+    private static final int NEIGHBOUR_RADIUS = 2;
+
+    private static final int[][] NEIGHBOURS = new int[GameBoard.CELLS][];
+
+    static {
+        for (int x = 0; x < GameBoard.SIZE; x++) {
+            for (int y = 0; y < GameBoard.SIZE; y++) {
+                int[] list = new int[(2 * NEIGHBOUR_RADIUS + 1) * (2 * NEIGHBOUR_RADIUS + 1) - 1];
+                int n = 0;
+                for (int dx = -NEIGHBOUR_RADIUS; dx <= NEIGHBOUR_RADIUS; dx++) {
+                    for (int dy = -NEIGHBOUR_RADIUS; dy <= NEIGHBOUR_RADIUS; dy++) {
+                        if ((dx != 0 || dy != 0) && GameBoard.isValidPoint(x + dx, y + dy)) {
+                            list[n++] = (x + dx) * GameBoard.SIZE + (y + dy);
+                        }
+                    }
+                }
+                NEIGHBOURS[x * GameBoard.SIZE + y] = Arrays.copyOf(list, n);
+            }
+        }
+    }
+
+    private final byte[] cells = new byte[GameBoard.CELLS];
+    // Number of stones within NEIGHBOUR_RADIUS of each point
+    private final byte[] nearby = new byte[GameBoard.CELLS];
+    private final PatternEvaluator evaluator = new PatternEvaluator();
+    private long hash;
+    private int stoneCount;
+
+    private final int[][] killers = new int[MAX_PLY][2];
+    private final int[][] history = new int[3][GameBoard.CELLS];
+    // Per-ply move buffers, so the search does not allocate
+    private final int[][] moveBuffers = new int[MAX_PLY][GameBoard.CELLS];
+    private final long[][] orderBuffers = new long[MAX_PLY][GameBoard.CELLS];
+
+    private TranspositionTable table;
+    private SearchControl control;
+    private long nodes;
+    private boolean aborted;
+
+    // Shared state of one search: deadline and a stop flag raised by whoever finishes first
+    static final class SearchControl {
+        final long deadline;
+        volatile boolean stopped;
+
+        SearchControl(long deadline) {
+            this.deadline = deadline;
+        }
+    }
+
+    // A helper starts from a copy of the position the main worker is about to search
+    SearchWorker copy() {
+        SearchWorker worker = new SearchWorker();
+        for (int i = 0; i < GameBoard.CELLS; i++) {
+            if (cells[i] != GameBoard.EMPTY) {
+                worker.place(i, cells[i]);
+            }
+        }
+        return worker;
+    }
+
+    byte get(int index) {
+        return cells[index];
+    }
+
+    int stoneCount() {
+        return stoneCount;
+    }
+
+    long hash() {
+        return hash;
+    }
+
+    long nodes() {
+        return nodes;
+    }
+
+    // Moves for side at the root: a winning point alone, the forced blocks when the opponent
+    // threatens five, otherwise every candidate in static order
+    int[] rootMoves(int side) {
+        int[] moves = moveBuffers[0];
+        int count = generateMoves(side, 0, -1, moves, false);
+        for (int i = 0; i < count; i++) {
+            if (evaluator.makesFive(moves[i], side)) {
+                return new int[]{moves[i]};
+            }
+        }
+        if (evaluator.fourCount(3 - side) > 0) {
+            count = generateMoves(side, 0, -1, moves, true);
+        }
+        return Arrays.copyOf(moves, count);
+    }
+
+    boolean makesFive(int index, int color) {
+        return evaluator.makesFive(index, color);
+    }
+
+    int fourCount(int color) {
+        return evaluator.fourCount(color);
+    }
+
+    boolean makesFour(int index, int color) {
+        return evaluator.makesFour(index, color);
+    }
+
+    boolean makesOpenThree(int index, int color) {
+        return evaluator.makesOpenThree(index, color);
+    }
+
+    // An empty point close enough to a stone to take part in a threat
+    boolean isCandidate(int index) {
+        return cells[index] == GameBoard.EMPTY && nearby[index] > 0;
+    }
+
+    // Iterative deepening over the given root moves. Helpers pass a non-zero id, which shifts
+    // their start depth and root order so they fill the shared table with different lines.
+    // Returns {move, score, completed depth}.
+    int[] search(int[] rootMoves, int side, int maxDepth, TranspositionTable table, SearchControl control, int helperId) {
+        this.table = table;
+        this.control = control;
+        this.nodes = 0;
+        this.aborted = false;
+        int[] moves = rootMoves.clone();
+        if (helperId > 0 && moves.length > 1) {
+            int shift = helperId % moves.length;
+            int first = moves[shift];
+            System.arraycopy(moves, 0, moves, 1, shift);
+            moves[0] = first;
+        }
+
+        int bestMove = moves[0];
+        int bestScore = 0;
+        int completedDepth = 0;
+        for (int depth = 1 + (helperId & 1); depth <= maxDepth; depth++) {
+            int iterationBest = -1;
+            int alpha = -WIN - 1;
+            for (int i = 0; i < moves.length; i++) {
+                int move = moves[i];
+                // Equal scores go to the lower point so the same position always gets the same
+                // answer, which needs a window one point wider for those moves
+                boolean winsTies = iterationBest >= 0 && move < moves[iterationBest];
+                int bound = winsTies ? alpha - 1 : alpha;
+                place(move, side);
+                int score = -negamax(depth - 1, -WIN - 1, -bound, 1, 3 - side);
+                unplace(move, side);
+                if (aborted) {
+                    break;
+                }
+                if (score > alpha || (winsTies && score == alpha)) {
+                    alpha = score;
+                    iterationBest = i;
+                }
+            }
+            if (aborted || iterationBest < 0) {
+                break;
+            }
+            bestMove = moves[iterationBest];
+            bestScore = alpha;
+            completedDepth = depth;
+            // Search the best move first in the next iteration, keeping the others in order
+            System.arraycopy(moves, 0, moves, 1, iterationBest);
+            moves[0] = bestMove;
+            if (Math.abs(bestScore) >= WIN_THRESHOLD) {
+                break; // A forced result is not going to change with more depth
+            }
+        }
+        return new int[]{bestMove, bestScore, completedDepth};
+    }
+
+    private int negamax(int depth, int alpha, int beta, int ply, int side) {
+        if ((++nodes & 1023) == 0 && (control.stopped || System.currentTimeMillis() >= control.deadline
+                || Thread.currentThread().isInterrupted())) {
+            aborted = true;
+        }
+        if (aborted) {
+            return 0;
+        }
+        int other = 3 - side;
+        if (evaluator.fourCount(side) > 0) {
+            return WIN - ply - 1; // Side to move completes five
+        }
+        if (stoneCount >= GameBoard.CELLS) {
+            return 0;
+        }
+        boolean mustBlock = evaluator.fourCount(other) > 0;
+        if (depth <= 0) {
+            if (!mustBlock || ply >= MAX_PLY - 1) {
+                return evaluator.evaluate(side);
+            }
+            depth = 1; // Extend forced blocks so a leaf never hides a pending five
+        }
+
+        int originalAlpha = alpha;
+        long entry = table.probe(hash);
+        int tableMove = -1;
+        if (TranspositionTable.isPresent(entry)) {
+            tableMove = TranspositionTable.moveOf(entry);
+            if (TranspositionTable.depthOf(entry) >= depth) {
+                int score = fromTable(TranspositionTable.scoreOf(entry), ply);
+                int bound = TranspositionTable.boundOf(entry);
+                if (bound == TranspositionTable.EXACT
+                        || (bound == TranspositionTable.LOWER && score >= beta)
+                        || (bound == TranspositionTable.UPPER && score <= alpha)) {
+                    return score;
+                }
+            }
+        }
+
+        int[] moves = moveBuffers[ply];
+        int count = generateMoves(side, ply, tableMove, moves, mustBlock);
+        if (count > BRANCH_LIMIT) {
+            count = BRANCH_LIMIT;
+        }
+
+        int bestScore = -WIN - 1;
+        int bestMove = -1;
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            place(move, side);
+            int score = -negamax(depth - 1, -beta, -alpha, ply + 1, other);
+            unplace(move, side);
+            if (aborted) {
+                return 0;
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = move;
+            }
+            if (score > alpha) {
+                alpha = score;
+            }
+            if (alpha >= beta) {
+                if (killers[ply][0] != move) {
+                    killers[ply][1] = killers[ply][0];
+                    killers[ply][0] = move;
+                }
+                history[side][move] += depth * depth;
+                break;
+            }
+        }
+        if (bestMove < 0) {
+            return evaluator.evaluate(side);
+        }
+
+        int bound = bestScore <= originalAlpha ? TranspositionTable.UPPER
+                : bestScore >= beta ? TranspositionTable.LOWER : TranspositionTable.EXACT;
+        table.store(hash, depth, bound, toTable(bestScore, ply), bestMove);
+        return bestScore;
+    }
+
+    // Fills moves with candidate points for side, best first, and returns how many there are.
+    // When the opponent threatens five only the blocking points are returned.
+    private int generateMoves(int side, int ply, int tableMove, int[] moves, boolean mustBlock) {
+        long[] order = orderBuffers[ply];
+        int other = 3 - side;
+        int count = 0;
+        for (int i = 0; i < GameBoard.CELLS; i++) {
+            if (cells[i] != GameBoard.EMPTY || nearby[i] == 0) {
+                continue;
+            }
+            if (mustBlock && !evaluator.makesFive(i, other)) {
+                continue;
+            }
+            long score = evaluator.scoreMove(i, side) + history[side][i];
+            if (i == tableMove) {
+                score += 1L << 40;
+            } else if (i == killers[ply][0] || i == killers[ply][1]) {
+                score += 1L << 20;
+            }
+            // Higher scores sort last, ties keep the lower point first
+            order[count++] = score << 9 | (511 - i);
+        }
+        Arrays.sort(order, 0, count);
+        for (int i = 0; i < count; i++) {
+            moves[i] = 511 - (int) (order[count - 1 - i] & 511);
+        }
+        return count;
+    }
+
+    void place(int index, int color) {
+        cells[index] = (byte) color;
+        hash ^= Zobrist.key(color, index);
+        stoneCount++;
+        evaluator.place(index, color);
+        for (int n : NEIGHBOURS[index]) {
+            nearby[n]++;
+        }
+    }
+
+    void unplace(int index, int color) {
+        cells[index] = GameBoard.EMPTY;
+        hash ^= Zobrist.key(color, index);
+        stoneCount--;
+        evaluator.remove(index, color);
+        for (int n : NEIGHBOURS[index]) {
+            nearby[n]--;
+        }
+    }
+
+    // Win scores are stored relative to the node so they stay valid at any ply
+    private static int toTable(int score, int ply) {
+        if (score >= WIN_THRESHOLD) {
+            return score + ply;
+        }
+        if (score <= -WIN_THRESHOLD) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        if (score >= WIN_THRESHOLD) {
+            return score - ply;
+        }
+        if (score <= -WIN_THRESHOLD) {
+            return score + ply;
+        }
+        return score;
+    }
+}
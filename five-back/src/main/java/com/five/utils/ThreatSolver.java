@@ -0,0 +1,237 @@
+package com.five.utils;
+
+import java.util.Arrays;
+
+// Threat-space search for forced wins. The attacker only plays moves the defender has to answer:
+// fours (VCF, victory by continuous fours) and, for VCT, open threes as well. After a four the
+// defender's one reply is the point that completes five, after an open three the defender may
+// block anywhere on the lines through the new stone or counter with a four of its own. With so
+// few replies per threat the solver sees tactical wins far beyond the alpha-beta horizon.
+public final class ThreatSolver {
+
+    // Attacker moves in a line of continuous fours
+    static final int VCF_DEPTH = 12;
+    // Attacker moves in a line mixing threes and fours
+    static final int VCT_DEPTH = 5;
+    private static final long NODE_LIMIT = 100_000;
+
+    private static final int REACH = FiveGameUtil.WIN_CONDITION - 1;
+    // Points within REACH of each point along the four line directions, where a threat made by a
+    // stone on that point can be completed or blocked
+    private static final int[][] LINE_POINTS = new int[GameBoard.CELLS][];
+
+    static {
+        int[][] directions = {{1, 0}, {0, 1}, {1, 1}, {1, -1}};
+        for (int x = 0; x < GameBoard.SIZE; x++) {
+            for (int y = 0; y < GameBoard.SIZE; y++) {
+                int[] list = new int[directions.length * 2 * REACH];
+                int n = 0;
+                for (int[] direction : directions) {
+                    for (int i = -REACH; i <= REACH; i++) {
+                        int px = x + i * direction[0];
+                        int py = y + i * direction[1];
+                        if (i != 0 && GameBoard.isValidPoint(px, py)) {
+                            list[n++] = px * GameBoard.SIZE + py;
+                        }
+                    }
+                }
+                LINE_POINTS[x * GameBoard.SIZE + y] = Arrays.copyOf(list, n);
+            }
+        }
+    }
+
+    private final SearchWorker worker;
+    private final long deadline;
+    // Per-ply buffers, so the solver does not allocate
+    private final int[][] moveBuffers = new int[2 * Math.max(VCF_DEPTH, VCT_DEPTH) + 2][GameBoard.CELLS];
+    private long nodes;
+    private boolean exhausted;
+
+    ThreatSolver(SearchWorker worker, long deadline) {
+        this.worker = worker;
+        this.deadline = deadline;
+    }
+
+    long nodes() {
+        return nodes;
+    }
+
+    // First move of a forced win for attacker, who is to move, or -1 if none was found in time
+    int findWin(int attacker) {
+        int win = attack(attacker, VCF_DEPTH, 0, false);
+        if (win < 0 && !exhausted) {
+            win = attack(attacker, VCT_DEPTH, 0, true);
+        }
+        return win;
+    }
+
+    // True if color has a forced win in the position, whoever is to move: black moves whenever
+    // both colors have the same number of stones. A false answer means none was found.
+    public static boolean isForcedWin(GameBoard board, int color) {
+        if (board == null || (color != GameBoard.BLACK && color != GameBoard.WHITE)) {
+            return false;
+        }
+        SearchWorker worker = new SearchWorker();
+        int blacks = 0;
+        for (int x = 0; x < GameBoard.SIZE; x++) {
+            for (int y = 0; y < GameBoard.SIZE; y++) {
+                int stone = board.get(x, y);
+                if (stone != GameBoard.EMPTY) {
+                    worker.place(x * GameBoard.SIZE + y, stone);
+                    blacks += stone == GameBoard.BLACK ? 1 : 0;
+                }
+            }
+        }
+        if (board.isFull()) {
+            return false;
+        }
+        ThreatSolver solver = new ThreatSolver(worker,
+                System.currentTimeMillis() + ChessBoardEvaluator.DEFAULT_TIME_BUDGET_MILLIS);
+        int toMove = blacks * 2 == worker.stoneCount() ? GameBoard.BLACK : GameBoard.WHITE;
+        if (toMove == color) {
+            return solver.findWin(color) >= 0;
+        }
+        // The opponent moves first: it must not have a five of its own and has to block ours
+        int opponent = 3 - color;
+        int[] points = solver.moveBuffers[0];
+        if (solver.fivePoints(opponent, points) > 0) {
+            return false;
+        }
+        int count = solver.fivePoints(color, points);
+        if (count != 1) {
+            return count > 1;
+        }
+        worker.place(points[0], opponent);
+        return solver.findWin(color) >= 0;
+    }
+
+    // Returns the attacker's first winning move, or -1. depth counts attacker moves left.
+    private int attack(int attacker, int depth, int ply, boolean threes) {
+        if (++nodes > NODE_LIMIT || ((nodes & 255) == 0
+                && (System.currentTimeMillis() >= deadline || Thread.currentThread().isInterrupted()))) {
+            exhausted = true;
+        }
+        if (exhausted) {
+            return -1;
+        }
+        int defender = 3 - attacker;
+        int[] moves = moveBuffers[ply];
+        if (fivePoints(attacker, moves) > 0) {
+            return moves[0];
+        }
+        if (depth == 0) {
+            return -1;
+        }
+        int count;
+        int blocks = fivePoints(defender, moves);
+        if (blocks > 1) {
+            return -1; // Blocking one five still leaves the defender another
+        }
+        if (blocks == 1) {
+            count = 1; // The block is forced, it only helps if it is a threat too
+        } else {
+            count = 0;
+            for (int i = 0; i < GameBoard.CELLS; i++) {
+                if (worker.isCandidate(i)) {
+                    moves[count++] = i;
+                }
+            }
+        }
+
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            boolean four = worker.makesFour(move, attacker);
+            if (!four && !(threes && worker.makesOpenThree(move, attacker))) {
+                continue;
+            }
+            worker.place(move, attacker);
+            boolean wins = four
+                    ? defendFour(attacker, move, depth, ply, threes)
+                    : defendThree(attacker, move, depth, ply);
+            worker.unplace(move, attacker);
+            if (wins) {
+                return move;
+            }
+            if (exhausted) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    // After the attacker's four at move: the defender has to take the completing point
+    private boolean defendFour(int attacker, int move, int depth, int ply, boolean threes) {
+        int block = -1;
+        for (int point : LINE_POINTS[move]) {
+            if (worker.isCandidate(point) && worker.makesFive(point, attacker)) {
+                if (block >= 0) {
+                    return true; // Open four or double four, one block is not enough
+                }
+                block = point;
+            }
+        }
+        if (block < 0) {
+            return false;
+        }
+        int defender = 3 - attacker;
+        worker.place(block, defender);
+        boolean wins = attack(attacker, depth - 1, ply + 1, threes) >= 0;
+        worker.unplace(block, defender);
+        return wins;
+    }
+
+    // After the attacker's open three at move: every block on the lines through it and every
+    // counter four of the defender has to lose
+    private boolean defendThree(int attacker, int move, int depth, int ply) {
+        int defender = 3 - attacker;
+        int[] replies = moveBuffers[ply + 1];
+        int count = 0;
+        for (int point : LINE_POINTS[move]) {
+            if (worker.get(point) == GameBoard.EMPTY) {
+                replies[count++] = point;
+            }
+        }
+        int blocks = count;
+        for (int i = 0; i < GameBoard.CELLS; i++) {
+            if (!worker.isCandidate(i) || contains(replies, blocks, i)) {
+                continue;
+            }
+            if (worker.makesFour(i, defender)) {
+                replies[count++] = i;
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            int reply = replies[i];
+            worker.place(reply, defender);
+            boolean refuted = attack(attacker, depth - 1, ply + 2, true) < 0;
+            worker.unplace(reply, defender);
+            if (refuted || exhausted) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Fills points with every point where color completes five and returns how many there are
+    private int fivePoints(int color, int[] points) {
+        if (worker.fourCount(color) == 0) {
+            return 0;
+        }
+        int count = 0;
+        for (int i = 0; i < GameBoard.CELLS; i++) {
+            if (worker.isCandidate(i) && worker.makesFive(i, color)) {
+                points[count++] = i;
+            }
+        }
+        return count;
+    }
+
+    private static boolean contains(int[] points, int count, int point) {
+        for (int i = 0; i < count; i++) {
+            if (points[i] == point) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,54 @@
+package com.five.utils;
+
+import java.util.List;
+import java.util.Map;
+
+// The time each player has for a game. FISCHER: the main time, plus the increment after every move.
+// BYO_YOMI: the main time, then a number of periods; a move made within a period keeps it, a period
+// used up is lost, and the flag falls with the last one. NONE: no clock.
+public record TimeControl(Kind kind, long mainMillis, long incrementMillis, long periodMillis, int periods) {
+
+    public enum Kind {
+        NONE, FISCHER, BYO_YOMI
+    }
+
+    public static final TimeControl NONE = new TimeControl(Kind.NONE, 0, 0, 0, 0);
+
+    // The time control a room's creator asked for on the websocket URL, as clock=fischer|byoyomi,
+    // main, increment and period in seconds, and periods. What is left out, or out of bounds, is
+    // the default's. A room cannot drop the clock the server imposes.
+    public static TimeControl of(Map<String, List<String>> params, TimeControl defaults, long maxMillis) {
+        if (defaults.kind == Kind.NONE) {
+            return defaults;
+        }
+        Kind kind = switch (first(params, "clock", "")) {
+            case "fischer" -> Kind.FISCHER;
+            case "byoyomi" -> Kind.BYO_YOMI;
+            default -> defaults.kind;
+        };
+        return new TimeControl(kind,
+                seconds(params, "main", defaults.mainMillis, 1_000, maxMillis),
+                seconds(params, "increment", defaults.incrementMillis, 0, maxMillis),
+                seconds(params, "period", defaults.periodMillis, 1_000, maxMillis),
+                (int) number(params, "periods", defaults.periods, 1, 10));
+    }
+
+    private static String first(Map<String, List<String>> params, String name, String otherwise) {
+        List<String> values = params.get(name);
+        return values == null || values.isEmpty() ? otherwise : values.get(0);
+    }
+
+    private static long seconds(Map<String, List<String>> params, String name, long otherwise, long min, long max) {
+        long millis = number(params, name, -1, 0, Long.MAX_VALUE / 1_000) * 1_000;
+        return millis < min || millis > max ? otherwise : millis;
+    }
+
+    private static long number(Map<String, List<String>> params, String name, long otherwise, long min, long max) {
+        try {
+            long value = Long.parseLong(first(params, name, ""));
+            return value < min || value > max ? otherwise : value;
+        } catch (NumberFormatException e) {
+            return otherwise;
+        }
+    }
+}
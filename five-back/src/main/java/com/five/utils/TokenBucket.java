@@ -0,0 +1,45 @@
+package com.five.utils;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+// A token bucket of burst tokens refilled at perSecond, in one long and without a lock. The long is
+// the time at which the bucket would be full again: taking a token pushes it one refill interval
+// later, and a token is refused when that would put it more than the burst ahead of now. A single
+// compare-and-set takes a token, so a bucket shared by every session of the node never blocks.
+public final class TokenBucket {
+
+    private static final AtomicLongFieldUpdater<TokenBucket> FULL_AT =
+            AtomicLongFieldUpdater.newUpdater(TokenBucket.class, "fullAtNanos");
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    private volatile long fullAtNanos;
+
+    // perSecond of 0 or less leaves the bucket unlimited
+    public TokenBucket(double perSecond, int burst) {
+        this.intervalNanos = perSecond <= 0 ? 0 : Math.max(1, (long) (1_000_000_000L / perSecond));
+        this.burstNanos = intervalNanos * Math.max(1, burst);
+        this.fullAtNanos = System.nanoTime();
+    }
+
+    public boolean tryTake() {
+        return tryTake(System.nanoTime());
+    }
+
+    // False when the bucket is empty, nothing is taken then
+    public boolean tryTake(long nowNanos) {
+        if (intervalNanos == 0) {
+            return true;
+        }
+        while (true) {
+            long fullAt = fullAtNanos;
+            long next = Math.max(fullAt - nowNanos, 0) + intervalNanos;
+            if (next > burstNanos) {
+                return false;
+            }
+            if (FULL_AT.compareAndSet(this, fullAt, nowNanos + next)) {
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.five.utils;
+
+// Fixed-size, replace-if-deeper transposition table shared by all threads of a search. Each slot
+// is two longs: the Zobrist key XOR the packed entry, and the packed entry (score, depth, bound
+// type, best move). There are no locks: a slot torn by two racing writers no longer XORs back to
+// the probed key, so it reads as a miss instead of as a wrong entry.
+final class TranspositionTable {
+
+    static final int EXACT = 0;
+    static final int LOWER = 1;
+    static final int UPPER = 2;
+
+    private static final long NO_ENTRY = 0L;
+
+    private final long[] keys;
+    private final long[] entries;
+    private final int mask;
+
+    TranspositionTable(int sizeBits) {
+        int size = 1 << sizeBits;
+        this.keys = new long[size];
+        this.entries = new long[size];
+        this.mask = size - 1;
+    }
+
+    // Returns the packed entry for the key, or 0 if the slot belongs to another position
+    long probe(long key) {
+        int slot = (int) key & mask;
+        long entry = entries[slot];
+        return (keys[slot] ^ entry) == key ? entry : NO_ENTRY;
+    }
+
+    void store(long key, int depth, int bound, int score, int move) {
+        int slot = (int) key & mask;
+        long current = entries[slot];
+        if ((keys[slot] ^ current) == key && depth < depthOf(current)) {
+            return; // Keep the deeper result for the same position
+        }
+        long entry = pack(depth, bound, score, move);
+        keys[slot] = key ^ entry;
+        entries[slot] = entry;
+    }
+
+    static long pack(int depth, int bound, int score, int move) {
+        // Bit 63 marks a used entry, so an empty slot never looks like a stored one
+        return 1L << 63
+                | (long) (move + 1) << 44
+                | (long) (depth & 0xFF) << 36
+                | (long) (bound & 0x3) << 32
+                | (score & 0xFFFFFFFFL);
+    }
+
+    static boolean isPresent(long entry) {
+        return entry != NO_ENTRY;
+    }
+
+    static int scoreOf(long entry) {
+        return (int) entry;
+    }
+
+    static int boundOf(long entry) {
+        return (int) (entry >>> 32) & 0x3;
+    }
+
+    static int depthOf(long entry) {
+        return (int) (entry >>> 36) & 0xFF;
+    }
+
+    static int moveOf(long entry) {
+        return ((int) (entry >>> 44) & 0x3FF) - 1;
+    }
+}
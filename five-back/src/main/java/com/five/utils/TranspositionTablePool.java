@@ -0,0 +1,32 @@
+package com.five.utils;
+
+import java.util.concurrent.ArrayBlockingQueue;
+
+// Transposition tables kept from one AI search to the next, so a move does not allocate a table
+// of 2^sizeBits slots each time. A search takes a table and gives it back when it is done; the pool
+// keeps at most maxTables, a search finding none left allocates its own. The entries are keyed by
+// position, so what one search leaves in a table is still right for the next one.
+public class TranspositionTablePool {
+
+    private final int sizeBits;
+    private final ArrayBlockingQueue<TranspositionTable> tables;
+
+    public TranspositionTablePool(int sizeBits, int maxTables) {
+        this.sizeBits = sizeBits;
+        this.tables = new ArrayBlockingQueue<>(Math.max(1, maxTables));
+    }
+
+    TranspositionTable take() {
+        TranspositionTable table = tables.poll();
+        return table != null ? table : new TranspositionTable(sizeBits);
+    }
+
+    // A table given back to a full pool is left to the garbage collector
+    void give(TranspositionTable table) {
+        tables.offer(table);
+    }
+
+    public int idleTables() {
+        return tables.size();
+    }
+}
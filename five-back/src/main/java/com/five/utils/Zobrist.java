@@ -0,0 +1,28 @@
+package com.five.utils;
+
+import java.util.SplittableRandom;
+
+// Zobrist keys for every (color, point) pair. The seed is fixed so that a position hashes
+// to the same value in every server process.
+final class Zobrist {
+
+    private static final long SEED = 0x5F1E_2023_C0DE_0015L;
+
+    private static final long[][] KEYS = new long[3][GameBoard.CELLS];
+
+    static {
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int color = GameBoard.BLACK; color <= GameBoard.WHITE; color++) {
+            for (int i = 0; i < GameBoard.CELLS; i++) {
+                KEYS[color][i] = random.nextLong();
+            }
+        }
+    }
+
+    private Zobrist() {
+    }
+
+    static long key(int color, int index) {
+        return KEYS[color][index];
+    }
+}
@@ -0,0 +1,101 @@
+package com.five.websocket;
+
+import com.five.pojo.pojo.RateLimitProperties;
+import com.five.utils.MessageType;
+import com.five.utils.TokenBucket;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Admits the frames the clients send. Each session has a token bucket per message type, so a chat
+// flood does not starve the same session's moves, and every frame also takes a token from the
+// node's bucket, shared by all the sessions. A frame over its session's budget is throttled, one
+// over the node's is dropped; either way it is never handled. A session that keeps going over its
+// budget runs out of violations and is to be closed. The buckets take no lock.
+public class FrameRateLimiter {
+
+    public enum Verdict {
+        ACCEPT, THROTTLE, DROP, CLOSE
+    }
+
+    private final RateLimitProperties properties;
+    private final TokenBucket node;
+    private final AtomicLong throttledFrames = new AtomicLong();
+    private final AtomicLong droppedFrames = new AtomicLong();
+    private final AtomicLong closedSessions = new AtomicLong();
+
+    public FrameRateLimiter(RateLimitProperties properties) {
+        this.properties = properties;
+        this.node = bucket(properties.getNode());
+    }
+
+    // The buckets of a new session
+    public SessionLimits newSession() {
+        return new SessionLimits();
+    }
+
+    // Frames refused for being over their session's budget
+    public AtomicLong getThrottledFrames() {
+        return throttledFrames;
+    }
+
+    // Frames refused for being over the node's budget
+    public AtomicLong getDroppedFrames() {
+        return droppedFrames;
+    }
+
+    // Sessions closed for going over their budget too often
+    public AtomicLong getClosedSessions() {
+        return closedSessions;
+    }
+
+    public final class SessionLimits {
+        // Indexed by MessageType ordinal, null for the types clients do not send
+        private final TokenBucket[] byType = new TokenBucket[MessageType.values().length];
+        private final TokenBucket violations = bucket(properties.getViolations());
+        // A session's frames are admitted one at a time
+        private boolean closing;
+
+        private SessionLimits() {
+            byType[MessageType.CHAT_MESSAGE.ordinal()] = bucket(properties.getChat());
+            byType[MessageType.MOVE.ordinal()] = bucket(properties.getMove());
+            byType[MessageType.JOIN_ROOM.ordinal()] = bucket(properties.getJoin());
+            byType[MessageType.RESIGN.ordinal()] = bucket(properties.getResign());
+        }
+
+        // The session's budget is checked first, so a flooding session spends none of the node's
+        public Verdict admit(MessageType type) {
+            if (closing) {
+                return Verdict.CLOSE;
+            }
+            long now = System.nanoTime();
+            TokenBucket bucket = byType[type.ordinal()];
+            if (bucket != null && !bucket.tryTake(now)) {
+                throttledFrames.incrementAndGet();
+                return violation(now);
+            }
+            if (!node.tryTake(now)) {
+                droppedFrames.incrementAndGet();
+                return Verdict.DROP;
+            }
+            return Verdict.ACCEPT;
+        }
+
+        // A frame that does not decode is never handled, and counts as a violation
+        public Verdict malformed() {
+            return closing ? Verdict.CLOSE : violation(System.nanoTime());
+        }
+
+        private Verdict violation(long now) {
+            if (violations.tryTake(now)) {
+                return Verdict.THROTTLE;
+            }
+            closing = true;
+            closedSessions.incrementAndGet();
+            return Verdict.CLOSE;
+        }
+    }
+
+    private static TokenBucket bucket(RateLimitProperties.Budget budget) {
+        return new TokenBucket(budget.getPerSecond(), budget.getBurst());
+    }
+}
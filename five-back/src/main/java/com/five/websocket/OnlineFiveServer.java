@@ -3,35 +3,66 @@ package com.five.websocket;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.five.config.CustomSpringConfigurator;
+import com.five.constant.GameConstant;
+import com.five.exception.MessageFormatException;
 import com.five.mapper.GameHistoryMapper;
-import com.five.mapper.UserMapper;
+import com.five.pojo.dto.UserStatisticsDTO;
 import com.five.pojo.entity.GameHistory;
-import com.five.pojo.entity.User;
-import com.five.pojo.pojo.OnlineFiveActor;
-import com.five.pojo.pojo.OnlineFiveMessage;
+import com.five.pojo.pojo.AiProperties;
+import com.five.pojo.pojo.ClockProperties;
+import com.five.pojo.pojo.WebsocketProperties;
+import com.five.pojo.vo.GameAIMessageVO;
 import com.five.pojo.vo.GameActor;
+import com.five.pojo.vo.RoomEventVO;
 import com.five.pojo.vo.UserSelectByIdVO;
+import com.five.service.GameResultWriter;
+import com.five.service.UserProfileCache;
+import com.five.task.WebsocketSessionTask;
+import com.five.utils.AiMoveExecutor;
+import com.five.utils.BinaryFrames;
+import com.five.utils.BitGameBoard;
+import com.five.utils.ChessBoardEvaluator;
 import com.five.utils.FiveGameUtil;
+import com.five.utils.GameClock;
+import com.five.utils.GameBoard;
+import com.five.utils.GameRecord;
+import com.five.utils.InboundMessage;
+import com.five.utils.MessageDecoder;
+import com.five.utils.MoveJournal;
+import com.five.utils.OpeningBook;
+import com.five.utils.Role;
+import com.five.utils.RoomExecutor;
+import com.five.utils.SearchThreadPool;
+import com.five.utils.ThreatSolver;
+import com.five.utils.TimeControl;
+import com.five.utils.TimingWheel;
+import com.five.utils.TranspositionTablePool;
 import com.five.utils.GameResult;
 import com.five.utils.MessageType;
+import jakarta.annotation.PostConstruct;
 import jakarta.websocket.*;
 import jakarta.websocket.server.PathParam;
 import jakarta.websocket.server.ServerEndpoint;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 
-import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.LongFunction;
 
 import static com.five.utils.MessageType.*;
 import static com.five.utils.GameResult.*;
 
 
-@ServerEndpoint(value = "/game/online/five/{roomId}/{userId}", configurator = CustomSpringConfigurator.class)
+@ServerEndpoint(value = "/game/online/five/{roomId}/{userId}", configurator = CustomSpringConfigurator.class,
+        subprotocols = BinaryFrames.SUBPROTOCOL)
 @Slf4j
 @Component
 public class OnlineFiveServer {
@@ -41,142 +72,410 @@ public class OnlineFiveServer {
     private GameHistoryMapper gameHistoryMapper;
 
     @Autowired
-    private UserMapper userMapper;
+    private UserProfileCache userProfileCache;
+
+    @Autowired
+    private AiProperties aiProperties;
+
+    @Autowired
+    private SearchThreadPool searchThreadPool;
+
+    @Autowired
+    private TranspositionTablePool transpositionTablePool;
+
+    @Autowired
+    private OpeningBook openingBook;
+
+    @Autowired
+    private AiMoveExecutor aiMoveExecutor;
+
+    @Autowired
+    private WebsocketProperties websocketProperties;
+
+    @Autowired
+    private RoomExecutor roomExecutor;
+
+    @Autowired
+    private GameResultWriter gameResultWriter;
+
+    @Autowired
+    private MoveJournal moveJournal;
+
+    @Autowired
+    private WebsocketSessionTask websocketSessionTask;
+
+    @Autowired
+    private ClockProperties clockProperties;
+
+    @Autowired
+    private TimingWheel roomTimer;
+
+    @Autowired
+    private FrameRateLimiter frameRateLimiter;
     
 
-    // Use ConcurrentHashMap to store the room ID and the associated user information
-    private static ConcurrentHashMap<Long, ConcurrentHashMap<Long, OnlineFiveActor>> roomSessions = new ConcurrentHashMap<>();
-    // Store the chessboard for each room
-    private static ConcurrentHashMap<Long, Integer[][]> roomBoards = new ConcurrentHashMap<>();
+    // The open rooms, each with its seats, spectators, board and event log
+    private static final RoomRegistry rooms = new RoomRegistry();
+    // The rooms with events or a room count held back for the next spectator tick, each queued
+    // once until it is flushed
+    private static final Queue<Room> dirtyRooms = new ConcurrentLinkedQueue<>();
 
 
     // Expose for server performance monitoring module access
-    public ConcurrentHashMap<Long, ConcurrentHashMap<Long, OnlineFiveActor>> getRoomSessions() {
-        return roomSessions;
+    public RoomRegistry getRooms() {
+        return rooms;
     }
 
-    public ConcurrentHashMap<Long, Integer[][]> getRoomBoards() {
-        return roomBoards;
+    private ObjectMapper objectMapper = new ObjectMapper(); // Object mapper for Jackson
+
+    private static final String DECODER_KEY = MessageDecoder.class.getName();
+    private static final String OUTBOX_KEY = SessionOutbox.class.getName();
+    private static final String LIMITS_KEY = FrameRateLimiter.SessionLimits.class.getName();
+
+    // Set when the application stops: the sessions it closes then leave their games to the journal
+    private volatile boolean stopping;
+
+
+    // Rebuilds the rooms of the games the journal recovered, their seats kept for their players
+    @PostConstruct
+    public void recoverRooms() {
+        for (MoveJournal.Game game : moveJournal.recovered()) {
+            Room room = rooms.computeIfAbsent(game.roomId(), id -> new Room(id, websocketProperties.getResumeBufferSize()));
+            GameBoard board = new BitGameBoard();
+            // The journal has no times, the recovered moves count as played at the restart
+            GameRecord record = new GameRecord(System.currentTimeMillis());
+            for (int move : game.moves()) {
+                int point = move & 0xff;
+                int x = point / GameBoard.SIZE;
+                int y = point % GameBoard.SIZE;
+                if (board.place(x, y, move >> 8)) {
+                    record.add(x, y, move >> 8, System.currentTimeMillis());
+                }
+            }
+            room.setBoard(board);
+            room.setRecord(record);
+            room.setGameId(game.gameId());
+            // Nor does it have the clocks: the game goes on under the default time control, both
+            // players with their full time
+            room.setTimeControl(clockProperties.defaults());
+            room.setGameStartMillis(System.currentTimeMillis());
+            room.touch(System.currentTimeMillis());
+            room.setAi(game.ai());
+            room.hold(Role.BLACK, game.blackId());
+            if (!game.ai()) {
+                room.hold(Role.WHITE, game.whiteId());
+            }
+        }
+        if (!moveJournal.recovered().isEmpty()) {
+            log.info("Recovered {} games in progress from the journal", moveJournal.recovered().size());
+        }
     }
 
-    private ObjectMapper objectMapper = new ObjectMapper(); // Object mapper for Jackson
+    // The recovered rooms are closed like any other if their players do not come back
+    @EventListener(ApplicationReadyEvent.class)
+    public void watchRecoveredRooms() {
+        for (MoveJournal.Game game : moveJournal.recovered()) {
+            Room room = rooms.get(game.roomId());
+            if (room != null) {
+                websocketSessionTask.watch(room);
+                startClock(room, room.getBoard().stoneCount() % 2 == 0 ? GameBoard.BLACK : GameBoard.WHITE);
+            }
+        }
+    }
+
+    @EventListener(ContextClosedEvent.class)
+    public void onApplicationStopping() {
+        stopping = true;
+    }
 
 
-    // This method is used to establish a connection
+    // Each room is a single writer: the endpoint only posts what happens to the room's mailbox on the
+    // room executor, and a Room is only touched by the room's tasks
     @OnOpen
     public void onOpen(Session session, @PathParam("roomId") Long roomId, @PathParam("userId") Long userId) {
-        roomSessions.putIfAbsent(roomId, new ConcurrentHashMap<>()); // Ensure the room exists
-        ConcurrentHashMap<Long, OnlineFiveActor> usersInRoom = roomSessions.get(roomId);
+        roomExecutor.execute(roomId, () -> openInRoom(session, roomId, userId));
+    }
+
+    // Seats the user, or offers to watch once both seats are taken
+    private void openInRoom(Session session, long roomId, long userId) {
+        Room room = rooms.get(roomId);
+        if (room == null) {
+            room = rooms.computeIfAbsent(roomId, id -> new Room(id, websocketProperties.getResumeBufferSize()));
+            websocketSessionTask.watch(room);
+        }
+        room.touch(System.currentTimeMillis());
         log.info("The room id is: {}, the user is {}, onOpen()", roomId, userId);
-        // Handle new connection based on the number of existing users in the room
-        switch (usersInRoom.size()) {
-            case 0 -> initializeRoom(roomId, userId, session);
-            case 1 -> {
-                addUserToRoom(roomId, userId, session);
-                startGameInRoom(roomId);
+        Role held = room.heldSeatOf(userId);
+        if (held != null) {
+            resumePlayer(room, held, userId, session);
+        } else if (!room.isTaken(Role.BLACK)) {
+            initializeRoom(room, userId, session);
+            if (isAiMode(session)) {
+                // Against the AI the human plays black and the game starts right away
+                room.setAi(true);
+                startGameInRoom(room);
             }
-            default -> sendMessageForConfirm(session);
+        } else if (!room.isAi() && !room.isTaken(Role.WHITE)) {
+            addUserToRoom(room, userId, session);
+            startGameInRoom(room);
+        } else {
+            sendMessageForConfirm(session); // Both seats are taken, offer to watch
         }
     }
 
-    private void initializeRoom(Long roomId, Long userId, Session session) {
-        Integer[][] board = new Integer[15][15];
-        for (Integer[] row : board) {
-            Arrays.fill(row, 0); // Initialize the board
+    // A player back in a game recovered from the journal, or after being cut off, gets its role,
+    // then the board
+    private void resumePlayer(Room room, Role role, long userId, Session session) {
+        cancelGrace(room, role);
+        room.seat(role, userId, session);
+        log.info("User {} resumed the game of room {} as {}", userId, room.getId(), role.getName());
+        sendUserActorMessage(session, room, role, userId);
+        sendToAllUserForObserver(room, userId, session, room.eventLog().lastSeq());
+        sendToAllUserForRoomCount(room);
+        // Black has played one stone more: the AI owes its answer
+        if (room.isAi() && room.getBoard().stoneCount() % 2 == 1) {
+            playAiMove(room);
         }
-        roomBoards.put(roomId, board); // Store the board
-
-        roomSessions.get(roomId).put(userId, new OnlineFiveActor("Joueur Noir", session));
-        log.info("The current room id is: {}, the user joining the room is {}, black", roomId, userId);
     }
 
-    private void addUserToRoom(Long roomId, Long userId, Session session) {
-        roomSessions.get(roomId).put(userId, new OnlineFiveActor("Joueur Blanc", session));
-        log.info("The current room id is: {}, the user joining the room is {}, white", roomId, userId);
+    private boolean isAiMode(Session session) {
+        List<String> mode = session.getRequestParameterMap().get("mode");
+        return mode != null && mode.contains(GameConstant.AI_MODE);
     }
 
-    private void startGameInRoom(Long roomId) {
-        ConcurrentHashMap<Long, OnlineFiveActor> map = roomSessions.get(roomId);
+    private void initializeRoom(Room room, long userId, Session session) {
+        room.setBoard(new BitGameBoard()); // Store an empty board
 
-        Long blackId = null;
-        Long whiteId = null;
-
-        for (Map.Entry<Long, OnlineFiveActor> entry : map.entrySet()) {
-            Long userId = entry.getKey();
-            OnlineFiveActor actor = entry.getValue();
+        room.seat(Role.BLACK, userId, session);
+        // The room's creator sets its time control
+        room.setTimeControl(TimeControl.of(session.getRequestParameterMap(), clockProperties.defaults(), clockProperties.getMaxMillis()));
+        log.info("The current room id is: {}, the user joining the room is {}, black, time control {}", room.getId(), userId, room.getTimeControl());
+    }
 
-            if ("Joueur Noir".equals(actor.getRole())) {
-                blackId = userId;
-            } else if ("Joueur Blanc".equals(actor.getRole())) {
-                whiteId = userId;
-            }
-        }
+    private void addUserToRoom(Room room, long userId, Session session) {
+        room.seat(Role.WHITE, userId, session);
+        log.info("The current room id is: {}, the user joining the room is {}, white", room.getId(), userId);
+    }
 
-        Session blackSession = map.get(blackId).getSession();
-        Session whiteSession = whiteId != null ? map.get(whiteId).getSession() : null;
+    private void startGameInRoom(Room room) {
+        Long blackId = room.playerId(Role.BLACK);
+        Long whiteId = room.isAi() ? GameConstant.AI_USER_ID : room.playerId(Role.WHITE);
+        Session blackSession = room.sessionOf(blackId);
+        Session whiteSession = room.isAi() ? null : room.sessionOf(whiteId);
 
         GameHistory gameHistory = GameHistory.builder()
-                .roomId(roomId)
+                .roomId(room.getId())
                 .whiteId(whiteId)
                 .blackId(blackId)
                 .beginTime(LocalDateTime.now())
                 .build();
         gameHistoryMapper.insert(gameHistory);
+        room.setGameId(gameHistory.getId());
+        room.setGameStartMillis(System.currentTimeMillis());
+        room.setRecord(new GameRecord(System.currentTimeMillis()));
+        moveJournal.gameStarted(room.getId(), gameHistory.getId(), blackId, whiteId, room.isAi());
+        startClock(room, GameBoard.BLACK);
 
         if (whiteSession != null) {
-            sendUserActorMessage(whiteSession, "Joueur Blanc", gameHistory.getId(),whiteId);
+            sendUserActorMessage(whiteSession, room, Role.WHITE, whiteId);
         }
-        sendUserActorMessage(blackSession, "Joueur Noir", gameHistory.getId(),blackId);
-        sendToAllUserForRoomCount(roomId);
+        sendUserActorMessage(blackSession, room, Role.BLACK, blackId);
+        sendToAllUserForRoomCount(room);
     }
 
 
     // This method is used to receive messages sent by the frontend
     @OnMessage
-    public void onMessage(Session session, @PathParam("roomId") Long roomId, @PathParam("userId") Long userId, String message) throws JsonProcessingException {
-        OnlineFiveMessage onlineFiveMessage = objectMapper.readValue(message, OnlineFiveMessage.class);
-        switch (onlineFiveMessage.getType()) {
-            case JOIN_ROOM -> handleJoinRoom(roomId, userId, session);
-            case CHAT_MESSAGE -> handleChatMessage(roomId, userId, onlineFiveMessage);
-            case MOVE -> handleMove(roomId, userId, onlineFiveMessage);
-            default -> log.warn("Unknown message type: {}", onlineFiveMessage.getType());
+    public void onMessage(Session session, @PathParam("roomId") Long roomId, @PathParam("userId") Long userId, String message) {
+        InboundMessage inbound;
+        try {
+            inbound = decoderOf(session).decode(message);
+        } catch (MessageFormatException e) {
+            log.warn("Rejected a malformed message from user {} in room {}: {}", userId, roomId, e.getMessage());
+            enforce(session, userId, limitsOf(session).malformed());
+            return;
+        }
+        if (admit(session, userId, inbound)) {
+            dispatch(session, roomId, userId, inbound);
         }
     }
 
-    private void handleChatMessage(Long roomId, Long userId, OnlineFiveMessage onlineFiveMessage) {
-        sendToAllUser(CHAT_MESSAGE, roomId, onlineFiveMessage.getMessage(), userId, onlineFiveMessage.getRole(), CONTINUE);
+    // Frames of the binary subprotocol, for the clients that negotiated it
+    @OnMessage
+    public void onBinaryMessage(Session session, @PathParam("roomId") Long roomId, @PathParam("userId") Long userId, ByteBuffer message) {
+        InboundMessage inbound;
+        try {
+            inbound = decoderOf(session).decode(message);
+        } catch (MessageFormatException e) {
+            log.warn("Rejected a malformed binary message from user {} in room {}: {}", userId, roomId, e.getMessage());
+            enforce(session, userId, limitsOf(session).malformed());
+            return;
+        }
+        if (admit(session, userId, inbound)) {
+            dispatch(session, roomId, userId, inbound);
+        }
+    }
+
+    // Whether the frame is within its session's and the node's budgets. Checked on the websocket
+    // thread, before anything is posted to the room.
+    private boolean admit(Session session, Long userId, InboundMessage inbound) {
+        return enforce(session, userId, limitsOf(session).admit(inbound.getType()));
+    }
+
+    private boolean enforce(Session session, Long userId, FrameRateLimiter.Verdict verdict) {
+        switch (verdict) {
+            case ACCEPT -> {
+                return true;
+            }
+            case CLOSE -> {
+                if (outboxOf(session).closeForPolicy()) {
+                    log.warn("Closing session {} of user {}, over its message budget. Total closed: {}",
+                            session.getId(), userId, frameRateLimiter.getClosedSessions().get());
+                }
+                return false;
+            }
+            default -> {
+                log.debug("Refused a frame of user {}: {}", userId, verdict);
+                return false;
+            }
+        }
+    }
+
+    // The decoder reuses its message, so the fields are read here before the task is posted. The
+    // role a message claims is not trusted, the room knows each user's role.
+    private void dispatch(Session session, Long roomId, Long userId, InboundMessage inbound) {
+        switch (inbound.getType()) {
+            case JOIN_ROOM -> {
+                long seq = inbound.getSeq();
+                long gameId = inbound.getGameId();
+                roomExecutor.execute(roomId, () -> handleJoinRoom(roomId, userId, session, seq, gameId));
+            }
+            case CHAT_MESSAGE -> {
+                String text = inbound.getMessage();
+                roomExecutor.execute(roomId, () -> handleChatMessage(roomId, userId, text));
+            }
+            case MOVE -> {
+                int x = inbound.getX();
+                int y = inbound.getY();
+                roomExecutor.execute(roomId, () -> handlePlayerMove(roomId, userId, x, y));
+            }
+            case RESIGN -> roomExecutor.execute(roomId, () -> handleResign(roomId, userId));
+            default -> log.warn("Unknown message type: {}", inbound.getType());
+        }
+    }
+
+    // The endpoint instance is shared, so each session keeps its own decoder. A session's messages
+    // arrive one at a time, which is all the decoder needs.
+    private static MessageDecoder decoderOf(Session session) {
+        return (MessageDecoder) session.getUserProperties().computeIfAbsent(DECODER_KEY, key -> new MessageDecoder());
+    }
+
+    private FrameRateLimiter.SessionLimits limitsOf(Session session) {
+        return (FrameRateLimiter.SessionLimits) session.getUserProperties().computeIfAbsent(LIMITS_KEY,
+                key -> frameRateLimiter.newSession());
+    }
+
+    // Every frame to a session goes through its outbox, so sends never block on the socket
+    private SessionOutbox outboxOf(Session session) {
+        return (SessionOutbox) session.getUserProperties().computeIfAbsent(OUTBOX_KEY, key -> new SessionOutbox(session,
+                websocketProperties.getOutboundHighWaterMark(), websocketProperties.getOutboundQueueLimit(),
+                websocketProperties.getSlowConsumerMillis()));
+    }
+
+    private void handleChatMessage(long roomId, long userId, String text) {
+        Room room = activeRoom(roomId);
+        Role role = room == null ? null : room.roleOf(userId);
+        if (role == null) {
+            log.warn("Ignoring chat of user {} outside room {}", userId, roomId);
+            return;
+        }
+        sendToAllUser(CHAT_MESSAGE, room, text, userId, role, CONTINUE);
     }
 
-    private void handleJoinRoom(Long roomId, Long userId, Session session) {
-        roomSessions.get(roomId).put(userId, new OnlineFiveActor("Spectateur", session));
-        sendToAllUserForRoomCount(roomId);
-        sendToAllUserForObserver(roomId, userId, session);
+    // A spectator that passes the sequence number of the last event it saw, after a reconnect,
+    // gets only the events it missed while the room's log still has them, else the whole board.
+    // The numbers start again with each game, so they only count in the game they were seen in.
+    private void handleJoinRoom(long roomId, long userId, Session session, long lastSeq, long lastGameId) {
+        Room room = activeRoom(roomId);
+        if (room == null) {
+            log.warn("User {} asked to watch room {}, which is closed", userId, roomId);
+            return;
+        }
+        RoomEventLog eventLog = room.eventLog();
+        synchronized (eventLog) {
+            // Under the log's lock no event can be published between joining and catching up
+            room.seat(Role.SPECTATOR, userId, session);
+            boolean sameGame = room.getGameId() != null && room.getGameId() == lastGameId;
+            List<OutboundFrame> missing = sameGame ? eventLog.since(lastSeq) : null;
+            if (missing != null) {
+                SessionOutbox outbox = outboxOf(session);
+                missing.forEach(frame -> frame.sendTo(outbox, objectMapper));
+                log.info("Resumed user {} in room {} with {} missed events", userId, roomId, missing.size());
+            } else {
+                sendToAllUserForObserver(room, userId, session, eventLog.lastSeq());
+            }
+        }
+        sendToAllUserForRoomCount(room);
         log.info("The current room id is: {}, the user joining the room is {} and is an Observer", roomId, userId);
     }
 
-    private void printBoards(Long roomId) {
-        Integer[][] board = roomBoards.get(roomId);
+    private void printBoards(Room room) {
+        GameBoard board = room.getBoard();
 
         StringBuilder sb = new StringBuilder();
         sb.append("\n");
 
-        for (Integer[] integers : board) {
-            for (Integer integer : integers) {
-                sb.append(integer == null ? "-" : integer).append(" ");
+        for (int x = 0; x < GameBoard.SIZE; x++) {
+            for (int y = 0; y < GameBoard.SIZE; y++) {
+                sb.append(board.get(x, y)).append(" ");
             }
             sb.append("\n");
         }
         log.info("board:" + sb);
     }
 
-    private void handleMove(Long roomId, Long userId, OnlineFiveMessage onlineFiveMessage) {
+    private void handlePlayerMove(long roomId, long userId, int x, int y) {
+        Room room = activeRoom(roomId);
+        Role role = room == null ? null : room.roleOf(userId);
+        if (role == null || !role.isPlayer() || !isGameRunning(room)) {
+            log.warn("Ignoring move of user {} in room {}", userId, roomId);
+            return;
+        }
+        // Also keeps the human from playing on while the AI is searching its answer
+        if (role.stoneColor() != colorToMove(room)) {
+            log.warn("Ignoring move of user {} in room {}, not the turn of {}", userId, roomId, role.getName());
+            return;
+        }
+        handleMove(room, userId, role, x, y);
+    }
+
+    private void handleMove(Room room, long userId, Role role, int x, int y) {
         try {
-            GameResult gameResult = updateBoardAndCheckGameState(roomId, onlineFiveMessage);
+            // A stone off the board or on an occupied point is no move: nothing is charged,
+            // checked, broadcast or answered
+            if (!GameBoard.isValidPoint(x, y) || room.getBoard().get(x, y) != GameBoard.EMPTY) {
+                log.warn("Ignoring move of user {} in room {} on ({}, {}), not a free point", userId, room.getId(), x, y);
+                return;
+            }
+            GameClock clock = room.getClock();
+            if (clock != null && !clock.moved(role.stoneColor(), System.currentTimeMillis())) {
+                // The move came after the player's flag fell, before the timeout had fired
+                flagFall(room, role);
+                return;
+            }
+            GameResult gameResult = updateBoardAndCheckGameState(room, role, x, y);
+            if (gameResult == null) {
+                return;
+            }
 
             if (gameResult == GameResult.CONTINUE) {
-                broadcastMove(roomId, userId, onlineFiveMessage);
+                scheduleFlag(room);
+                broadcastMove(room, userId, role, x, y);
+                if (room.isAi() && userId != GameConstant.AI_USER_ID) {
+                    playAiMove(room);
+                }
             } else {
-                concludeGame(roomId, userId, gameResult, onlineFiveMessage);
+                concludeGame(room, gameResult, seq -> new RoomEventVO.Move(MOVE.getValue(), seq, userId, role, x, y, gameResult.getValue()));
             }
         } catch (Exception e) {
             log.error("Error handling move: ", e);
@@ -184,126 +483,378 @@ public class OnlineFiveServer {
         }
     }
 
-    private GameResult updateBoardAndCheckGameState(Long roomId, OnlineFiveMessage onlineFiveMessage) {
-        // Assuming you have a method to parse the message and update the board.
-        // Also assuming FiveGameUtil.isGameOver now returns an instance of GameResult.
-        updateBoard(roomId, onlineFiveMessage);
-        return FiveGameUtil.isGameOver(roomBoards.get(roomId));
+    // Lets the AI answer the human's move. The position is copied here and searched on the AI move
+    // executor, never on a websocket thread; the stone then goes through the same path as a player's.
+    private void playAiMove(Room room) {
+        GameBoard board = room.getBoard();
+        if (board == null || room.isConcluding()) {
+            return;
+        }
+        long roomId = room.getId();
+        int search = room.nextAiSearch();
+        long deadline = System.currentTimeMillis() + aiProperties.getMoveDeadlineMillis();
+        ChessBoardEvaluator evaluator = new ChessBoardEvaluator(board, aiProperties.getMaxDepth(),
+                ChessBoardEvaluator.WHITE, aiProperties.getTimeBudgetMillis(), aiProperties.getTableSizeBits())
+                .withTables(transpositionTablePool)
+                .withThreads(searchThreadPool, aiProperties.getThreadsPerSearch())
+                .withOpeningBook(openingBook, aiProperties.getBookPlies())
+                .withDeadline(deadline);
+        boolean queued = aiMoveExecutor.submit(roomId, () -> {
+            GameAIMessageVO aiMove = evaluator.work();
+            if (!Thread.currentThread().isInterrupted()) {
+                roomExecutor.execute(roomId, () -> {
+                    // A room torn down or restarted meanwhile must not get the stone, nor a search
+                    // overtaken by a later one, whose result may already be posted
+                    if (rooms.get(roomId) == room && room.getBoard() == board && room.getAiSearch() == search) {
+                        postAiMove(room, aiMove);
+                    }
+                });
+            }
+        });
+        if (!queued) {
+            // Every AI thread is busy and the queue is full: the room thread never searches itself,
+            // the move is queued again a little later
+            log.warn("AI move queue full, retrying the move of room {} in {} ms", roomId, aiProperties.getMoveRetryMillis());
+            roomTimer.schedule(aiProperties.getMoveRetryMillis(), () -> inRoom(room, () -> {
+                // Unless the game ended or the AI played meanwhile
+                if (room.getBoard() == board && colorToMove(room) == GameBoard.WHITE) {
+                    playAiMove(room);
+                }
+            }));
+        }
+    }
+
+    private void postAiMove(Room room, GameAIMessageVO aiMove) {
+        log.info("AI move in room {}: {}", room.getId(), aiMove);
+        // The same check as the retry: the AI only ever plays its own turn, in a game still running
+        if (aiMove.getAIPieces() == null || room.isConcluding() || colorToMove(room) != GameBoard.WHITE) {
+            return;
+        }
+        handleMove(room, GameConstant.AI_USER_ID, Role.WHITE, aiMove.getAIPieces().getX(), aiMove.getAIPieces().getY());
+    }
+
+    private void handleResign(long roomId, long userId) {
+        Room room = activeRoom(roomId);
+        Role role = room == null ? null : room.roleOf(userId);
+        if (role == null || !isGameRunning(room) || !role.isPlayer()) {
+            log.warn("Ignoring resignation of user {} in room {}", userId, roomId);
+            return;
+        }
+        resign(room, userId, role);
+    }
+
+    // The other player wins. The result says whether the winner already had a forced win, which
+    // tells a resignation in a lost position apart from one in an open game. That search runs on
+    // the AI move executor, never on the room's thread; the game takes no more moves meanwhile and
+    // is concluded when the answer is back, with the clocks stopped so the resigner cannot win on
+    // time meanwhile. With the AI queue full the search is skipped.
+    private void resign(Room room, long userId, Role role) {
+        if (room.isConcluding()) {
+            return; // Decided already, the other player resigned or forfeited first
+        }
+        GameResult gameResult = role == Role.BLACK ? WHITE_WIN : BLACK_WIN;
+        GameBoard position = room.getBoard().copy();
+        room.setConcluding(true);
+        if (room.getFlagTimeout() != null) {
+            room.getFlagTimeout().cancel();
+        }
+        boolean queued = aiMoveExecutor.submit(room.getId(), () -> {
+            boolean forcedWin = ThreatSolver.isForcedWin(position, gameResult.getValue());
+            // An expiry meanwhile has concluded the game already
+            inRoom(room, () -> concludeResignation(room, userId, role, forcedWin));
+        });
+        if (!queued) {
+            concludeResignation(room, userId, role, false);
+        }
     }
 
-    private void updateBoard(Long roomId, OnlineFiveMessage onlineFiveMessage) {
-        Integer[][] board = roomBoards.get(roomId);// Get the board corresponding to this room
-        // Update the board state
-        String steps = onlineFiveMessage.getMessage();
-        String cleanedSteps = steps.replaceAll("[()]", ""); // Remove parentheses
-        String[] split = cleanedSteps.split(","); // Split by comma
-        int color = Objects.equals(onlineFiveMessage.getRole(), "Joueur Noir") ? 1 : 2;// Get the color
-        board[Integer.parseInt(split[0])][Integer.parseInt(split[1])] = color;// Update the state of the board
+    private void concludeResignation(Room room, long userId, Role role, boolean forcedWin) {
+        boolean blackResigns = role == Role.BLACK;
+        GameResult gameResult = blackResigns ? WHITE_WIN : BLACK_WIN;
+        log.info("User {} resigned in room {}, forced win for the opponent: {}", userId, room.getId(), forcedWin);
+        concludeGame(room, gameResult, seq -> new RoomEventVO.Game(RESIGN.getValue(), seq, userId,
+                blackResigns ? Role.WHITE : Role.BLACK, // The winner, as for a winning move
+                forcedWin ? GameConstant.RESIGN_FORCED_WIN : GameConstant.RESIGN_OPEN, gameResult.getValue()));
     }
 
-    private void broadcastMove(Long roomId, Long userId, OnlineFiveMessage onlineFiveMessage) {
-        sendToAllUser(MOVE, roomId, onlineFiveMessage.getMessage(), userId, onlineFiveMessage.getRole(), CONTINUE);
+    // Starts the clocks of a game with a time control, color's clock running
+    private void startClock(Room room, int color) {
+        if (room.getTimeControl().kind() == TimeControl.Kind.NONE) {
+            return;
+        }
+        room.setClock(new GameClock(room.getTimeControl(), color, System.currentTimeMillis()));
+        scheduleFlag(room);
+    }
+
+    // One timeout per running game on the room timer, due when the player to move runs out of time.
+    // A move replaces it; a timeout that fires anyway for a turn already over is ignored.
+    private void scheduleFlag(Room room) {
+        GameClock clock = room.getClock();
+        if (clock == null) {
+            return;
+        }
+        TimingWheel.Timeout previous = room.getFlagTimeout();
+        if (previous != null) {
+            previous.cancel();
+        }
+        long turn = clock.turn();
+        // Just past the end of the time, so the flag has fallen when it fires
+        long delay = Math.max(0, clock.timeLeft(System.currentTimeMillis())) + 1;
+        room.setFlagTimeout(roomTimer.schedule(delay, () -> inRoom(room, () -> checkFlag(room, clock, turn))));
+    }
+
+    // On the room's executor
+    private void checkFlag(Room room, GameClock clock, long turn) {
+        if (room.isConcluding()) {
+            return; // Decided already, a flag falling now changes nothing
+        }
+        // A recovered game waiting for its players keeps its clock running all the same
+        if (room.getClock() != clock || clock.turn() != turn) {
+            return;
+        }
+        if (clock.isFlagged(System.currentTimeMillis())) {
+            flagFall(room, clock.toMove() == GameBoard.BLACK ? Role.BLACK : Role.WHITE);
+        } else {
+            scheduleFlag(room);
+        }
     }
 
-    private void concludeGame(Long roomId, Long userId, GameResult gameResult, OnlineFiveMessage onlineFiveMessage) {
+    // The player out of time loses, as if resigning
+    private void flagFall(Room room, Role loser) {
+        boolean blackLoses = loser == Role.BLACK;
+        GameResult gameResult = blackLoses ? WHITE_WIN : BLACK_WIN;
+        long loserId = room.isAi() && loser == Role.WHITE ? GameConstant.AI_USER_ID : room.seatHolder(loser);
+        log.info("The flag of {} fell in room {}", loser.getName(), room.getId());
+        concludeGame(room, gameResult, seq -> new RoomEventVO.Game(RESIGN.getValue(), seq, loserId,
+                blackLoses ? Role.WHITE : Role.BLACK, GameConstant.RESIGN_TIMEOUT, gameResult.getValue()));
+    }
+
+    // The clock keeps the turn; without one black is to move when the stones are even
+    private int colorToMove(Room room) {
+        GameClock clock = room.getClock();
+        if (clock != null) {
+            return clock.toMove();
+        }
+        return room.getBoard().stoneCount() % 2 == 0 ? GameBoard.BLACK : GameBoard.WHITE;
+    }
+
+    // A game runs from the moment both seats are taken until it is decided, a seat kept for a
+    // player who is away still counts as taken
+    private boolean isGameRunning(Room room) {
+        return room.getBoard() != null && !room.isConcluding() && (room.isAi() || room.isTaken(Role.WHITE));
+    }
+
+    // Null if the stone could not be placed
+    private GameResult updateBoardAndCheckGameState(Room room, Role role, int x, int y) {
+        int color = role.stoneColor();
+        if (!room.getBoard().place(x, y, color)) {
+            return null;
+        }
+        moveJournal.moved(room.getId(), room.getGameId(), x, y, color);
+        room.getRecord().add(x, y, color, System.currentTimeMillis());
+        // Only the lines through the stone just placed can end the game
+        return FiveGameUtil.isGameOver(room.getBoard(), x, y, color);
+    }
+
+    private void broadcastMove(Room room, long userId, Role role, int x, int y) {
+        broadcast(room, seq -> new RoomEventVO.Move(MOVE.getValue(), seq, userId, role, x, y, CONTINUE.getValue()));
+    }
+
+    private void concludeGame(Room room, GameResult gameResult, LongFunction<RoomEventVO> finalEvent) {
         // Handle game conclusion, update records, send final messages etc.
-        handleGameOverActions(roomId, userId, gameResult ,onlineFiveMessage);
-        clearRoomAfterGame(roomId);
+        handleGameOverActions(room, gameResult, finalEvent);
+        clearRoomAfterGame(room);
     }
 
-    private void handleGameOverActions(Long roomId, Long userId, GameResult gameResult, OnlineFiveMessage onlineFiveMessage) {
+    private void handleGameOverActions(Room room, GameResult gameResult, LongFunction<RoomEventVO> finalEvent) {
         // Record the game history
-        recordGameHistory(gameResult);
+        recordGameHistory(room, gameResult);
 
         // Send final state message to all users
-        sendToAllUser(MOVE, roomId, onlineFiveMessage.getMessage(), userId, onlineFiveMessage.getRole(), gameResult);
+        broadcast(room, finalEvent);
 
         // Update user statistics
-        updateUsersStatistics(roomId, gameResult);
+        updateUsersStatistics(room, gameResult);
     }
 
-    private void recordGameHistory(GameResult gameResult) {
+    private void recordGameHistory(Room room, GameResult gameResult) {
         GameHistory gameHistory = GameHistory.builder()
+                .id(room.getGameId())
                 .endTime(LocalDateTime.now())
                 .gameResult(gameResult.getValue())
+                .moves(room.getRecord() == null ? null : room.getRecord().toByteArray())
                 .build();
-        gameHistoryMapper.update(gameHistory);
+        gameResultWriter.recordResult(gameHistory);
+    }
+
+    // Only the players' counts move; the writer adds the increments in the database
+    private void updateUsersStatistics(Room room, GameResult gameResult) {
+        playerStatistics(room, gameResult).forEach(gameResultWriter::addStatistics);
     }
 
-    private void updateUsersStatistics(Long roomId, GameResult gameResult) {
-        ConcurrentHashMap<Long, OnlineFiveActor> actors = roomSessions.get(roomId);
-        actors.keySet().forEach(actorUserId -> {
-            UserSelectByIdVO userInfo = userMapper.selectUserById(actorUserId);
-            User user = User.builder()
-                    .id(actorUserId)
-                    .game_total_counts(userInfo.getGame_total_counts() + 1)
-                    .build();
+    // The statistics of the game's two players, whether still connected or not: a player who
+    // resigned and left, or whose seat is only kept for them, still gets the game counted
+    static List<UserStatisticsDTO> playerStatistics(Room room, GameResult gameResult) {
+        List<UserStatisticsDTO> list = new ArrayList<>(2);
+        for (Role role : new Role[]{Role.BLACK, Role.WHITE}) {
+            long userId = room.seatHolder(role);
+            if ((room.isAi() && role == Role.WHITE) || userId == GameConstant.AI_USER_ID) {
+                continue;
+            }
+            UserStatisticsDTO statistics = new UserStatisticsDTO();
+            statistics.setUserId(userId);
+            statistics.setTotal(1);
 
             // Determine win/lose/draw count increment based on game result and user role
             switch (gameResult) {
                 case BLACK_WIN:
                 case WHITE_WIN:
-                    if ((gameResult == BLACK_WIN && actors.get(actorUserId).getRole().equals("Joueur Noir")) ||
-                            (gameResult == WHITE_WIN && actors.get(actorUserId).getRole().equals("Joueur Blanc"))) {
-                        user.setGame_success_counts(userInfo.getGame_success_counts() + 1);
+                    if ((gameResult == BLACK_WIN && role == Role.BLACK) ||
+                            (gameResult == WHITE_WIN && role == Role.WHITE)) {
+                        statistics.setSuccess(1);
                     } else {
-                        user.setGame_fail_counts(userInfo.getGame_fail_counts() + 1);
+                        statistics.setFail(1);
                     }
                     break;
                 case DRAW:
-                    user.setGame_dead_heat_counts(userInfo.getGame_dead_heat_counts() + 1);
+                    statistics.setDeadHeat(1);
                     break;
                 default:
                     // No action needed for CONTINUE
                     break;
             }
 
-            userMapper.update(user);
-        });
+            list.add(statistics);
+        }
+        return list;
     }
+
     @OnClose
-    public void onClose(@PathParam("roomId") Long roomId, @PathParam("userId") Long userId) {
+    public void onClose(Session session, @PathParam("roomId") Long roomId, @PathParam("userId") Long userId) {
         log.info("User {} left room {}", userId, roomId);
+        outboxOf(session).close(); // Nothing more can be written to this session
+        roomExecutor.execute(roomId, () -> leaveRoom(session, roomId, userId));
+    }
+
+    private void leaveRoom(Session session, long roomId, long userId) {
 
         // Retrieve the room and check if it exists
-        ConcurrentHashMap<Long, OnlineFiveActor> roomActors = roomSessions.get(roomId);
-        if (roomActors == null) {
+        Room room = rooms.get(roomId);
+        if (room == null) {
             log.warn("Room {} does not exist.", roomId);
             return;
         }
 
         // Check the role of the leaving user
-        OnlineFiveActor leavingActor = roomActors.get(userId);
-        if (leavingActor == null) {
+        Role role = room.roleOf(userId);
+        if (role == null || room.sessionOf(userId) != session) {
             log.warn("User {} not found in room {}.", userId, roomId);
             return;
         }
-        String role = leavingActor.getRole();
 
-        if (!"Spectateur".equals(role)) {
+        if (role.isPlayer() && isGameRunning(room) && stopping) {
+            // The application is stopping: the game stays in the journal, resumed after the restart
+            room.remove(userId);
+            room.hold(role, userId);
+        } else if (role.isPlayer() && isGameRunning(room)) {
+            // A player leaving on purpose resigns first; one cut off by the network gets a while to
+            // come back before the game is lost
+            holdSeat(room, role, userId);
+        } else if (role.isPlayer() && room.isConcluding()) {
+            // The end of the game is on its way, it clears the room
+            room.remove(userId);
+            sendToAllUserForRoomCount(room);
+        } else if (role.isPlayer()) {
             // If the user is not an observer, clear the room for the next game.
-            clearRoomAfterGame(roomId);
+            clearRoomAfterGame(room);
             log.info("Cleared room {} after a player left.", roomId);
         } else {
             // If the user is an observer, just remove the user from the room.
-            roomActors.remove(userId);
-            sendToAllUserForRoomCount(roomId);
+            room.remove(userId);
+            sendToAllUserForRoomCount(room);
             log.info("Removed observer {} from room {}. Updated room count.", userId, roomId);
         }
     }
 
-    private void clearRoomAfterGame(Long roomId)     {
-        // Clear the room's state for the next game.
-        ConcurrentHashMap<Long, OnlineFiveActor> room = roomSessions.get(roomId);
+    // Keeps the seat of a player cut off from a running game. If the player is not back within the
+    // grace period, the game is forfeited as a resignation, which also clears the room.
+    private void holdSeat(Room room, Role role, long userId) {
+        room.remove(userId);
+        room.hold(role, userId);
+        sendToAllUserForRoomCount(room);
+        log.info("User {} was cut off from the game of room {}, keeping the seat for {} ms", userId, room.getId(),
+                websocketProperties.getReconnectGraceMillis());
+        room.setGraceTimeout(role, roomTimer.schedule(websocketProperties.getReconnectGraceMillis(), () -> inRoom(room, () -> {
+            if (room.heldSeatOf(userId) == role) {
+                room.setGraceTimeout(role, null);
+                resign(room, userId, role);
+            }
+        })));
+    }
+
+    private static void cancelGrace(Room room, Role role) {
+        TimingWheel.Timeout grace = room.getGraceTimeout(role);
+        if (grace != null) {
+            grace.cancel();
+            room.setGraceTimeout(role, null);
+        }
+    }
+
+    // Closes a room that has run for too long or sat idle. A game still running there ends in a
+    // draw, so its record gets its end and result like any other.
+    public void expireRoom(Room room) {
+        inRoom(room, () -> {
+            if (room.getGameId() != null && room.getBoard() != null) {
+                log.info("Ending the unfinished game {} of room {} in a draw", room.getGameId(), room.getId());
+                concludeGame(room, DRAW, seq -> new RoomEventVO.Game(RESIGN.getValue(), seq, null, null,
+                        GameConstant.RESIGN_ABANDONED, DRAW.getValue()));
+            } else {
+                clearRoomAfterGame(room);
+            }
+        });
+    }
+
+    // Runs the task on the room's executor unless the room has been closed by then
+    public void inRoom(Room room, Runnable task) {
+        roomExecutor.execute(room.getId(), () -> {
+            if (rooms.get(room.getId()) == room) {
+                task.run();
+            }
+        });
+    }
+
+    // The room, marked as active now, or null if it is closed
+    private Room activeRoom(long roomId) {
+        Room room = rooms.get(roomId);
         if (room != null) {
-            room.forEach((userId, actor) -> {
-                actor.closeSession(); // Try to close each session safely.
-            });
-            room.clear();   // Clear all sessions and other information from the map.
+            room.touch(System.currentTimeMillis());
+        }
+        return room;
+    }
+
+    private void clearRoomAfterGame(Room room) {
+        // Clear the room's state for the next game.
+        if (!rooms.remove(room)) {
+            return; // Already cleared
+        }
+        if (room.getGameId() != null) {
+            moveJournal.gameEnded(room.getId(), room.getGameId());
+        }
+        if (room.getFlagTimeout() != null) {
+            room.getFlagTimeout().cancel();
         }
-        roomBoards.remove(roomId); // Remove the board associated with the room.
-        roomSessions.remove(roomId);    // Remove the room from the sessions map.
-        log.info("Room {} has been cleared and ready for the next game.", roomId);
+        cancelGrace(room, Role.BLACK);
+        cancelGrace(room, Role.WHITE);
+        flushSpectators(room); // The spectators of a batched room still get the game's end
+        CloseReason gameOver = new CloseReason(CloseReason.CloseCodes.NORMAL_CLOSURE, "Game over");
+        room.forEachMember((userId, role, session) -> {
+            // Closed once the events already queued for it are written
+            outboxOf(session).closeWhenDrained(gameOver);
+        });
+        room.clear();
+        room.setBoard(null);
+        aiMoveExecutor.cancel(room.getId()); // Drop an AI move still being computed for the room
+        log.info("Room {} has been cleared and ready for the next game.", room.getId());
     }
 
     // This method is used to handle errors
@@ -313,80 +864,60 @@ public class OnlineFiveServer {
     }
 
     // This method is used to broadcast the change in the number of users in the room
-    private void sendToAllUserForRoomCount(Long roomId) {
-        ConcurrentHashMap<Long, OnlineFiveActor> sessionsMap = roomSessions.get(roomId);
-        if (sessionsMap == null) {
-            log.info("Room {} does not exist or has no sessions.", roomId);
+    private void sendToAllUserForRoomCount(Room room) {
+        if (batchesSpectators(room)) {
+            // A crowd joining or leaving is counted once, at the next spectator tick
+            if (room.eventLog().markRoomCountStale()) {
+                dirtyRooms.add(room);
+            }
             return;
         }
+        broadcastRoomCount(room);
+    }
 
-        log.info("Broadcasting room count change for room {}", roomId);
+    private void broadcastRoomCount(Room room) {
+
+        log.info("Broadcasting room count change for room {}", room.getId());
 
         List<GameActor> list = new ArrayList<>();
-        sessionsMap.forEach((userId, actor) -> {
-            UserSelectByIdVO userSelectByIdVO = userMapper.selectUserById(userId);
+        Map<Long, UserSelectByIdVO> profiles = userProfileCache.getAll(room.memberIds());
+        room.forEachMember((userId, role, session) -> {
+            UserSelectByIdVO userSelectByIdVO = profiles.get(userId);
             if (userSelectByIdVO != null) {
                 GameActor gameActor = new GameActor();
                 BeanUtils.copyProperties(userSelectByIdVO, gameActor);
-                gameActor.setRole(actor.getRole());
+                gameActor.setRole(role.getName());
                 list.add(gameActor);
             }
         });
-
-        Map<String, Object> map = new HashMap<>();
-        map.put("type", ROOM_COUNT_UPDATE.getValue());
-        map.put("actors", list);
-
-        String jsonText;
-        try {
-            jsonText = objectMapper.writeValueAsString(map);
-            log.debug("Broadcasting room count change text: {}", jsonText);
-
-            sessionsMap.values().forEach(actor -> {
-                try {
-                    actor.getSession().getBasicRemote().sendText(jsonText);
-                } catch (IOException e) {
-                    log.error("Error broadcasting room count change to user {}: {}", actor.getRole(), e.getMessage(), e);
-                }
-            });
-        } catch (JsonProcessingException e) {
-            log.error("Error serializing room count change message: {}", e.getMessage(), e);
+        if (room.isAi()) {
+            list.add(new GameActor(GameConstant.AI_USER_ID, Role.WHITE.getName(), GameConstant.AI_USERNAME));
         }
+
+        broadcast(room, seq -> new RoomEventVO.RoomCount(ROOM_COUNT_UPDATE.getValue(), seq, list));
     }
 
     // This method sends a message to the user to confirm entrance to the room and assign a role
-    private void sendUserActorMessage(Session session, String role, Long gameId ,Long userId) {
+    private void sendUserActorMessage(Session session, Room room, Role role, Long userId) {
         if (session != null && session.isOpen()) {
-            HashMap<String, Object> map = new HashMap<>();
-            map.put("userId", userId);
-            map.put("type", USER_ACTOR_CONFIRM.getValue());
-            map.put("role", role);
-            map.put("gameId", gameId);
-            try {
-                String jsonMessage = objectMapper.writeValueAsString(map);
-                log.info("Sending role confirmation message to the user: {}", jsonMessage);
-                session.getBasicRemote().sendText(jsonMessage);
-            } catch (IOException e) {
-                log.error("Exception occurred while sending role confirmation message to the user {}: {}",role,e.getMessage(), e);
-            }
+            OutboundFrame frame = new OutboundFrame(new RoomEventVO.RoleConfirm(USER_ACTOR_CONFIRM.getValue(), userId,
+                    role, room.getGameId(), room.getTimeControl()));
+            log.info("Sending role confirmation message to the user: {}", frame.text(objectMapper));
+            frame.sendTo(outboxOf(session), objectMapper);
         }
     }
 
     // This method sends a message to all observers
-    private void sendToAllUserForObserver(Long roomId, Long userId, Session session) {
+    private void sendToAllUserForObserver(Room room, long userId, Session session, long seq) {
         try {
             // Sending the message only to the newly added observers
-            // Assembling the data
-            HashMap<String, Object> map = new HashMap<>();
-            map.put("type", OBSERVER_UPDATE.getValue());
-            map.put("id", userId);
-            map.put("role", "Spectateur");
-            map.put("message", roomBoards.get(roomId));
-            GameResult gameOver = FiveGameUtil.isGameOver(roomBoards.get(roomId));
-            map.put("isGameOver", gameOver);
-            String jsonMessage = objectMapper.writeValueAsString(map);
+            GameBoard board = room.getBoard();
+            // A won game clears its room, so a live room can only be over by filling the board
+            GameResult gameOver = board != null && board.isFull() ? DRAW : CONTINUE;
+            // The board is serialized as the nested array the clients expect
             // Server sends the message to the client
-            session.getBasicRemote().sendText(jsonMessage);
+            send(session, new RoomEventVO.ObserverUpdate(OBSERVER_UPDATE.getValue(), seq, userId, Role.SPECTATOR, board, gameOver,
+                    room.getGameId()));
         } catch (Exception e) {
             log.error("An exception occurred during data transmission", e);
         }
@@ -397,40 +928,80 @@ public class OnlineFiveServer {
     // when the room's player count exceeds 2
     private void sendMessageForConfirm(Session session) {
         if (session != null && session.isOpen()) {
-            HashMap<String, Object> map = new HashMap<>();
-            map.put("type", WARNING.getValue());
-            try {
-                String jsonMessage = objectMapper.writeValueAsString(map);
-                session.getBasicRemote().sendText(jsonMessage);
-            } catch (IOException e) {
-                log.error("An error occurred while sending a warning message to the user", e);
-            }
+            send(session, new RoomEventVO.Warning(WARNING.getValue()));
         }
     }
 
 
     // This method is used to send messages to all users
-    public void sendToAllUser(MessageType type, Long roomId, String message, Long userId, String role, GameResult isGameOver) {
-        // Get all sessions in the current room
-        ConcurrentHashMap<Long, OnlineFiveActor> sessionsMap = roomSessions.get(roomId);
-        Collection<OnlineFiveActor> sessionUsers = sessionsMap.values();   // Get all values
-        for (OnlineFiveActor session : sessionUsers) {
-            try {
-                // Assemble data
-                HashMap<Object, Object> map = new HashMap<>();
-                map.put("type", type.getValue());
-                map.put("id", userId);
-                map.put("role", role);
-                map.put("message", message);
-                map.put("isGameOver", isGameOver.getValue());
-                String jsonMessage = objectMapper.writeValueAsString(map);
-                log.info("jsonMessage:{}", jsonMessage);
-                // Server sends message to client
-                session.getSession().getBasicRemote().sendText(jsonMessage);
-            } catch (Exception e) {
-                log.error("An exception occurred during data transmission");
+    private void sendToAllUser(MessageType type, Room room, String message, long userId, Role role, GameResult isGameOver) {
+        broadcast(room, seq -> new RoomEventVO.Game(type.getValue(), seq, userId, role, message, isGameOver.getValue()));
+    }
+
+    // Numbers the event in the room's log and queues it on every session in the room, encoded
+    // once per wire format in use. The log's lock keeps every session's events in sequence order.
+    // In a room with a large audience the spectators get the event with the next tick's batch.
+    private void broadcast(Room room, LongFunction<RoomEventVO> event) {
+        RoomEventLog eventLog = room.eventLog();
+        synchronized (eventLog) {
+            OutboundFrame frame = eventLog.append(event);
+            log.debug("Broadcasting to room {}: {}", room.getId(), frame.event());
+            boolean batched = batchesSpectators(room);
+            if (!batched) {
+                // Events held back before the audience shrank go out first
+                sendBatch(eventLog, room);
+            }
+            room.forEachMember((userId, role, session) -> {
+                if (!batched || role.isPlayer()) {
+                    frame.sendTo(outboxOf(session), objectMapper);
+                }
+            });
+            if (batched && eventLog.addPending(frame)) {
+                dirtyRooms.add(room);
             }
         }
     }
-}
 
+    private boolean batchesSpectators(Room room) {
+        int threshold = websocketProperties.getSpectatorBatchThreshold();
+        return threshold > 0 && room.size() >= threshold;
+    }
+
+    // Sends the events held back for the spectators as one frame. Called under the log's lock.
+    private void sendBatch(RoomEventLog eventLog, Room room) {
+        List<OutboundFrame> pending = eventLog.drainPending();
+        if (pending.isEmpty()) {
+            return;
+        }
+        SpectatorBatch batch = new SpectatorBatch(pending);
+        room.forEachSpectator((userId, role, session) -> batch.sendTo(outboxOf(session), objectMapper));
+    }
+
+    // One spectator tick: the coalesced room count of each batched room, then every event held
+    // back for its spectators since the last tick. Only the rooms that held something back since
+    // their last flush are visited.
+    public void flushSpectators() {
+        for (Room room; (room = dirtyRooms.poll()) != null; ) {
+            Room dirty = room;
+            inRoom(dirty, () -> flushSpectators(dirty));
+        }
+    }
+
+    private void flushSpectators(Room room) {
+        RoomEventLog eventLog = room.eventLogIfPresent();
+        if (eventLog == null) {
+            return;
+        }
+        eventLog.clean();
+        if (eventLog.takeRoomCountStale()) {
+            broadcastRoomCount(room);
+        }
+        synchronized (eventLog) {
+            sendBatch(eventLog, room);
+        }
+    }
+
+    private void send(Session session, RoomEventVO event) {
+        new OutboundFrame(event).sendTo(outboxOf(session), objectMapper);
+    }
+}
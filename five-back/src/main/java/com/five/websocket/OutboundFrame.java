@@ -0,0 +1,58 @@
+package com.five.websocket;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.five.pojo.vo.RoomEventVO;
+import com.five.utils.BinaryFrames;
+
+import java.nio.ByteBuffer;
+
+// An event on its way to one or more sessions. The JSON and binary forms are encoded on first
+// use and then shared by every session and every replay. Not thread-safe: a frame of a room's
+// event log is only used under the log's lock, any other frame by the thread that made it.
+final class OutboundFrame {
+
+    private final RoomEventVO event;
+    private String text;
+    private ByteBuffer binary;
+    private boolean binaryEncoded;
+
+    OutboundFrame(RoomEventVO event) {
+        this.event = event;
+    }
+
+    RoomEventVO event() {
+        return event;
+    }
+
+    String text(ObjectMapper objectMapper) {
+        if (text == null) {
+            try {
+                text = objectMapper.writeValueAsString(event);
+            } catch (JsonProcessingException e) {
+                // Events are plain records of strings, numbers and boards, this does not happen
+                throw new IllegalStateException("Cannot encode " + event.getClass().getSimpleName(), e);
+            }
+        }
+        return text;
+    }
+
+    // The binary subprotocol form, null when the event only has a JSON form
+    ByteBuffer binary() {
+        if (!binaryEncoded) {
+            binary = BinaryFrames.encode(event);
+            binaryEncoded = true;
+        }
+        return binary;
+    }
+
+    // Queues the frame in the form the session's client reads
+    void sendTo(SessionOutbox outbox, ObjectMapper objectMapper) {
+        ByteBuffer binaryForm = outbox.isBinary() ? binary() : null;
+        if (binaryForm != null) {
+            outbox.send(binaryForm);
+        } else {
+            outbox.send(text(objectMapper));
+        }
+    }
+}
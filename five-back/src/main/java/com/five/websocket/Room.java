@@ -0,0 +1,332 @@
+package com.five.websocket;
+
+import com.five.utils.GameBoard;
+import com.five.utils.GameClock;
+import com.five.utils.GameRecord;
+import com.five.utils.LongObjectMap;
+import com.five.utils.Role;
+import com.five.utils.TimeControl;
+import com.five.utils.TimingWheel;
+import jakarta.websocket.Session;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// One room: its two seats, its spectators, the board of its game and its event log. A room is only
+// touched by its own tasks on the RoomExecutor, which hands it from thread to thread safely, so it
+// needs no locking of its own. The spectators and the log are created when first needed, so a room
+// waiting for its second player is little more than this object and its board.
+public final class Room {
+
+    @FunctionalInterface
+    public interface MemberVisitor {
+        void visit(long userId, Role role, Session session);
+    }
+
+    private final long id;
+    private final int resumeBufferSize;
+    private long blackId;
+    private Session blackSession;
+    private long whiteId;
+    private Session whiteSession;
+    // Seats of a game recovered from the journal, or of a player cut off from the game, kept for
+    // their players until they reconnect
+    private boolean blackHeld;
+    private boolean whiteHeld;
+    // The timeouts on the room timer after which a player cut off from the game forfeits it
+    private TimingWheel.Timeout blackGrace;
+    private TimingWheel.Timeout whiteGrace;
+    private LongObjectMap<Session> spectators;
+    private GameBoard board;
+    // The white seat is played by the AI
+    private boolean ai;
+    // Counts the AI searches started for the room, only the result of the latest is played
+    private int aiSearch;
+    // The game is decided and its end on the way to the room, no more moves are played
+    private boolean concluding;
+    private Long gameId;
+    // The moves of the game so far, stored with its history when it ends
+    private GameRecord record;
+    // When the room last had a message, and when its game started, 0 before, for the reaper
+    private long lastActivityMillis;
+    private long gameStartMillis;
+    // The clocks of the game and the timeout of the current turn on the room timer
+    private TimeControl timeControl = TimeControl.NONE;
+    private GameClock clock;
+    private TimingWheel.Timeout flagTimeout;
+    private RoomEventLog eventLog;
+
+    public Room(long id, int resumeBufferSize) {
+        this.id = id;
+        this.resumeBufferSize = resumeBufferSize;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    // The user's role in the room, or null if the user is not in it
+    public Role roleOf(long userId) {
+        if (blackSession != null && blackId == userId) {
+            return Role.BLACK;
+        }
+        if (whiteSession != null && whiteId == userId) {
+            return Role.WHITE;
+        }
+        return spectators != null && spectators.get(userId) != null ? Role.SPECTATOR : null;
+    }
+
+    // The user in the seat, or null if it is free
+    public Long playerId(Role role) {
+        if (role == Role.BLACK) {
+            return blackSession != null ? blackId : null;
+        }
+        return role == Role.WHITE && whiteSession != null ? whiteId : null;
+    }
+
+    public Session sessionOf(long userId) {
+        Role role = roleOf(userId);
+        if (role == null) {
+            return null;
+        }
+        return switch (role) {
+            case BLACK -> blackSession;
+            case WHITE -> whiteSession;
+            case SPECTATOR -> spectators.get(userId);
+        };
+    }
+
+    public boolean isSeated(Role role) {
+        return switch (role) {
+            case BLACK -> blackSession != null;
+            case WHITE -> whiteSession != null;
+            case SPECTATOR -> spectators != null && !spectators.isEmpty();
+        };
+    }
+
+    // Keeps the seat for the user, who is not connected yet
+    public void hold(Role role, long userId) {
+        if (role == Role.BLACK) {
+            blackId = userId;
+            blackHeld = true;
+        } else if (role == Role.WHITE) {
+            whiteId = userId;
+            whiteHeld = true;
+        }
+    }
+
+    // The seat kept for the user, or null
+    public Role heldSeatOf(long userId) {
+        if (blackHeld && blackId == userId) {
+            return Role.BLACK;
+        }
+        return whiteHeld && whiteId == userId ? Role.WHITE : null;
+    }
+
+    // The user in the seat or the user it is kept for, whether connected or not
+    public long seatHolder(Role role) {
+        return role == Role.BLACK ? blackId : whiteId;
+    }
+
+    // Taken by a connected player or kept for one
+    public boolean isTaken(Role role) {
+        return role == Role.BLACK ? blackSession != null || blackHeld : whiteSession != null || whiteHeld;
+    }
+
+    // Gives the user the seat, or adds the user to the spectators
+    public void seat(Role role, long userId, Session session) {
+        switch (role) {
+            case BLACK -> {
+                blackId = userId;
+                blackSession = session;
+                blackHeld = false;
+            }
+            case WHITE -> {
+                whiteId = userId;
+                whiteSession = session;
+                whiteHeld = false;
+            }
+            case SPECTATOR -> {
+                if (spectators == null) {
+                    spectators = new LongObjectMap<>();
+                }
+                spectators.put(userId, session);
+            }
+        }
+    }
+
+    // Removes the user from the room and returns the session it had, or null
+    public Session remove(long userId) {
+        Role role = roleOf(userId);
+        if (role == null) {
+            return null;
+        }
+        Session session;
+        switch (role) {
+            case BLACK -> {
+                session = blackSession;
+                blackSession = null;
+            }
+            case WHITE -> {
+                session = whiteSession;
+                whiteSession = null;
+            }
+            default -> session = spectators.remove(userId);
+        }
+        return session;
+    }
+
+    public int size() {
+        return (blackSession != null ? 1 : 0) + (whiteSession != null ? 1 : 0) + spectatorCount();
+    }
+
+    public int spectatorCount() {
+        return spectators == null ? 0 : spectators.size();
+    }
+
+    // The players first, black then white, then the spectators
+    public void forEachMember(MemberVisitor visitor) {
+        if (blackSession != null) {
+            visitor.visit(blackId, Role.BLACK, blackSession);
+        }
+        if (whiteSession != null) {
+            visitor.visit(whiteId, Role.WHITE, whiteSession);
+        }
+        forEachSpectator(visitor);
+    }
+
+    public void forEachSpectator(MemberVisitor visitor) {
+        if (spectators != null) {
+            spectators.forEach((userId, session) -> visitor.visit(userId, Role.SPECTATOR, session));
+        }
+    }
+
+    public List<Long> memberIds() {
+        List<Long> ids = new ArrayList<>(size());
+        forEachMember((userId, role, session) -> ids.add(userId));
+        return ids;
+    }
+
+    // Empties the room
+    void clear() {
+        blackSession = null;
+        whiteSession = null;
+        blackHeld = false;
+        whiteHeld = false;
+        spectators = null;
+    }
+
+    public GameBoard getBoard() {
+        return board;
+    }
+
+    void setBoard(GameBoard board) {
+        this.board = board;
+    }
+
+    public boolean isAi() {
+        return ai;
+    }
+
+    void setAi(boolean ai) {
+        this.ai = ai;
+    }
+
+    // Starts a new AI search, making the results of the earlier ones stale
+    int nextAiSearch() {
+        return ++aiSearch;
+    }
+
+    int getAiSearch() {
+        return aiSearch;
+    }
+
+    boolean isConcluding() {
+        return concluding;
+    }
+
+    void setConcluding(boolean concluding) {
+        this.concluding = concluding;
+    }
+
+    public Long getGameId() {
+        return gameId;
+    }
+
+    void setGameId(Long gameId) {
+        this.gameId = gameId;
+    }
+
+    public GameRecord getRecord() {
+        return record;
+    }
+
+    void setRecord(GameRecord record) {
+        this.record = record;
+    }
+
+    public long getLastActivityMillis() {
+        return lastActivityMillis;
+    }
+
+    void touch(long nowMillis) {
+        lastActivityMillis = nowMillis;
+    }
+
+    public long getGameStartMillis() {
+        return gameStartMillis;
+    }
+
+    void setGameStartMillis(long gameStartMillis) {
+        this.gameStartMillis = gameStartMillis;
+    }
+
+    public TimeControl getTimeControl() {
+        return timeControl;
+    }
+
+    void setTimeControl(TimeControl timeControl) {
+        this.timeControl = timeControl;
+    }
+
+    public GameClock getClock() {
+        return clock;
+    }
+
+    void setClock(GameClock clock) {
+        this.clock = clock;
+    }
+
+    TimingWheel.Timeout getFlagTimeout() {
+        return flagTimeout;
+    }
+
+    void setFlagTimeout(TimingWheel.Timeout flagTimeout) {
+        this.flagTimeout = flagTimeout;
+    }
+
+    TimingWheel.Timeout getGraceTimeout(Role role) {
+        return role == Role.BLACK ? blackGrace : whiteGrace;
+    }
+
+    void setGraceTimeout(Role role, TimingWheel.Timeout timeout) {
+        if (role == Role.BLACK) {
+            blackGrace = timeout;
+        } else {
+            whiteGrace = timeout;
+        }
+    }
+
+    // The room's event log, created with its first event
+    RoomEventLog eventLog() {
+        if (eventLog == null) {
+            eventLog = new RoomEventLog(resumeBufferSize);
+        }
+        return eventLog;
+    }
+
+    // The log if the room has had an event
+    RoomEventLog eventLogIfPresent() {
+        return eventLog;
+    }
+}
@@ -0,0 +1,94 @@
+package com.five.websocket;
+
+import com.five.pojo.vo.RoomEventVO;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongFunction;
+
+// The room-wide events of one room, numbered from 1 in the order they are sent, with the most
+// recent ones kept in a ring so a client that reconnects gets only what it missed. Publishing an
+// event and replaying to a reconnecting session are both done holding the log's lock, so every
+// session sees its room's events in sequence order with no gap and no repeat.
+public final class RoomEventLog {
+
+    // The binary subprotocol sends the low byte of seq, which stays unambiguous within half its range
+    static final int MAX_CAPACITY = 128;
+
+    private final OutboundFrame[] ring;
+    private long lastSeq;
+    // Events not yet sent to the spectators of a room whose spectators get batches
+    private final List<OutboundFrame> pending = new ArrayList<>();
+    private boolean roomCountStale;
+    // Something is held back for the next tick since the last flush
+    private boolean dirty;
+
+    RoomEventLog(int capacity) {
+        this.ring = new OutboundFrame[Math.max(1, Math.min(capacity, MAX_CAPACITY))];
+    }
+
+    // Numbers the event made by the factory and keeps it. Hold the lock until it is sent.
+    synchronized OutboundFrame append(LongFunction<RoomEventVO> factory) {
+        long seq = ++lastSeq;
+        OutboundFrame frame = new OutboundFrame(factory.apply(seq));
+        ring[(int) (seq % ring.length)] = frame;
+        return frame;
+    }
+
+    synchronized long lastSeq() {
+        return lastSeq;
+    }
+
+    // The frames after seq, oldest first, or null when the ring no longer has all of them
+    synchronized List<OutboundFrame> since(long seq) {
+        if (seq < 0 || seq > lastSeq || lastSeq - seq > ring.length) {
+            return null;
+        }
+        List<OutboundFrame> missing = new ArrayList<>((int) (lastSeq - seq));
+        for (long next = seq + 1; next <= lastSeq; next++) {
+            missing.add(ring[(int) (next % ring.length)]);
+        }
+        return missing;
+    }
+
+    // True if the log had nothing held back before, so the room must be queued for the next tick
+    synchronized boolean addPending(OutboundFrame frame) {
+        pending.add(frame);
+        return markDirty();
+    }
+
+    // The events held back for the spectators since the last call, oldest first
+    synchronized List<OutboundFrame> drainPending() {
+        if (pending.isEmpty()) {
+            return List.of();
+        }
+        List<OutboundFrame> frames = new ArrayList<>(pending);
+        pending.clear();
+        return frames;
+    }
+
+    // Marks that the room count must be sent at the next tick. True as for addPending.
+    synchronized boolean markRoomCountStale() {
+        roomCountStale = true;
+        return markDirty();
+    }
+
+    // Called by the flush before it looks at what is held back: anything marked after this
+    // queues the room again
+    synchronized void clean() {
+        dirty = false;
+    }
+
+    private boolean markDirty() {
+        boolean wasDirty = dirty;
+        dirty = true;
+        return !wasDirty;
+    }
+
+    // Whether the room count was marked stale since the last call
+    synchronized boolean takeRoomCountStale() {
+        boolean stale = roomCountStale;
+        roomCountStale = false;
+        return stale;
+    }
+}
@@ -0,0 +1,124 @@
+package com.five.websocket;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
+
+import static com.five.utils.LongObjectMap.slot;
+
+// The open rooms by id, in one open-addressing table of Room references. A room knows its own id,
+// so a slot is a single reference and a lookup neither boxes the id nor follows an entry object.
+// Lookups take no lock and read the slots as volatiles; opening and removing rooms lock the
+// registry. A removed room leaves a tombstone that lookups probe past until the table is rebuilt,
+// and a rebuild publishes a new table, so a lookup in progress keeps a consistent one.
+public final class RoomRegistry {
+
+    private static final int MIN_CAPACITY = 16;
+    private static final Room TOMBSTONE = new Room(0, 1);
+
+    private volatile AtomicReferenceArray<Room> table = new AtomicReferenceArray<>(MIN_CAPACITY);
+    // Guarded by this
+    private int size;
+    // Slots holding a room or a tombstone, kept to at most half the table so probes always end
+    private int used;
+
+    public Room get(long id) {
+        AtomicReferenceArray<Room> slots = table;
+        int mask = slots.length() - 1;
+        for (int i = slot(id, mask); ; i = (i + 1) & mask) {
+            Room room = slots.get(i);
+            if (room == null) {
+                return null;
+            }
+            if (room != TOMBSTONE && room.getId() == id) {
+                return room;
+            }
+        }
+    }
+
+    // The room with this id, opened with the factory if there is none
+    public synchronized Room computeIfAbsent(long id, LongFunction<Room> factory) {
+        AtomicReferenceArray<Room> slots = table;
+        int mask = slots.length() - 1;
+        int free = -1;
+        int i = slot(id, mask);
+        for (Room room; (room = slots.get(i)) != null; i = (i + 1) & mask) {
+            if (room == TOMBSTONE) {
+                if (free < 0) {
+                    free = i;
+                }
+            } else if (room.getId() == id) {
+                return room;
+            }
+        }
+        Room room = factory.apply(id);
+        if (free >= 0) {
+            slots.set(free, room);
+        } else {
+            slots.set(i, room);
+            used++;
+        }
+        size++;
+        if (used * 2 > slots.length()) {
+            rebuild();
+        }
+        return room;
+    }
+
+    // Removes the room if it is still the one registered under its id
+    public synchronized boolean remove(Room room) {
+        AtomicReferenceArray<Room> slots = table;
+        int mask = slots.length() - 1;
+        for (int i = slot(room.getId(), mask); slots.get(i) != null; i = (i + 1) & mask) {
+            if (slots.get(i) == room) {
+                slots.set(i, TOMBSTONE);
+                size--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    // Slots of the current table, for footprint reporting
+    int capacity() {
+        return table.length();
+    }
+
+    // Visits the rooms open when the call starts; rooms opened or removed meanwhile may be missed
+    public void forEach(Consumer<Room> action) {
+        AtomicReferenceArray<Room> slots = table;
+        for (int i = 0; i < slots.length(); i++) {
+            Room room = slots.get(i);
+            if (room != null && room != TOMBSTONE) {
+                action.accept(room);
+            }
+        }
+    }
+
+    // Copies the rooms into a table a quarter full, which also drops the tombstones
+    private void rebuild() {
+        AtomicReferenceArray<Room> old = table;
+        int capacity = MIN_CAPACITY;
+        while (capacity < size * 4) {
+            capacity <<= 1;
+        }
+        AtomicReferenceArray<Room> slots = new AtomicReferenceArray<>(capacity);
+        int mask = capacity - 1;
+        for (int i = 0; i < old.length(); i++) {
+            Room room = old.get(i);
+            if (room != null && room != TOMBSTONE) {
+                int j = slot(room.getId(), mask);
+                while (slots.get(j) != null) {
+                    j = (j + 1) & mask;
+                }
+                slots.set(j, room);
+            }
+        }
+        used = size;
+        table = slots;
+    }
+}
@@ -0,0 +1,201 @@
+package com.five.websocket;
+
+import com.five.utils.BinaryFrames;
+import jakarta.websocket.CloseReason;
+import jakarta.websocket.SendHandler;
+import jakarta.websocket.SendResult;
+import jakarta.websocket.Session;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Outbound frames of one session. send() only queues the frame, and the queue is written through
+// the async remote one frame at a time, so a broadcast never waits on a slow socket. A session
+// whose queue stays over the high-water mark for too long, or reaches the hard limit, is closed
+// and counted as an eviction. Frames are Strings, sent as text, or read-only ByteBuffers of the
+// binary subprotocol that several sessions may share.
+@Slf4j
+public class SessionOutbox implements SendHandler {
+
+    private static final AtomicLong evictionCount = new AtomicLong(0);
+
+    private final Session session;
+    private final int highWaterMark;
+    private final int queueLimit;
+    private final long slowConsumerMillis;
+    private final boolean binary;
+
+    // Guarded by this
+    private final ArrayDeque<Object> queue = new ArrayDeque<>();
+    private boolean writing;
+    private boolean closed;
+    private CloseReason closeWhenDrained;
+    private long overMarkSince = -1;
+
+    public SessionOutbox(Session session, int highWaterMark, int queueLimit, long slowConsumerMillis) {
+        this.session = session;
+        this.highWaterMark = Math.max(1, highWaterMark);
+        this.queueLimit = Math.max(this.highWaterMark, queueLimit);
+        this.slowConsumerMillis = slowConsumerMillis;
+        this.binary = BinaryFrames.SUBPROTOCOL.equals(session.getNegotiatedSubprotocol());
+    }
+
+    // Whether the client negotiated the binary subprotocol
+    public boolean isBinary() {
+        return binary;
+    }
+
+    public static AtomicLong getEvictionCount() {
+        return evictionCount;
+    }
+
+    public void send(String frame) {
+        enqueue(frame);
+    }
+
+    public void send(ByteBuffer frame) {
+        enqueue(frame);
+    }
+
+    private void enqueue(Object frame) {
+        boolean evict = false;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            if (writing) {
+                queue.add(frame);
+                evict = isSlowConsumer();
+                frame = null;
+            } else {
+                writing = true;
+            }
+        }
+        if (evict) {
+            evict();
+        } else if (frame != null) {
+            write(frame);
+        }
+    }
+
+    // Drops whatever is still queued, for a session that is closing
+    public synchronized void close() {
+        closed = true;
+        closeWhenDrained = null;
+        queue.clear();
+    }
+
+    // Closes the session once the frames already queued are written, so a game's last events
+    // still reach it. Nothing more is queued after this call.
+    public void closeWhenDrained(CloseReason reason) {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (writing) {
+                closeWhenDrained = reason;
+                return;
+            }
+        }
+        closeSession(reason);
+    }
+
+    // Drops what is queued and closes the session of a client that broke the message budget. False
+    // if the session was already closing.
+    public boolean closeForPolicy() {
+        synchronized (this) {
+            if (closed) {
+                return false;
+            }
+            closed = true;
+            queue.clear();
+        }
+        closeSession(new CloseReason(CloseReason.CloseCodes.VIOLATED_POLICY, "Too many messages"));
+        return true;
+    }
+
+    public synchronized int queued() {
+        return queue.size();
+    }
+
+    @Override
+    public void onResult(SendResult result) {
+        Object next;
+        CloseReason drained = null;
+        synchronized (this) {
+            if (!result.isOK()) {
+                log.debug("Write to session {} failed: {}", session.getId(), String.valueOf(result.getException()));
+                closed = true;
+                closeWhenDrained = null;
+                queue.clear();
+            }
+            next = closed && closeWhenDrained == null ? null : queue.poll();
+            writing = next != null;
+            if (next == null && closeWhenDrained != null) {
+                drained = closeWhenDrained;
+                closeWhenDrained = null;
+            }
+            if (queue.size() <= highWaterMark) {
+                overMarkSince = -1;
+            }
+        }
+        if (next != null) {
+            write(next);
+        } else if (drained != null) {
+            closeSession(drained);
+        }
+    }
+
+    private void write(Object frame) {
+        try {
+            if (frame instanceof ByteBuffer buffer) {
+                // Each session reads the shared frame through its own position
+                session.getAsyncRemote().sendBinary(buffer.duplicate(), this);
+            } else {
+                session.getAsyncRemote().sendText((String) frame, this);
+            }
+        } catch (RuntimeException e) {
+            // The session was closed underneath us
+            onResult(new SendResult(e));
+        }
+    }
+
+    private boolean isSlowConsumer() {
+        int size = queue.size();
+        if (size <= highWaterMark) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        if (overMarkSince < 0) {
+            overMarkSince = now;
+        }
+        return size >= queueLimit || now - overMarkSince >= slowConsumerMillis;
+    }
+
+    private void evict() {
+        int dropped;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            dropped = queue.size();
+            queue.clear();
+        }
+        long evictions = evictionCount.incrementAndGet();
+        log.warn("Disconnecting slow session {} with {} frames queued. Total evictions: {}", session.getId(), dropped, evictions);
+        closeSession(new CloseReason(CloseReason.CloseCodes.TRY_AGAIN_LATER, "Too slow to keep up with the game"));
+    }
+
+    private void closeSession(CloseReason reason) {
+        try {
+            session.close(reason);
+        } catch (IOException e) {
+            log.error("Error closing session {}: {}", session.getId(), e.getMessage());
+        }
+    }
+}
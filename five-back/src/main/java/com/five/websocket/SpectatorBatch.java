@@ -0,0 +1,73 @@
+package com.five.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.five.utils.MessageType;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+// The events of one tick sent to the spectators of a batched room as a single frame, built from
+// the frames' own encodings so nothing is serialized twice.
+//   JSON   {"type":8,"events":[event, ...]}
+//   binary type, then for each event its length as 4 bytes and its frame: a binary subprotocol
+//          frame, or the event's JSON as UTF-8 when it has no binary form (JSON starts with '{',
+//          which no binary frame type does)
+// Used under the room log's lock, like the frames it holds.
+final class SpectatorBatch {
+
+    private final List<OutboundFrame> frames;
+    private String text;
+    private ByteBuffer binary;
+
+    SpectatorBatch(List<OutboundFrame> frames) {
+        this.frames = frames;
+    }
+
+    String text(ObjectMapper objectMapper) {
+        if (text == null) {
+            StringBuilder sb = new StringBuilder("{\"type\":").append(MessageType.BATCH.getValue()).append(",\"events\":[");
+            for (int i = 0; i < frames.size(); i++) {
+                if (i > 0) {
+                    sb.append(',');
+                }
+                sb.append(frames.get(i).text(objectMapper));
+            }
+            text = sb.append("]}").toString();
+        }
+        return text;
+    }
+
+    ByteBuffer binary(ObjectMapper objectMapper) {
+        if (binary == null) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            out.write(MessageType.BATCH.getValue());
+            for (OutboundFrame frame : frames) {
+                ByteBuffer event = frame.binary();
+                byte[] bytes;
+                if (event != null) {
+                    bytes = new byte[event.remaining()];
+                    event.duplicate().get(bytes);
+                } else {
+                    bytes = frame.text(objectMapper).getBytes(StandardCharsets.UTF_8);
+                }
+                out.write(bytes.length >>> 24);
+                out.write(bytes.length >>> 16);
+                out.write(bytes.length >>> 8);
+                out.write(bytes.length);
+                out.write(bytes, 0, bytes.length);
+            }
+            binary = ByteBuffer.wrap(out.toByteArray()).asReadOnlyBuffer();
+        }
+        return binary;
+    }
+
+    void sendTo(SessionOutbox outbox, ObjectMapper objectMapper) {
+        if (outbox.isBinary()) {
+            outbox.send(binary(objectMapper));
+        } else {
+            outbox.send(text(objectMapper));
+        }
+    }
+}
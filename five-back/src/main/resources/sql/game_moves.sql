@@ -0,0 +1,8 @@
+-- The moves of each game and the indexes of the game list, for a database created before them
+
+use five_online;
+
+alter table game_history
+    add column moves varbinary(1024) null,
+    add index black_games (black_id, id),
+    add index white_games (white_id, id);
@@ -11,7 +11,10 @@ create table game_history
     begin_time  datetime          null,
     end_time    datetime          null,
     game_result tinyint default 2 not null,
-    room_id     mediumtext        null
+    room_id     mediumtext        null,
+    moves       varbinary(1024)   null,
+    index black_games (black_id, id),
+    index white_games (white_id, id)
 );
 
 
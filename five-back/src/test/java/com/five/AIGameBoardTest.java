@@ -1,153 +1,354 @@
-// package com.five;
-//
-// import com.five.pojo.vo.GameAIMessageVO;
-// import com.five.utils.ChessBoardEvaluator;
-// import org.junit.jupiter.api.DisplayName;
-// import org.junit.jupiter.api.Test;
-//
-// import static org.springframework.test.util.AssertionErrors.assertEquals;
-// import static org.springframework.test.util.AssertionErrors.assertNotNull;
-//
-// /**
-//  * @program: five
-//  * @author: AlbertZhang
-//  * @create: 2023-12-12 20:22
-//  * @description: 测试AI下棋
-//  **/
-// public class AIGameBoardTest {
-//
-//     private final int depth=4;
-//
-//     // 普通测试，测试当前
-//     @Test
-//     @DisplayName("普通测试")
-//     public void testFindBestMoveForLiveThree() {
-//
-//
-//         Byte[][] board = new Byte[15][15];
-//         initializeBoard(board);
-//
-//         ChessBoardEvaluator chessBoard = new ChessBoardEvaluator(board, depth);
-//
-//         // 设置棋盘状态
-//         chessBoard.makeMove((byte) 6, (byte) 7, ChessBoardEvaluator.WHITE); // 白子
-//         chessBoard.makeMove((byte) 8, (byte) 7, ChessBoardEvaluator.WHITE); // 白子
-//
-//         // 假设黑子也有一些棋，但不在关键位置
-//         chessBoard.makeMove((byte) 3, (byte) 3, ChessBoardEvaluator.BLACK);
-//         chessBoard.makeMove((byte) 4, (byte) 4, ChessBoardEvaluator.BLACK);
-//
-//         GameAIMessageVO result = chessBoard.work();
-//
-//         // 验证AI找到的最佳移动是否是 (7,7)，形成活三
-//         // assertNotNull("应该找到最佳移动", result.getAIPieces());
-//         System.out.println(result);
-//         // assertEquals("最佳移动应该是形成活三的位置", 7, result.getAIPieces().getX());
-//         // assertEquals("最佳移动应该是形成活三的位置", 7, result.getAIPieces().getY());
-//     }
-//
-//
-//
-//     @Test
-//     @DisplayName("测试AI是否能够正确的防守活四")
-//     public void testAIAttackAndDefense() {
-//         Byte[][] board = new Byte[15][15];
-//         initializeBoard(board);
-//         ChessBoardEvaluator chessBoard = new ChessBoardEvaluator(board, depth);
-//
-//         // 设置棋盘初始状态，包括AI和对手的几步走棋
-//         // AI（白子）的走棋
-//         chessBoard.makeMove((byte) 5, (byte) 5, ChessBoardEvaluator.WHITE);
-//         chessBoard.makeMove((byte) 5, (byte) 6, ChessBoardEvaluator.WHITE);
-//
-//         // 对手（黑子）的走棋，即将形成四子连线
-//         chessBoard.makeMove((byte) 4, (byte) 4, ChessBoardEvaluator.BLACK);
-//         chessBoard.makeMove((byte) 6, (byte) 4, ChessBoardEvaluator.BLACK);
-//         chessBoard.makeMove((byte) 7, (byte) 4, ChessBoardEvaluator.BLACK);
-//
-//         // 期望的走棋
-//         byte expectedX = 5;
-//         byte expectedY = 4;
-//         // AI进行下一步走棋
-//         GameAIMessageVO result = chessBoard.work();
-//         System.out.println(result);
-//         // 检查AI是否正确执行防守
-//         assertCorrectMove(result.getAIPieces(), expectedX, expectedY);
-//     }
-//
-//     @Test
-//     @DisplayName("测试AI是否能正确进攻活四")
-//     public void testAIHandleLiveFour() {
-//         Byte[][] board = new Byte[15][15];
-//         initializeBoard(board);
-//         ChessBoardEvaluator chessBoard = new ChessBoardEvaluator(board, depth);
-//
-//         // 设置AI（白子）即将形成活四的局面
-//         chessBoard.makeMove((byte) 3, (byte) 3, ChessBoardEvaluator.WHITE);
-//         chessBoard.makeMove((byte) 3, (byte) 4, ChessBoardEvaluator.WHITE);
-//         chessBoard.makeMove((byte) 3, (byte) 5, ChessBoardEvaluator.WHITE);
-//
-//         // 对手（黑子）的走棋，形成一定威胁
-//         chessBoard.makeMove((byte) 7, (byte) 7, ChessBoardEvaluator.BLACK);
-//         chessBoard.makeMove((byte) 8, (byte) 8, ChessBoardEvaluator.BLACK);
-//         chessBoard.makeMove((byte) 7, (byte) 8, ChessBoardEvaluator.BLACK);
-//
-//         // 期望AI完成活四
-//         byte expectedX = 3;
-//         byte expectedY = 2;
-//         GameAIMessageVO result = chessBoard.work();
-//         System.out.println(result);
-//         assertCorrectMove(result.getAIPieces(), expectedX, expectedY);
-//     }
-//
-//
-//     @Test
-//     @DisplayName("测试AI在即将形成活四时是否关注对手棋盘")
-//     public void testAIAttackWhenNearLiveFour() {
-//         Byte[][] board = new Byte[15][15];
-//         initializeBoard(board);
-//         ChessBoardEvaluator chessBoard = new ChessBoardEvaluator(board, depth);
-//
-//         // 设置AI（白子）即将形成活四的局面
-//         chessBoard.makeMove((byte) 3, (byte) 3, ChessBoardEvaluator.WHITE);
-//         chessBoard.makeMove((byte) 3, (byte) 4, ChessBoardEvaluator.WHITE);
-//         chessBoard.makeMove((byte) 3, (byte) 5, ChessBoardEvaluator.WHITE);
-//
-//         // 对手（黑子）的走棋，形成一定威胁
-//         chessBoard.makeMove((byte) 7, (byte) 7, ChessBoardEvaluator.WHITE);
-//         chessBoard.makeMove((byte) 7, (byte) 8, ChessBoardEvaluator.BLACK);
-//         chessBoard.makeMove((byte) 7, (byte) 9, ChessBoardEvaluator.BLACK);
-//         chessBoard.makeMove((byte) 7, (byte) 10, ChessBoardEvaluator.BLACK);
-//         chessBoard.makeMove((byte) 7, (byte) 11, ChessBoardEvaluator.BLACK);
-//
-//         // 期望AI完成活四
-//         // byte expectedX = 3;
-//         // byte expectedY = 2;
-//         // 期望AI阻止对手完成连5
-//         byte expectedX = 7;
-//         byte expectedY = 12;
-//         GameAIMessageVO result = chessBoard.work();
-//         System.out.println(result);
-//         assertCorrectMove(result.getAIPieces(), expectedX, expectedY);
-//     }
-//
-//
-//
-//
-//     // 检查坐标，工具方法
-//     private void assertCorrectMove(GameAIMessageVO.AICoordinate actualMove, byte expectedX, byte expectedY) {
-//         assertEquals("检查X坐标", expectedX, actualMove.getX());
-//         assertEquals("检查Y坐标", expectedY, actualMove.getY());
-//     }
-//
-//     // 初始化棋盘
-//     private void initializeBoard(Byte[][] board) {
-//         for (int i = 0; i < 15; i++) {
-//             for (int i1 = 0; i1 < 15; i1++) {
-//                 board[i][i1] = 0;
-//             }
-//         }
-//     }
-//
-//
-// }
+package com.five;
+
+import com.five.pojo.vo.GameAIMessageVO;
+import com.five.utils.AiMoveExecutor;
+import com.five.utils.BitGameBoard;
+import com.five.utils.ChessBoardEvaluator;
+import com.five.utils.GameBoard;
+import com.five.utils.OpeningBook;
+import com.five.utils.OpeningBookBuilder;
+import com.five.utils.SearchThreadPool;
+import com.five.utils.ThreatSolver;
+import com.five.utils.TranspositionTablePool;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertFalse;
+import static org.springframework.test.util.AssertionErrors.assertNotNull;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+
+/**
+ * @program: five
+ * @author: AlbertZhang
+ * @create: 2023-12-12 20:22
+ * @description: 测试AI下棋
+ **/
+public class AIGameBoardTest {
+
+    private final int depth=4;
+
+    // 普通测试，测试当前
+    @Test
+    @DisplayName("普通测试")
+    public void testFindBestMoveForLiveThree() {
+
+
+        Byte[][] board = new Byte[15][15];
+        initializeBoard(board);
+
+        ChessBoardEvaluator chessBoard = new ChessBoardEvaluator(board, depth);
+
+        // 设置棋盘状态
+        chessBoard.makeMove((byte) 6, (byte) 7, ChessBoardEvaluator.WHITE); // 白子
+        chessBoard.makeMove((byte) 8, (byte) 7, ChessBoardEvaluator.WHITE); // 白子
+
+        // 假设黑子也有一些棋，但不在关键位置
+        chessBoard.makeMove((byte) 3, (byte) 3, ChessBoardEvaluator.BLACK);
+        chessBoard.makeMove((byte) 4, (byte) 4, ChessBoardEvaluator.BLACK);
+
+        GameAIMessageVO result = chessBoard.work();
+
+        // 验证AI找到的最佳移动是否是 (7,7)，形成活三
+        assertNotNull("应该找到最佳移动", result.getAIPieces());
+        assertCorrectMove(result.getAIPieces(), (byte) 7, (byte) 7);
+    }
+
+
+
+    @Test
+    @DisplayName("测试AI是否能够正确的防守活四")
+    public void testAIAttackAndDefense() {
+        Byte[][] board = new Byte[15][15];
+        initializeBoard(board);
+        ChessBoardEvaluator chessBoard = new ChessBoardEvaluator(board, depth);
+
+        // 设置棋盘初始状态，包括AI和对手的几步走棋
+        // AI（白子）的走棋
+        chessBoard.makeMove((byte) 5, (byte) 5, ChessBoardEvaluator.WHITE);
+        chessBoard.makeMove((byte) 5, (byte) 6, ChessBoardEvaluator.WHITE);
+
+        // 对手（黑子）的走棋，即将形成四子连线
+        chessBoard.makeMove((byte) 4, (byte) 4, ChessBoardEvaluator.BLACK);
+        chessBoard.makeMove((byte) 6, (byte) 4, ChessBoardEvaluator.BLACK);
+        chessBoard.makeMove((byte) 7, (byte) 4, ChessBoardEvaluator.BLACK);
+
+        // 期望的走棋
+        byte expectedX = 5;
+        byte expectedY = 4;
+        // AI进行下一步走棋
+        GameAIMessageVO result = chessBoard.work();
+        // 检查AI是否正确执行防守
+        assertCorrectMove(result.getAIPieces(), expectedX, expectedY);
+    }
+
+    @Test
+    @DisplayName("测试AI是否能正确进攻活四")
+    public void testAIHandleLiveFour() {
+        Byte[][] board = new Byte[15][15];
+        initializeBoard(board);
+        ChessBoardEvaluator chessBoard = new ChessBoardEvaluator(board, depth);
+
+        // 设置AI（白子）即将形成活四的局面
+        chessBoard.makeMove((byte) 3, (byte) 3, ChessBoardEvaluator.WHITE);
+        chessBoard.makeMove((byte) 3, (byte) 4, ChessBoardEvaluator.WHITE);
+        chessBoard.makeMove((byte) 3, (byte) 5, ChessBoardEvaluator.WHITE);
+
+        // 对手（黑子）的走棋，形成一定威胁
+        chessBoard.makeMove((byte) 7, (byte) 7, ChessBoardEvaluator.BLACK);
+        chessBoard.makeMove((byte) 8, (byte) 8, ChessBoardEvaluator.BLACK);
+        chessBoard.makeMove((byte) 7, (byte) 8, ChessBoardEvaluator.BLACK);
+
+        // 期望AI完成活四
+        byte expectedX = 3;
+        byte expectedY = 2;
+        GameAIMessageVO result = chessBoard.work();
+        assertCorrectMove(result.getAIPieces(), expectedX, expectedY);
+    }
+
+
+    @Test
+    @DisplayName("测试AI在即将形成活四时是否关注对手棋盘")
+    public void testAIAttackWhenNearLiveFour() {
+        Byte[][] board = new Byte[15][15];
+        initializeBoard(board);
+        ChessBoardEvaluator chessBoard = new ChessBoardEvaluator(board, depth);
+
+        // 设置AI（白子）即将形成活四的局面
+        chessBoard.makeMove((byte) 3, (byte) 3, ChessBoardEvaluator.WHITE);
+        chessBoard.makeMove((byte) 3, (byte) 4, ChessBoardEvaluator.WHITE);
+        chessBoard.makeMove((byte) 3, (byte) 5, ChessBoardEvaluator.WHITE);
+
+        // 对手（黑子）的走棋，形成一定威胁
+        chessBoard.makeMove((byte) 7, (byte) 7, ChessBoardEvaluator.WHITE);
+        chessBoard.makeMove((byte) 7, (byte) 8, ChessBoardEvaluator.BLACK);
+        chessBoard.makeMove((byte) 7, (byte) 9, ChessBoardEvaluator.BLACK);
+        chessBoard.makeMove((byte) 7, (byte) 10, ChessBoardEvaluator.BLACK);
+        chessBoard.makeMove((byte) 7, (byte) 11, ChessBoardEvaluator.BLACK);
+
+        // 期望AI完成活四
+        // byte expectedX = 3;
+        // byte expectedY = 2;
+        // 期望AI阻止对手完成连5
+        byte expectedX = 7;
+        byte expectedY = 12;
+        GameAIMessageVO result = chessBoard.work();
+        assertCorrectMove(result.getAIPieces(), expectedX, expectedY);
+    }
+
+
+
+
+    @Test
+    @DisplayName("测试AI在200毫秒内搜索到第6层")
+    public void testSearchDepthWithinBudget() {
+        Byte[][] board = new Byte[15][15];
+        initializeBoard(board);
+        // 与服务器相同的最大深度和时间预算
+        ChessBoardEvaluator chessBoard = new ChessBoardEvaluator(board, 10, ChessBoardEvaluator.BLACK,
+                ChessBoardEvaluator.DEFAULT_TIME_BUDGET_MILLIS);
+
+        // 中盘局面，黑白各十手
+        byte[][] moves = {{7, 7}, {7, 4}, {8, 4}, {8, 5}, {9, 5}, {9, 6}, {10, 7}, {11, 7}, {8, 6}, {6, 8},
+                {7, 5}, {6, 6}, {6, 4}, {5, 3}, {10, 8}, {9, 7}, {10, 6}, {10, 5}, {6, 2}, {7, 3}};
+        for (int i = 0; i < moves.length; i++) {
+            chessBoard.makeMove(moves[i][0], moves[i][1], i % 2 == 0 ? ChessBoardEvaluator.BLACK : ChessBoardEvaluator.WHITE);
+        }
+
+        long start = System.nanoTime();
+        GameAIMessageVO result = chessBoard.work();
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertNotNull("应该找到最佳移动", result.getAIPieces());
+        assertTrue("应该完成第6层搜索，实际 " + result.getDepth(), result.getDepth() >= 6);
+        // 搜索每1024个节点检查一次时间，允许超出预算100毫秒
+        assertTrue("搜索用时 " + elapsedMillis + " 毫秒", elapsedMillis <= ChessBoardEvaluator.DEFAULT_TIME_BUDGET_MILLIS + 100);
+    }
+
+    @Test
+    @DisplayName("测试置换表在搜索之间复用")
+    public void testTablePoolReusesTables() {
+        TranspositionTablePool pool = new TranspositionTablePool(ChessBoardEvaluator.DEFAULT_TABLE_SIZE_BITS, 1);
+        byte[][] moves = {{7, 7}, {7, 4}, {8, 4}, {8, 5}, {9, 5}, {9, 6}, {10, 7}, {11, 7}, {8, 6}, {6, 8}};
+        for (int round = 0; round < 2; round++) {
+            Byte[][] board = new Byte[15][15];
+            initializeBoard(board);
+            ChessBoardEvaluator chessBoard = new ChessBoardEvaluator(board, depth, ChessBoardEvaluator.BLACK, 10_000)
+                    .withTables(pool);
+            for (int i = 0; i < moves.length; i++) {
+                chessBoard.makeMove(moves[i][0], moves[i][1], i % 2 == 0 ? ChessBoardEvaluator.BLACK : ChessBoardEvaluator.WHITE);
+            }
+            GameAIMessageVO result = chessBoard.work();
+            assertNotNull("应该找到最佳移动", result.getAIPieces());
+            // 搜索结束后置换表回到池中
+            assertEquals("置换表应回到池中", 1, pool.idleTables());
+        }
+    }
+
+
+    @Test
+    @DisplayName("测试AI能否直接找到连续冲四的必胜")
+    public void testThreatSpaceWin() {
+        Byte[][] board = new Byte[15][15];
+        initializeBoard(board);
+        ChessBoardEvaluator chessBoard = new ChessBoardEvaluator(board, 2);
+        for (byte[] move : VCF_POSITION) {
+            chessBoard.makeMove(move[0], move[1], move[2]);
+        }
+
+        // 搜索深度只有2层，必胜由威胁空间搜索找到
+        GameAIMessageVO result = chessBoard.work();
+        assertCorrectMove(result.getAIPieces(), (byte) 6, (byte) 6);
+    }
+
+    @Test
+    @DisplayName("测试必胜局面判断")
+    public void testIsForcedWin() {
+        GameBoard board = new BitGameBoard();
+        for (byte[] move : VCF_POSITION) {
+            board.place(move[0], move[1], move[2]);
+        }
+        board.place(0, 0, GameBoard.BLACK); // 轮到白方
+
+        assertTrue("白方应该有必胜", ThreatSolver.isForcedWin(board, GameBoard.WHITE));
+        assertFalse("黑方不应该有必胜", ThreatSolver.isForcedWin(board, GameBoard.BLACK));
+    }
+
+    @Test
+    @DisplayName("测试开局库")
+    public void testOpeningBook(@TempDir Path dir) throws IOException {
+        Path bookFile = dir.resolve("opening.book");
+        OpeningBookBuilder.main(new String[]{bookFile.toString(), "1", "3", "50"});
+        OpeningBook book = OpeningBook.open(bookFile);
+        assertTrue("开局库不应为空", book.size() > 0);
+
+        Byte[][] board = new Byte[15][15];
+        initializeBoard(board);
+        ChessBoardEvaluator chessBoard = new ChessBoardEvaluator(board, depth).withOpeningBook(book, 8);
+        chessBoard.makeMove((byte) 7, (byte) 7, ChessBoardEvaluator.BLACK);
+
+        // 开局库中的局面不需要搜索
+        GameAIMessageVO result = chessBoard.work();
+        assertNotNull("应该找到开局库中的走法", result.getAIPieces());
+        assertEquals("开局库走法不应搜索", 0L, result.getNodes());
+    }
+
+    @Test
+    @DisplayName("测试取消房间的AI走棋")
+    public void testCancelAiMove() throws InterruptedException {
+        Byte[][] board = new Byte[15][15];
+        initializeBoard(board);
+        ChessBoardEvaluator chessBoard = new ChessBoardEvaluator(board, 20, ChessBoardEvaluator.WHITE, 10_000);
+        chessBoard.makeMove((byte) 7, (byte) 7, ChessBoardEvaluator.BLACK);
+        chessBoard.makeMove((byte) 7, (byte) 8, ChessBoardEvaluator.WHITE);
+        chessBoard.makeMove((byte) 8, (byte) 8, ChessBoardEvaluator.BLACK);
+
+        AiMoveExecutor executor = new AiMoveExecutor(1, 1);
+        CountDownLatch done = new CountDownLatch(1);
+        assertTrue("应该能提交", executor.submit(1L, () -> {
+            chessBoard.work();
+            done.countDown();
+        }));
+        Thread.sleep(50);
+        executor.cancel(1L);
+
+        // 10秒的搜索在取消后应该很快停止
+        assertTrue("取消后搜索应该停止", done.await(2, TimeUnit.SECONDS));
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("测试多线程搜索与单线程搜索走法一致")
+    public void testParallelSearchFindsSameMove() {
+        SearchThreadPool pool = new SearchThreadPool(4);
+        GameAIMessageVO single = defenseBoard().work();
+        GameAIMessageVO parallel = defenseBoard().withThreads(pool, 4).work();
+        assertCorrectMove(single.getAIPieces(), (byte) 5, (byte) 4);
+        assertCorrectMove(parallel.getAIPieces(), (byte) 5, (byte) 4);
+        // 搜索结束后辅助线程全部归还
+        assertEquals("辅助线程应全部归还", 4, pool.availableThreads());
+        pool.shutdown();
+    }
+
+    @Test
+    @DisplayName("测试每次搜索与全局的辅助线程上限")
+    public void testSearchThreadCaps() throws InterruptedException {
+        SearchThreadPool pool = new SearchThreadPool(3);
+        List<Thread> searches = new ArrayList<>();
+        // 每次搜索最多2个线程，即1个辅助线程；第4次搜索已没有辅助线程可用
+        int[] expectedAvailable = {2, 1, 0, 0};
+        long deadline = System.currentTimeMillis() + 3_000;
+        for (int expected : expectedAvailable) {
+            ChessBoardEvaluator chessBoard = middleGameBoard().withThreads(pool, 2).withDeadline(deadline);
+            Thread search = new Thread(chessBoard::work);
+            search.start();
+            searches.add(search);
+            for (int i = 0; i < 400 && pool.availableThreads() > expected; i++) {
+                Thread.sleep(5);
+            }
+            assertEquals("可用辅助线程", expected, pool.availableThreads());
+        }
+        for (Thread search : searches) {
+            search.join(5_000);
+            assertFalse("搜索应在截止时间结束", search.isAlive());
+        }
+        // 截止时间打断的搜索也要归还辅助线程
+        assertEquals("辅助线程应全部归还", 3, pool.availableThreads());
+        pool.shutdown();
+    }
+
+    // 黑方跳三，白方应在(5,4)防守
+    private ChessBoardEvaluator defenseBoard() {
+        Byte[][] board = new Byte[15][15];
+        initializeBoard(board);
+        ChessBoardEvaluator chessBoard = new ChessBoardEvaluator(board, depth);
+        chessBoard.makeMove((byte) 5, (byte) 5, ChessBoardEvaluator.WHITE);
+        chessBoard.makeMove((byte) 5, (byte) 6, ChessBoardEvaluator.WHITE);
+        chessBoard.makeMove((byte) 4, (byte) 4, ChessBoardEvaluator.BLACK);
+        chessBoard.makeMove((byte) 6, (byte) 4, ChessBoardEvaluator.BLACK);
+        chessBoard.makeMove((byte) 7, (byte) 4, ChessBoardEvaluator.BLACK);
+        return chessBoard;
+    }
+
+    // 中盘局面，黑白各十手，20层10秒的搜索只会被截止时间打断
+    private ChessBoardEvaluator middleGameBoard() {
+        Byte[][] board = new Byte[15][15];
+        initializeBoard(board);
+        ChessBoardEvaluator chessBoard = new ChessBoardEvaluator(board, 20, ChessBoardEvaluator.BLACK, 10_000);
+        byte[][] moves = {{7, 7}, {7, 4}, {8, 4}, {8, 5}, {9, 5}, {9, 6}, {10, 7}, {11, 7}, {8, 6}, {6, 8},
+                {7, 5}, {6, 6}, {6, 4}, {5, 3}, {10, 8}, {9, 7}, {10, 6}, {10, 5}, {6, 2}, {7, 3}};
+        for (int i = 0; i < moves.length; i++) {
+            chessBoard.makeMove(moves[i][0], moves[i][1], i % 2 == 0 ? ChessBoardEvaluator.BLACK : ChessBoardEvaluator.WHITE);
+        }
+        return chessBoard;
+    }
+
+    // 白方先冲四再成双四的局面，黑白各8子
+    private static final byte[][] VCF_POSITION = {{7, 5, 1}, {8, 8, 2}, {6, 10, 1}, {10, 10, 2}, {6, 7, 1}, {10, 9, 2},
+            {9, 10, 1}, {9, 6, 2}, {9, 4, 1}, {5, 8, 2}, {5, 10, 1}, {6, 9, 2}, {8, 4, 1}, {5, 6, 2}, {10, 7, 1}, {8, 6, 2}};
+
+
+    // 检查坐标，工具方法
+    private void assertCorrectMove(GameAIMessageVO.AICoordinate actualMove, byte expectedX, byte expectedY) {
+        assertEquals("检查X坐标", expectedX, actualMove.getX());
+        assertEquals("检查Y坐标", expectedY, actualMove.getY());
+    }
+
+    // 初始化棋盘
+    private void initializeBoard(Byte[][] board) {
+        for (int i = 0; i < 15; i++) {
+            for (int i1 = 0; i1 < 15; i1++) {
+                board[i][i1] = 0;
+            }
+        }
+    }
+
+
+}
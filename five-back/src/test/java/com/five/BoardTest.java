@@ -1,9 +1,17 @@
 package com.five;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.five.utils.BitGameBoard;
 import com.five.utils.FiveGameUtil;
+import com.five.utils.GameBoard;
 import com.five.utils.GameResult;
 import org.junit.jupiter.api.Test;
 
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
 public class BoardTest {
     @Test
     public void test() {
@@ -22,4 +30,66 @@ public class BoardTest {
         System.out.println(game.name());
 
     }
+
+    @Test
+    public void testLastMove() {
+        GameBoard board = new BitGameBoard();
+        // Anti-diagonal five finished in the middle of the line
+        board.place(2, 6, GameBoard.WHITE);
+        board.place(3, 5, GameBoard.WHITE);
+        board.place(5, 3, GameBoard.WHITE);
+        board.place(6, 2, GameBoard.WHITE);
+        assertEquals(GameResult.CONTINUE, FiveGameUtil.isGameOver(board, 6, 2, GameBoard.WHITE));
+        board.place(4, 4, GameBoard.WHITE);
+        assertEquals(GameResult.WHITE_WIN, FiveGameUtil.isGameOver(board, 4, 4, GameBoard.WHITE));
+        assertEquals(GameResult.WHITE_WIN, FiveGameUtil.isGameOver(board));
+    }
+
+    @Test
+    public void testFullBoardIsADraw() {
+        // Pairs of rows shifted by one point never line up five of a color
+        GameBoard board = new BitGameBoard();
+        for (int x = 0; x < GameBoard.SIZE; x++) {
+            for (int y = 0; y < GameBoard.SIZE; y++) {
+                if (x != 14 || y != 14) {
+                    board.place(x, y, 1 + (x / 2 + y) % 2);
+                }
+            }
+        }
+        assertEquals(GameResult.CONTINUE, FiveGameUtil.isGameOver(board, 14, 13, 1 + (14 / 2 + 13) % 2));
+        board.place(14, 14, 1 + (14 / 2 + 14) % 2);
+        // The board's own stone count decides the draw
+        assertEquals(GameResult.DRAW, FiveGameUtil.isGameOver(board, 14, 14, 1 + (14 / 2 + 14) % 2));
+        assertEquals(GameResult.DRAW, FiveGameUtil.isGameOver(board));
+    }
+
+    @Test
+    public void testBitBoard() throws Exception {
+        Integer[][] legacy = new Integer[15][15];
+        for (Integer[] row : legacy) {
+            Arrays.fill(row, 0);
+        }
+        GameBoard board = new BitGameBoard();
+        for (int i = 0; i < 5; i++) {
+            board.place(14, 10 + i, GameBoard.BLACK);
+            legacy[14][10 + i] = 1;
+            board.place(i, 0, GameBoard.WHITE);
+            legacy[i][0] = 2;
+        }
+        assertFalse(board.place(14, 10, GameBoard.WHITE));
+        assertEquals(10, board.stoneCount());
+        assertEquals(GameResult.BLACK_WIN, FiveGameUtil.isGameOver(board, 14, 12, GameBoard.BLACK));
+
+        // A copy has the same stones and goes its own way
+        GameBoard copy = board.copy();
+        assertEquals(GameBoard.BLACK, copy.get(14, 12));
+        copy.place(7, 7, GameBoard.WHITE);
+        assertEquals(GameBoard.EMPTY, board.get(7, 7));
+        assertEquals(10, board.stoneCount());
+        assertEquals(11, copy.stoneCount());
+
+        // Clients still receive the nested number array they used to get from Integer[][]
+        ObjectMapper objectMapper = new ObjectMapper();
+        assertEquals(objectMapper.writeValueAsString(legacy), objectMapper.writeValueAsString(board));
+    }
 }
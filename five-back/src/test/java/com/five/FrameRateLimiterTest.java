@@ -0,0 +1,106 @@
+package com.five;
+
+import com.five.pojo.pojo.RateLimitProperties;
+import com.five.utils.MessageType;
+import com.five.utils.TokenBucket;
+import com.five.websocket.FrameRateLimiter;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FrameRateLimiterTest {
+
+    @Test
+    public void testBucketRefillsAtItsRate() {
+        // 10 a second, 3 at once
+        TokenBucket bucket = new TokenBucket(10, 3);
+        long now = System.nanoTime();
+        assertTrue(bucket.tryTake(now));
+        assertTrue(bucket.tryTake(now));
+        assertTrue(bucket.tryTake(now));
+        assertFalse(bucket.tryTake(now));
+        assertFalse(bucket.tryTake(now + 50_000_000L));
+        assertTrue(bucket.tryTake(now + 100_000_000L));
+        assertFalse(bucket.tryTake(now + 100_000_000L));
+        // Idle for long, the bucket holds no more than its burst
+        long later = now + 10_000_000_000L;
+        for (int i = 0; i < 3; i++) {
+            assertTrue(bucket.tryTake(later));
+        }
+        assertFalse(bucket.tryTake(later));
+    }
+
+    @Test
+    public void testSharedBucketGivesOutItsBurstExactly() throws InterruptedException {
+        // A refill an hour: only the burst is there to take
+        TokenBucket bucket = new TokenBucket(1 / 3600.0, 1000);
+        AtomicInteger taken = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(8);
+        for (int t = 0; t < 8; t++) {
+            new Thread(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    if (bucket.tryTake()) {
+                        taken.incrementAndGet();
+                    }
+                }
+                done.countDown();
+            }).start();
+        }
+        done.await();
+        assertEquals(1000, taken.get());
+    }
+
+    @Test
+    public void testEachTypeHasItsOwnBudget() {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setChat(new RateLimitProperties.Budget(1 / 3600.0, 2));
+        FrameRateLimiter limiter = new FrameRateLimiter(properties);
+        FrameRateLimiter.SessionLimits session = limiter.newSession();
+        assertEquals(FrameRateLimiter.Verdict.ACCEPT, session.admit(MessageType.CHAT_MESSAGE));
+        assertEquals(FrameRateLimiter.Verdict.ACCEPT, session.admit(MessageType.CHAT_MESSAGE));
+        assertEquals(FrameRateLimiter.Verdict.THROTTLE, session.admit(MessageType.CHAT_MESSAGE));
+        // The chat flood leaves the moves alone, and other sessions too
+        assertEquals(FrameRateLimiter.Verdict.ACCEPT, session.admit(MessageType.MOVE));
+        assertEquals(FrameRateLimiter.Verdict.ACCEPT, limiter.newSession().admit(MessageType.CHAT_MESSAGE));
+        assertEquals(1, limiter.getThrottledFrames().get());
+    }
+
+    @Test
+    public void testSessionOverItsBudgetTooOftenIsClosed() {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setChat(new RateLimitProperties.Budget(1 / 3600.0, 1));
+        properties.setViolations(new RateLimitProperties.Budget(1 / 3600.0, 3));
+        FrameRateLimiter limiter = new FrameRateLimiter(properties);
+        FrameRateLimiter.SessionLimits session = limiter.newSession();
+        assertEquals(FrameRateLimiter.Verdict.ACCEPT, session.admit(MessageType.CHAT_MESSAGE));
+        for (int i = 0; i < 3; i++) {
+            assertEquals(FrameRateLimiter.Verdict.THROTTLE, session.admit(MessageType.CHAT_MESSAGE));
+        }
+        assertEquals(FrameRateLimiter.Verdict.CLOSE, session.admit(MessageType.CHAT_MESSAGE));
+        // Closing, the session gets nothing more through and is counted once
+        assertEquals(FrameRateLimiter.Verdict.CLOSE, session.admit(MessageType.MOVE));
+        assertEquals(FrameRateLimiter.Verdict.CLOSE, session.malformed());
+        assertEquals(1, limiter.getClosedSessions().get());
+        assertEquals(4, limiter.getThrottledFrames().get());
+    }
+
+    @Test
+    public void testNodeBudgetDropsFramesOfEverySession() {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setNode(new RateLimitProperties.Budget(1 / 3600.0, 3));
+        FrameRateLimiter limiter = new FrameRateLimiter(properties);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(FrameRateLimiter.Verdict.ACCEPT, limiter.newSession().admit(MessageType.MOVE));
+        }
+        FrameRateLimiter.SessionLimits session = limiter.newSession();
+        assertEquals(FrameRateLimiter.Verdict.DROP, session.admit(MessageType.MOVE));
+        assertEquals(1, limiter.getDroppedFrames().get());
+        // Dropped for the node's sake, the session is not held to account
+        assertEquals(0, limiter.getThrottledFrames().get());
+    }
+}
@@ -0,0 +1,90 @@
+package com.five;
+
+import com.five.utils.GameBoard;
+import com.five.utils.GameClock;
+import com.five.utils.TimeControl;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class GameClockTest {
+
+    private static final TimeControl FISCHER = new TimeControl(TimeControl.Kind.FISCHER, 10_000, 2_000, 0, 0);
+    private static final TimeControl BYO_YOMI = new TimeControl(TimeControl.Kind.BYO_YOMI, 10_000, 0, 5_000, 2);
+
+    @Test
+    public void testFischerAddsTheIncrementAfterEachMove() {
+        GameClock clock = new GameClock(FISCHER, GameBoard.BLACK, 0);
+        assertTrue(clock.moved(GameBoard.BLACK, 3_000));
+        assertEquals(9_000, clock.mainLeft(GameBoard.BLACK));
+        assertEquals(GameBoard.WHITE, clock.toMove());
+        assertEquals(10_000, clock.timeLeft(3_000));
+        assertEquals(4_000, clock.timeLeft(9_000));
+        assertTrue(clock.moved(GameBoard.WHITE, 9_000));
+        assertEquals(6_000, clock.mainLeft(GameBoard.WHITE));
+        assertEquals(2, clock.turn());
+    }
+
+    @Test
+    public void testFischerFlagFalls() {
+        GameClock clock = new GameClock(FISCHER, GameBoard.BLACK, 0);
+        assertFalse(clock.isFlagged(10_000));
+        assertTrue(clock.isFlagged(10_001));
+        assertFalse(clock.moved(GameBoard.BLACK, 10_001));
+        assertEquals(0, clock.turn());
+    }
+
+    @Test
+    public void testByoYomiKeepsThePeriodOfTheMove() {
+        GameClock clock = new GameClock(BYO_YOMI, GameBoard.BLACK, 0);
+        // The main time, then 4 seconds of the first period: it is kept
+        assertTrue(clock.moved(GameBoard.BLACK, 14_000));
+        assertEquals(0, clock.mainLeft(GameBoard.BLACK));
+        assertEquals(2, clock.periodsLeft(GameBoard.BLACK));
+        assertTrue(clock.moved(GameBoard.WHITE, 14_000));
+        // A whole period used up, the move made in the second: one is lost
+        assertTrue(clock.moved(GameBoard.BLACK, 21_000));
+        assertEquals(1, clock.periodsLeft(GameBoard.BLACK));
+    }
+
+    @Test
+    public void testByoYomiFlagFallsWithTheLastPeriod() {
+        GameClock clock = new GameClock(BYO_YOMI, GameBoard.BLACK, 0);
+        assertEquals(20_000, clock.timeLeft(0));
+        assertFalse(clock.isFlagged(20_000));
+        assertTrue(clock.moved(GameBoard.BLACK, 20_000));
+        assertTrue(clock.moved(GameBoard.WHITE, 20_000));
+        assertTrue(clock.isFlagged(25_001));
+        assertFalse(clock.moved(GameBoard.BLACK, 25_001));
+    }
+
+    @Test
+    public void testMoveOutOfTurnIsRefused() {
+        GameClock clock = new GameClock(FISCHER, GameBoard.BLACK, 0);
+        assertThrows(IllegalArgumentException.class, () -> clock.moved(GameBoard.WHITE, 4_000));
+        assertEquals(GameBoard.BLACK, clock.toMove());
+        assertEquals(0, clock.turn());
+    }
+
+    @Test
+    public void testTimeControlFromTheRequest() {
+        TimeControl asked = TimeControl.of(Map.of("clock", List.of("byoyomi"), "main", List.of("300"),
+                "period", List.of("20"), "periods", List.of("5")), FISCHER, 3_600_000);
+        assertEquals(new TimeControl(TimeControl.Kind.BYO_YOMI, 300_000, 2_000, 20_000, 5), asked);
+
+        // Out of bounds or malformed values fall back to the defaults
+        TimeControl clamped = TimeControl.of(Map.of("main", List.of("7200"), "increment", List.of("x"),
+                "periods", List.of("50")), FISCHER, 3_600_000);
+        assertEquals(FISCHER, clamped);
+
+        // No clock on the server, none in the room
+        assertSame(TimeControl.NONE, TimeControl.of(Map.of("clock", List.of("fischer")), TimeControl.NONE, 3_600_000));
+    }
+}
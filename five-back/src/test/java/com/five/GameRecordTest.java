@@ -0,0 +1,61 @@
+package com.five;
+
+import com.five.utils.GameBoard;
+import com.five.utils.GameRecord;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class GameRecordTest {
+
+    private static List<String> decode(byte[] record) {
+        List<String> moves = new ArrayList<>();
+        GameRecord.decode(record, (x, y, color, elapsed) -> moves.add(x + "," + y + "," + color + "," + elapsed));
+        return moves;
+    }
+
+    @Test
+    public void testMovesRoundTrip() {
+        GameRecord record = new GameRecord(1_000);
+        record.add(7, 7, GameBoard.BLACK, 1_000);
+        record.add(7, 8, GameBoard.WHITE, 1_127);
+        record.add(14, 14, GameBoard.BLACK, 31_127);
+        // The same color twice, as a move lost on the way would leave it
+        record.add(0, 0, GameBoard.BLACK, 31_128);
+        record.add(6, 6, GameBoard.WHITE, 4_000_000);
+        assertEquals(5, record.moveCount());
+        assertEquals(List.of("7,7,1,0", "7,8,2,127", "14,14,1,30000", "0,0,1,1", "6,6,2,3968872"),
+                decode(record.toByteArray()));
+    }
+
+    @Test
+    public void testAGameTakesAFewBytesAMove() {
+        GameRecord record = new GameRecord(0);
+        long time = 0;
+        for (int i = 0; i < 100; i++) {
+            time += 2_000 + i * 37;
+            record.add(i / GameBoard.SIZE, i % GameBoard.SIZE, i % 2 == 0 ? GameBoard.BLACK : GameBoard.WHITE, time);
+        }
+        byte[] bytes = record.toByteArray();
+        // One byte for the point, two for a delay under 16 seconds
+        assertEquals(1 + 100 * 3, bytes.length);
+        assertEquals(100, decode(bytes).size());
+    }
+
+    @Test
+    public void testMalformedRecordsAreRejected() {
+        GameRecord record = new GameRecord(0);
+        record.add(7, 7, GameBoard.BLACK, 20_000);
+        byte[] bytes = record.toByteArray();
+        assertThrows(IllegalArgumentException.class, () -> decode(Arrays.copyOf(bytes, bytes.length - 1)));
+        assertThrows(IllegalArgumentException.class, () -> decode(new byte[]{GameRecord.VERSION, (byte) 230, 0}));
+        assertThrows(IllegalArgumentException.class, () -> decode(new byte[]{9, 0, 0}));
+        assertTrue(decode(new GameRecord(0).toByteArray()).isEmpty());
+    }
+}
@@ -0,0 +1,180 @@
+package com.five;
+
+import com.five.pojo.dto.UserStatisticsDTO;
+import com.five.pojo.entity.GameHistory;
+import com.five.service.GameResultWriter;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class GameResultWriterTest {
+
+    // Records the batches it is given; the first one waits for the gate so the rest can queue up
+    private static class RecordingSink implements GameResultWriter.Sink {
+        final List<List<GameHistory>> results = new ArrayList<>();
+        final List<List<UserStatisticsDTO>> statistics = new ArrayList<>();
+        final CountDownLatch gate;
+
+        RecordingSink(CountDownLatch gate) {
+            this.gate = gate;
+        }
+
+        @Override
+        public synchronized void write(List<GameHistory> results, Collection<UserStatisticsDTO> statistics) {
+            try {
+                gate.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            this.results.add(new ArrayList<>(results));
+            this.statistics.add(new ArrayList<>(statistics));
+        }
+    }
+
+    private static GameHistory result(long gameId) {
+        return GameHistory.builder().id(gameId).gameResult(1).build();
+    }
+
+    @Test
+    public void testQueuedStatisticsAreAddedUpPerUser() {
+        CountDownLatch gate = new CountDownLatch(1);
+        RecordingSink sink = new RecordingSink(gate);
+        GameResultWriter writer = new GameResultWriter(100, 100, 5_000, 0, 1, sink);
+        // Held in the sink while the next games end
+        writer.recordResult(result(1));
+        for (long game = 2; game <= 4; game++) {
+            writer.recordResult(result(game));
+            writer.addStatistics(new UserStatisticsDTO(7L, 1, 1, 0, 0));
+            writer.addStatistics(new UserStatisticsDTO(8L, 1, 0, 1, 0));
+        }
+        gate.countDown();
+        writer.shutdown();
+
+        List<GameHistory> written = sink.results.stream().flatMap(List::stream).toList();
+        assertEquals(List.of(1L, 2L, 3L, 4L), written.stream().map(GameHistory::getId).toList());
+        assertTrue(sink.results.size() <= 2, "The games that ended while the first was written go in one batch");
+        // One row per user and batch, the increments added up
+        Map<Long, UserStatisticsDTO> sums = new TreeMap<>();
+        for (List<UserStatisticsDTO> batch : sink.statistics) {
+            assertEquals(batch.size(), batch.stream().map(UserStatisticsDTO::getUserId).distinct().count());
+            batch.forEach(delta -> sums.merge(delta.getUserId(), delta, (sum, more) -> {
+                sum.add(more);
+                return sum;
+            }));
+        }
+        assertEquals(List.of(new UserStatisticsDTO(7L, 3, 3, 0, 0), new UserStatisticsDTO(8L, 3, 0, 3, 0)),
+                new ArrayList<>(sums.values()));
+        assertEquals(0, writer.queued());
+    }
+
+    @Test
+    public void testShutdownWritesTheQueueFirst() {
+        CountDownLatch gate = new CountDownLatch(0);
+        RecordingSink sink = new RecordingSink(gate);
+        GameResultWriter writer = new GameResultWriter(1000, 10, 5_000, 0, 1, sink);
+        for (long game = 1; game <= 95; game++) {
+            writer.recordResult(result(game));
+        }
+        writer.shutdown();
+        assertEquals(95, sink.results.stream().mapToInt(List::size).sum());
+        assertTrue(sink.results.stream().allMatch(batch -> batch.size() <= 10));
+
+        // Written straight away once the writer has stopped
+        writer.addStatistics(new UserStatisticsDTO(7L, 1, 0, 0, 1));
+        assertEquals(List.of(new UserStatisticsDTO(7L, 1, 0, 0, 1)), sink.statistics.get(sink.statistics.size() - 1));
+    }
+
+    @Test
+    public void testFailedBatchIsTriedAgain() {
+        List<GameHistory> written = new ArrayList<>();
+        AtomicInteger attempts = new AtomicInteger();
+        GameResultWriter writer = new GameResultWriter(100, 10, 5_000, 3, 1, (results, statistics) -> {
+            if (attempts.incrementAndGet() <= 2) {
+                throw new IllegalStateException("database down");
+            }
+            written.addAll(results);
+        });
+        writer.recordResult(result(1));
+        writer.shutdown();
+        assertEquals(3, attempts.get());
+        assertEquals(0, writer.getFailedBatches());
+        assertEquals(List.of(1L), written.stream().map(GameHistory::getId).toList());
+    }
+
+    @Test
+    public void testBadRowOnlyLosesItself() {
+        CountDownLatch gate = new CountDownLatch(1);
+        List<Long> written = new ArrayList<>();
+        List<Long> statisticsWritten = new ArrayList<>();
+        GameResultWriter writer = new GameResultWriter(100, 10, 5_000, 1, 1, (results, statistics) -> {
+            try {
+                gate.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (results.stream().anyMatch(result -> result.getId() == 2L)) {
+                throw new IllegalStateException("bad row");
+            }
+            results.forEach(result -> written.add(result.getId()));
+            statistics.forEach(delta -> statisticsWritten.add(delta.getUserId()));
+        });
+        // However the rows are batched, the batch with result 2 fails and is written row by row
+        writer.recordResult(result(1));
+        writer.recordResult(result(2));
+        writer.recordResult(result(3));
+        UserStatisticsDTO statistics = new UserStatisticsDTO();
+        statistics.setUserId(7L);
+        statistics.setTotal(1);
+        writer.addStatistics(statistics);
+        gate.countDown();
+        writer.shutdown();
+        assertEquals(List.of(1L, 3L), written);
+        assertEquals(List.of(7L), statisticsWritten);
+        assertEquals(1, writer.getFailedBatches());
+        assertEquals(1, writer.getLostRows());
+    }
+
+    @Test
+    public void testFullQueueDropsInsteadOfWaiting() throws InterruptedException {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch gate = new CountDownLatch(1);
+        List<Long> written = new ArrayList<>();
+        GameResultWriter writer = new GameResultWriter(2, 10, 5_000, 0, 1, (results, statistics) -> {
+            writing.countDown();
+            try {
+                gate.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            results.forEach(result -> written.add(result.getId()));
+        });
+        // Held in the sink, as during a database outage, while two more fill the queue
+        writer.recordResult(result(1));
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        // The room thread ending the next game does not wait for the database
+        assertTimeoutPreemptively(Duration.ofSeconds(1), () -> {
+            writer.recordResult(result(2));
+            writer.recordResult(result(3));
+            writer.recordResult(result(4));
+            writer.addStatistics(new UserStatisticsDTO(7L, 1, 1, 0, 0));
+        });
+        assertEquals(2, writer.queued());
+        assertEquals(2, writer.getDroppedRows());
+        gate.countDown();
+        writer.shutdown();
+        assertEquals(List.of(1L, 2L, 3L), written);
+        assertEquals(0, writer.getLostRows());
+    }
+}
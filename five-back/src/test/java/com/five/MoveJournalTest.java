@@ -0,0 +1,105 @@
+package com.five;
+
+import com.five.utils.MoveJournal;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MoveJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private static int move(int x, int y, int color) {
+        return color << 8 | x * 15 + y;
+    }
+
+    private List<String> files(String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString()).filter(name -> name.endsWith(suffix)).sorted().toList();
+        }
+    }
+
+    @Test
+    public void testGamesInProgressAreRecovered() throws IOException {
+        MoveJournal journal = new MoveJournal(directory, 1 << 20, 0);
+        journal.gameStarted(1, 100, 11, 12, false);
+        journal.gameStarted(2, 200, 21, 0, true);
+        journal.moved(1, 100, 7, 7, 1);
+        journal.moved(2, 200, 3, 4, 1);
+        journal.moved(1, 100, 7, 8, 2);
+        journal.gameEnded(2, 200);
+        // A move of a game the room no longer plays is not journaled
+        journal.moved(2, 200, 5, 5, 2);
+        journal.moved(1, 99, 5, 5, 2);
+        journal.close();
+
+        List<MoveJournal.Game> games = new MoveJournal(directory, 1 << 20, 0).recovered();
+        assertEquals(1, games.size());
+        MoveJournal.Game game = games.get(0);
+        assertEquals(1, game.roomId());
+        assertEquals(100, game.gameId());
+        assertEquals(11, game.blackId());
+        assertEquals(12, game.whiteId());
+        assertArrayEquals(new int[]{move(7, 7, 1), move(7, 8, 2)}, game.moves());
+    }
+
+    @Test
+    public void testFullSegmentsAreReplacedByACheckpoint() throws IOException {
+        // The smallest segment holds 1024 records
+        MoveJournal journal = new MoveJournal(directory, 0, 0);
+        for (long room = 1; room <= 300; room++) {
+            journal.gameStarted(room, room * 10, room, room + 1000, false);
+            journal.moved(room, room * 10, 0, 1, 1);
+            journal.moved(room, room * 10, 0, 2, 2);
+            if (room % 3 != 0) {
+                journal.gameEnded(room, room * 10);
+            }
+        }
+        // The live games went on through the rotations, the records of the ended ones were dropped
+        assertEquals(100, journal.liveGames());
+        journal.close();
+        // The first segment was full: its games are in the checkpoint of the second, and only that
+        // segment is left, the spare mapped after it is dropped at close
+        assertEquals(List.of("0000000000000002.checkpoint"), files(".checkpoint"));
+        assertEquals(List.of("0000000000000002.journal"), files(".journal"));
+
+        MoveJournal reopened = new MoveJournal(directory, 0, 0);
+        List<MoveJournal.Game> games = reopened.recovered();
+        assertEquals(100, games.size());
+        assertTrue(games.stream().allMatch(game -> game.roomId() % 3 == 0 && game.moves().length == 2));
+        // Reopening starts a segment of its own and goes on journaling the recovered games
+        reopened.moved(3, 30, 0, 3, 1);
+        reopened.close();
+        MoveJournal.Game game = new MoveJournal(directory, 0, 0).recovered().get(0);
+        assertArrayEquals(new int[]{move(0, 1, 1), move(0, 2, 2), move(0, 3, 1)}, game.moves());
+    }
+
+    @Test
+    public void testReplayStopsAtATornRecord() throws IOException {
+        MoveJournal journal = new MoveJournal(directory, 1 << 20, 0);
+        journal.gameStarted(1, 100, 11, 12, false);
+        journal.moved(1, 100, 7, 7, 1);
+        journal.moved(1, 100, 7, 8, 2);
+        journal.close();
+
+        // A crash in the middle of writing the last move
+        Path segment = directory.resolve("0000000000000001.journal");
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            file.seek(2 * 40 + 30);
+            file.write(0x5a);
+        }
+        MoveJournal.Game game = new MoveJournal(directory, 1 << 20, 0).recovered().get(0);
+        assertArrayEquals(new int[]{move(7, 7, 1)}, game.moves());
+    }
+}
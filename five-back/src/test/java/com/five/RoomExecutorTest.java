@@ -0,0 +1,87 @@
+package com.five;
+
+import com.five.utils.ExecutionMode;
+import com.five.utils.RoomExecutor;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RoomExecutorTest {
+
+    @Test
+    public void testRoomTasksRunOneAtATimeInOrder() throws InterruptedException {
+        RoomExecutor executor = new RoomExecutor(4);
+        int rooms = 8;
+        int tasks = 500;
+        List<List<Integer>> seen = new ArrayList<>();
+        AtomicInteger[] running = new AtomicInteger[rooms];
+        AtomicInteger overlaps = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(rooms * tasks);
+        for (int room = 0; room < rooms; room++) {
+            seen.add(new ArrayList<>()); // Only ever touched by the room's tasks
+            running[room] = new AtomicInteger();
+        }
+        for (int i = 0; i < tasks; i++) {
+            for (int room = 0; room < rooms; room++) {
+                int r = room;
+                int n = i;
+                executor.execute((long) room, () -> {
+                    if (running[r].incrementAndGet() != 1) {
+                        overlaps.incrementAndGet();
+                    }
+                    seen.get(r).add(n);
+                    running[r].decrementAndGet();
+                    done.countDown();
+                });
+            }
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(0, overlaps.get());
+        for (List<Integer> order : seen) {
+            assertEquals(tasks, order.size());
+            for (int i = 0; i < tasks; i++) {
+                assertEquals(i, order.get(i));
+            }
+        }
+        executor.shutdown();
+    }
+
+    @Test
+    public void testFailingTaskDoesNotStopTheRoom() throws InterruptedException {
+        RoomExecutor executor = new RoomExecutor(1);
+        CountDownLatch done = new CountDownLatch(1);
+        executor.execute(1L, () -> {
+            throw new IllegalStateException("boom");
+        });
+        executor.execute(1L, done::countDown);
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        // The idle room's mailbox is dropped
+        for (int i = 0; i < 100 && executor.activeRooms() > 0; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, executor.activeRooms());
+        executor.shutdown();
+    }
+
+    @Test
+    public void testVirtualModeNeedsJava21() throws InterruptedException {
+        boolean java21 = Runtime.version().feature() >= 21;
+        assertEquals(java21, ExecutionMode.isVirtualAvailable());
+        assertEquals(java21 ? ExecutionMode.VIRTUAL : ExecutionMode.PLATFORM, ExecutionMode.VIRTUAL.effective());
+        assertEquals(ExecutionMode.PLATFORM, ExecutionMode.PLATFORM.effective());
+        if (java21) {
+            RoomExecutor executor = new RoomExecutor(ExecutionMode.newVirtualThreadPerTaskExecutor());
+            CountDownLatch done = new CountDownLatch(1);
+            executor.execute(1L, done::countDown);
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            executor.shutdown();
+        }
+    }
+}
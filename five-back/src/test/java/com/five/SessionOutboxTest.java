@@ -0,0 +1,130 @@
+package com.five;
+
+import com.five.websocket.SessionOutbox;
+import jakarta.websocket.CloseReason;
+import jakarta.websocket.RemoteEndpoint;
+import jakarta.websocket.SendHandler;
+import jakarta.websocket.SendResult;
+import jakarta.websocket.Session;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class SessionOutboxTest {
+
+    // A session whose async writes complete only when the test says so
+    private static class FakeSession {
+        final List<String> written = new ArrayList<>();
+        SendHandler pending;
+        CloseReason closeReason;
+
+        final Session session = (Session) Proxy.newProxyInstance(Session.class.getClassLoader(),
+                new Class<?>[]{Session.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "getAsyncRemote" -> asyncRemote();
+                    case "getId" -> "fake";
+                    case "getNegotiatedSubprotocol" -> "";
+                    case "close" -> {
+                        closeReason = (CloseReason) args[0];
+                        yield null;
+                    }
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+
+        private RemoteEndpoint.Async asyncRemote() {
+            return (RemoteEndpoint.Async) Proxy.newProxyInstance(Session.class.getClassLoader(),
+                    new Class<?>[]{RemoteEndpoint.Async.class}, (proxy, method, args) -> {
+                        if (!"sendText".equals(method.getName()) || args.length != 2) {
+                            throw new UnsupportedOperationException(method.getName());
+                        }
+                        written.add((String) args[0]);
+                        pending = (SendHandler) args[1];
+                        return null;
+                    });
+        }
+
+        void completeWrite() {
+            SendHandler handler = pending;
+            pending = null;
+            handler.onResult(new SendResult());
+        }
+    }
+
+    @Test
+    public void testWritesInOrderOneAtATime() {
+        FakeSession fake = new FakeSession();
+        SessionOutbox outbox = new SessionOutbox(fake.session, 4, 8, 60_000);
+        outbox.send("a");
+        outbox.send("b");
+        outbox.send("c");
+        // Only one write is in flight, the rest wait in the queue
+        assertEquals(List.of("a"), fake.written);
+        assertEquals(2, outbox.queued());
+        fake.completeWrite();
+        fake.completeWrite();
+        fake.completeWrite();
+        assertEquals(List.of("a", "b", "c"), fake.written);
+        assertEquals(0, outbox.queued());
+        assertNull(fake.pending);
+        assertNull(fake.closeReason);
+    }
+
+    @Test
+    public void testSlowConsumerIsEvicted() {
+        FakeSession fake = new FakeSession();
+        SessionOutbox outbox = new SessionOutbox(fake.session, 4, 8, 60_000);
+        long evictions = SessionOutbox.getEvictionCount().get();
+        // Over the high-water mark but under the limit: still connected within the grace period
+        for (int i = 0; i < 7; i++) {
+            outbox.send("frame " + i);
+        }
+        assertNull(fake.closeReason);
+        assertEquals(6, outbox.queued());
+        // The first write never completes, so the queue reaches the hard limit
+        outbox.send("frame 7");
+        outbox.send("frame 8");
+        assertNotNull(fake.closeReason);
+        assertEquals(CloseReason.CloseCodes.TRY_AGAIN_LATER, fake.closeReason.getCloseCode());
+        assertEquals(evictions + 1, SessionOutbox.getEvictionCount().get());
+        assertEquals(0, outbox.queued());
+        // Nothing is queued or written after the eviction
+        outbox.send("late");
+        assertEquals(0, outbox.queued());
+        assertEquals(List.of("frame 0"), fake.written);
+    }
+
+    @Test
+    public void testStayingOverTheMarkIsEvicted() throws InterruptedException {
+        FakeSession fake = new FakeSession();
+        SessionOutbox outbox = new SessionOutbox(fake.session, 2, 100, 20);
+        for (int i = 0; i < 4; i++) {
+            outbox.send("frame " + i);
+        }
+        assertNull(fake.closeReason);
+        Thread.sleep(40);
+        outbox.send("frame 4");
+        assertNotNull(fake.closeReason);
+    }
+
+    @Test
+    public void testCloseWhenDrainedWritesTheQueueFirst() {
+        FakeSession fake = new FakeSession();
+        SessionOutbox outbox = new SessionOutbox(fake.session, 4, 8, 60_000);
+        outbox.send("last move");
+        outbox.send("room count");
+        CloseReason gameOver = new CloseReason(CloseReason.CloseCodes.NORMAL_CLOSURE, "Game over");
+        outbox.closeWhenDrained(gameOver);
+        outbox.send("too late");
+        assertNull(fake.closeReason);
+        fake.completeWrite();
+        assertNull(fake.closeReason);
+        fake.completeWrite();
+        assertEquals(List.of("last move", "room count"), fake.written);
+        assertEquals(gameOver, fake.closeReason);
+    }
+}
@@ -0,0 +1,83 @@
+package com.five;
+
+import com.five.utils.TimingWheel;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TimingWheelTest {
+
+    @Test
+    public void testTimeoutFiresAfterItsDeadline() throws InterruptedException {
+        // A turn of 8 ticks is 80 ms, the timeout is due after more than three turns
+        TimingWheel wheel = new TimingWheel(10, 8, "test-timer");
+        CountDownLatch fired = new CountDownLatch(1);
+        long start = System.nanoTime();
+        long[] elapsedMillis = new long[1];
+        wheel.schedule(300, () -> {
+            elapsedMillis[0] = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            fired.countDown();
+        });
+        assertTrue(fired.await(5, TimeUnit.SECONDS));
+        assertTrue(elapsedMillis[0] >= 300, "Fired early, after " + elapsedMillis[0] + " ms");
+        // Within a tick when the machine is idle; the bound only catches a timeout a turn or more late
+        assertTrue(elapsedMillis[0] < 300 + 2000, "Fired late, after " + elapsedMillis[0] + " ms");
+        assertEquals(0, wheel.pendingTimeouts());
+        wheel.shutdown();
+    }
+
+    @Test
+    public void testCancelledTimeoutNeverFires() throws InterruptedException {
+        TimingWheel wheel = new TimingWheel(5, 16, "test-timer");
+        AtomicInteger fired = new AtomicInteger();
+        TimingWheel.Timeout cancelledAtOnce = wheel.schedule(20, fired::incrementAndGet);
+        // Far enough out to still be pending after the sleep below on a busy machine
+        TimingWheel.Timeout cancelledLater = wheel.schedule(2000, fired::incrementAndGet);
+        CountDownLatch kept = new CountDownLatch(1);
+        TimingWheel.Timeout timeout = wheel.schedule(60, kept::countDown);
+        assertTrue(cancelledAtOnce.cancel());
+        Thread.sleep(50);
+        assertTrue(cancelledLater.cancel());
+        assertFalse(cancelledLater.cancel());
+        assertTrue(kept.await(2, TimeUnit.SECONDS));
+        Thread.sleep(250);
+        assertEquals(0, fired.get());
+        assertTrue(timeout.isExpired());
+        assertFalse(timeout.cancel());
+        assertEquals(0, wheel.pendingTimeouts());
+        wheel.shutdown();
+    }
+
+    @Test
+    public void testManyTimeoutsFireAfterTheirDeadlines() throws InterruptedException {
+        TimingWheel wheel = new TimingWheel(1, 64, "test-timer");
+        int count = 100_000;
+        CountDownLatch fired = new CountDownLatch(count);
+        AtomicInteger early = new AtomicInteger();
+        long[] maxLateNanos = new long[1];
+        for (int i = 0; i < count; i++) {
+            long delay = (i * 7919L) % 500;
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay);
+            wheel.schedule(delay, () -> {
+                long late = System.nanoTime() - deadline;
+                if (late < 0) {
+                    early.incrementAndGet();
+                }
+                maxLateNanos[0] = Math.max(maxLateNanos[0], late);
+                fired.countDown();
+            });
+        }
+        assertTrue(fired.await(30, TimeUnit.SECONDS));
+        assertEquals(0, early.get());
+        // A generous bound, the wheel's thread may be descheduled on a busy machine
+        assertTrue(maxLateNanos[0] < TimeUnit.SECONDS.toNanos(5), "Up to " + maxLateNanos[0] + " ns late");
+        assertEquals(0, wheel.pendingTimeouts());
+        wheel.shutdown();
+    }
+}
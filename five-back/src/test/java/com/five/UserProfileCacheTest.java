@@ -0,0 +1,99 @@
+package com.five;
+
+import com.five.mapper.UserMapper;
+import com.five.pojo.entity.User;
+import com.five.pojo.vo.UserSelectByIdVO;
+import com.five.service.UserProfileCache;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class UserProfileCacheTest {
+
+    // A user table of users 1 to 9 that records the queries it answers
+    private static class FakeMapper {
+        final List<String> queries = new ArrayList<>();
+
+        final UserMapper mapper = (UserMapper) Proxy.newProxyInstance(UserMapper.class.getClassLoader(),
+                new Class<?>[]{UserMapper.class}, (proxy, method, args) -> {
+                    queries.add(method.getName());
+                    return switch (method.getName()) {
+                        case "selectUserById" -> profile((Long) args[0]);
+                        case "selectUsersByIds" -> ((Collection<?>) args[0]).stream()
+                                .map(id -> profile((Long) id)).filter(profile -> profile != null).toList();
+                        case "update" -> 1;
+                        default -> throw new UnsupportedOperationException(method.getName());
+                    };
+                });
+
+        private static UserSelectByIdVO profile(Long id) {
+            if (id < 1 || id > 9) {
+                return null;
+            }
+            UserSelectByIdVO profile = new UserSelectByIdVO();
+            profile.setId(id);
+            profile.setUsername("user" + id);
+            return profile;
+        }
+    }
+
+    @Test
+    public void testRosterMissesAreReadInOneQuery() {
+        FakeMapper fake = new FakeMapper();
+        UserProfileCache cache = new UserProfileCache(fake.mapper, 100, 60_000);
+        UserSelectByIdVO first = cache.get(1L);
+        Map<Long, UserSelectByIdVO> roster = cache.getAll(Set.of(1L, 2L, 3L, 42L));
+        assertEquals(List.of("selectUserById", "selectUsersByIds"), fake.queries);
+        assertEquals(Set.of(1L, 2L, 3L), roster.keySet());
+        assertSame(first, roster.get(1L));
+        assertNull(cache.get(42L));
+        // Everyone in the room is cached now
+        cache.getAll(Set.of(1L, 2L, 3L));
+        assertEquals(3, fake.queries.size());
+        assertEquals(4, cache.getHitCount());
+        assertEquals(5, cache.getMissCount());
+    }
+
+    @Test
+    public void testUpdateInvalidates() {
+        FakeMapper fake = new FakeMapper();
+        UserProfileCache cache = new UserProfileCache(fake.mapper, 100, 60_000);
+        UserSelectByIdVO before = cache.get(5L);
+        cache.update(User.builder().id(5L).game_total_counts(1).build());
+        assertEquals(List.of("selectUserById", "update"), fake.queries);
+        UserSelectByIdVO after = cache.get(5L);
+        assertEquals("selectUserById", fake.queries.get(2));
+        assertEquals(before, after);
+    }
+
+    @Test
+    public void testSizeAndTtlBounds() throws InterruptedException {
+        FakeMapper fake = new FakeMapper();
+        UserProfileCache cache = new UserProfileCache(fake.mapper, 2, 60_000);
+        cache.get(1L);
+        cache.get(2L);
+        cache.get(1L);
+        cache.get(3L);
+        // 2 was the least recently used
+        assertEquals(2, cache.size());
+        cache.get(1L);
+        assertEquals(3, fake.queries.size());
+        cache.get(2L);
+        assertEquals(4, fake.queries.size());
+
+        UserProfileCache shortLived = new UserProfileCache(fake.mapper, 100, 10);
+        shortLived.get(7L);
+        Thread.sleep(20);
+        shortLived.get(7L);
+        assertEquals(6, fake.queries.size());
+    }
+}
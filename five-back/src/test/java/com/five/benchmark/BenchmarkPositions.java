@@ -0,0 +1,56 @@
+package com.five.benchmark;
+
+import com.five.utils.BitGameBoard;
+import com.five.utils.GameBoard;
+
+// Positions shared by the benchmarks. All of them are free of fives, so a game-over check has to
+// look at everything it would look at in a running game.
+final class BenchmarkPositions {
+
+    static final String EMPTY = "empty";
+    static final String MIDGAME = "midgame";
+    static final String NEAR_FULL = "nearFull";
+
+    private BenchmarkPositions() {
+    }
+
+    // Pairs of columns alternating by row never line up five of a color in any direction
+    static int colorAt(int x, int y) {
+        return (x / 2 + y) % 2 + 1;
+    }
+
+    static GameBoard board(String position) {
+        GameBoard board = new BitGameBoard();
+        for (int x = 0; x < GameBoard.SIZE; x++) {
+            for (int y = 0; y < GameBoard.SIZE; y++) {
+                if (contains(position, x, y)) {
+                    board.place(x, y, colorAt(x, y));
+                }
+            }
+        }
+        return board;
+    }
+
+    static Integer[][] legacyBoard(String position) {
+        Integer[][] board = new Integer[GameBoard.SIZE][GameBoard.SIZE];
+        for (int x = 0; x < GameBoard.SIZE; x++) {
+            for (int y = 0; y < GameBoard.SIZE; y++) {
+                board[x][y] = contains(position, x, y) ? colorAt(x, y) : GameBoard.EMPTY;
+            }
+        }
+        return board;
+    }
+
+    private static boolean contains(String position, int x, int y) {
+        switch (position) {
+            case MIDGAME:
+                // 42 stones around the centre
+                return x >= 5 && x <= 10 && y >= 4 && y <= 10;
+            case NEAR_FULL:
+                // Everything but the last point
+                return x != GameBoard.SIZE - 1 || y != GameBoard.SIZE - 1;
+            default:
+                return false;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.five.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Runs every benchmark of this package, writes the score of each as JSON and compares them with the
+// checked-in baseline, exiting with 1 when one has regressed so the build fails. Run through the
+// benchmark profile:
+//   mvn -B -Pbenchmark -DskipTests verify
+// The scores keep only the benchmark, its mode and parameters and the score, not the machine they
+// ran on; the full JMH output is written next to them with a jmh- prefix. After an intended change
+// in performance, copy the entries of target/benchmark-results.json into benchmarks/baseline.json.
+// The baseline was taken on one machine, compare runs on similar hardware.
+public class BenchmarkRunner {
+
+    // Slower than the baseline by more than this is reported as a regression
+    private static final double REGRESSION_THRESHOLD = 1.25;
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BenchmarkRunner <baseline.json> <results.json> [benchmark regex]");
+            System.exit(1);
+        }
+        File baseline = new File(args[0]);
+        File results = new File(args[1]);
+        File jmhResults = new File(results.getAbsoluteFile().getParentFile(), "jmh-" + results.getName());
+        Options options = new OptionsBuilder()
+                .include(args.length > 2 ? args[2] : BenchmarkRunner.class.getPackageName() + ".*Benchmark")
+                .resultFormat(ResultFormatType.JSON)
+                .result(jmhResults.getPath())
+                .build();
+        new Runner(options).run();
+        writeScores(jmhResults, results);
+
+        if (!baseline.exists()) {
+            System.out.println("No baseline at " + baseline + ", copy " + results + " there to create one");
+            return;
+        }
+        Map<String, Double> before = scores(baseline);
+        Map<String, Double> after = scores(results);
+        int regressions = 0;
+        System.out.printf("%n%-75s %12s %12s %8s%n", "Benchmark", "Baseline", "Now", "Ratio");
+        for (Map.Entry<String, Double> entry : after.entrySet()) {
+            Double old = before.get(entry.getKey());
+            if (old == null) {
+                System.out.printf("%-75s %12s %12.2f%n", entry.getKey(), "-", entry.getValue());
+                continue;
+            }
+            // Every benchmark here measures time per operation, so a higher ratio is slower
+            double ratio = entry.getValue() / old;
+            boolean regression = ratio > REGRESSION_THRESHOLD;
+            regressions += regression ? 1 : 0;
+            System.out.printf("%-75s %12.2f %12.2f %7.2fx%s%n", entry.getKey(), old, entry.getValue(), ratio,
+                    regression ? "  REGRESSION" : "");
+        }
+        System.out.printf("%d regression(s) over %.0f%%%n", regressions, (REGRESSION_THRESHOLD - 1) * 100);
+        if (regressions > 0) {
+            System.exit(1);
+        }
+    }
+
+    // The part of the JMH results that is compared, without the JVM and machine they came from
+    private static void writeScores(File jmhResults, File results) throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        ArrayNode scores = objectMapper.createArrayNode();
+        for (JsonNode result : objectMapper.readTree(jmhResults)) {
+            ObjectNode score = scores.addObject();
+            score.set("benchmark", result.get("benchmark"));
+            score.set("mode", result.get("mode"));
+            if (result.get("params") != null) {
+                score.set("params", result.get("params"));
+            }
+            score.set("score", result.get("primaryMetric").get("score"));
+            score.set("scoreUnit", result.get("primaryMetric").get("scoreUnit"));
+        }
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(results, scores);
+    }
+
+    // Score of each benchmark and parameter combination in a file written by writeScores
+    private static Map<String, Double> scores(File file) throws IOException {
+        Map<String, Double> scores = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(file)) {
+            StringBuilder key = new StringBuilder(result.get("benchmark").asText()
+                    .replace(BenchmarkRunner.class.getPackageName() + ".", ""));
+            JsonNode params = result.get("params");
+            if (params != null) {
+                params.fields().forEachRemaining(param -> key.append(' ').append(param.getKey())
+                        .append('=').append(param.getValue().asText()));
+            }
+            scores.put(key.toString(), result.get("score").asDouble());
+        }
+        return scores;
+    }
+}
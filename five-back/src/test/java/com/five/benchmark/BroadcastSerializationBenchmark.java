@@ -0,0 +1,96 @@
+package com.five.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.five.pojo.vo.RoomEventVO;
+import com.five.utils.BinaryFrames;
+import com.five.utils.GameBoard;
+import com.five.utils.GameResult;
+import com.five.utils.MessageType;
+import com.five.utils.Role;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+// Jackson and binary subprotocol encoding of the outbound events as broadcast and
+// sendToAllUserForObserver encode them, and a move fanned out to a room: encoded once as broadcast does, and once per recipient
+// with a map as sendToAllUser used to
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BroadcastSerializationBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private GameBoard board;
+
+    @State(Scope.Benchmark)
+    public static class Room {
+        @Param({"2", "200"})
+        public int recipients;
+    }
+
+    @Setup
+    public void setUp() {
+        board = BenchmarkPositions.board(BenchmarkPositions.MIDGAME);
+    }
+
+    @Benchmark
+    public String movePayload() throws Exception {
+        return objectMapper.writeValueAsString(new RoomEventVO.Move(MessageType.MOVE.getValue(), 12, 1024L,
+                Role.BLACK, 7, 11, GameResult.CONTINUE.getValue()));
+    }
+
+    @Benchmark
+    public ByteBuffer moveBinary() {
+        return BinaryFrames.encode(new RoomEventVO.Move(MessageType.MOVE.getValue(), 12, 1024L,
+                Role.BLACK, 7, 11, GameResult.CONTINUE.getValue()));
+    }
+
+    @Benchmark
+    public String observerPayload() throws Exception {
+        return objectMapper.writeValueAsString(new RoomEventVO.ObserverUpdate(MessageType.OBSERVER_UPDATE.getValue(), 12,
+                1024L, Role.SPECTATOR, board, GameResult.CONTINUE, 42L));
+    }
+
+    @Benchmark
+    public ByteBuffer observerBinary() {
+        return BinaryFrames.encode(new RoomEventVO.ObserverUpdate(MessageType.OBSERVER_UPDATE.getValue(), 12,
+                1024L, Role.SPECTATOR, board, GameResult.CONTINUE, 42L));
+    }
+
+    @Benchmark
+    public void moveFanOut(Room room, Blackhole blackhole) throws Exception {
+        String frame = movePayload();
+        for (int i = 0; i < room.recipients; i++) {
+            blackhole.consume(frame);
+        }
+    }
+
+    @Benchmark
+    public void moveFanOutPerRecipient(Room room, Blackhole blackhole) throws Exception {
+        for (int i = 0; i < room.recipients; i++) {
+            HashMap<Object, Object> map = new HashMap<>();
+            map.put("type", MessageType.MOVE.getValue());
+            map.put("id", 1024L);
+            map.put("role", "Joueur Noir");
+            map.put("message", "(7,11)");
+            map.put("isGameOver", GameResult.CONTINUE.getValue());
+            blackhole.consume(objectMapper.writeValueAsString(map));
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.five.benchmark;
+
+import com.five.utils.FiveGameUtil;
+import com.five.utils.GameBoard;
+import com.five.utils.GameResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// FiveGameUtil.isGameOver: the full-board scans and the check through the last move
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameOverBenchmark {
+
+    @Param({BenchmarkPositions.EMPTY, BenchmarkPositions.MIDGAME, BenchmarkPositions.NEAR_FULL})
+    public String position;
+
+    private Integer[][] legacyBoard;
+    private GameBoard board;
+    private int lastX;
+    private int lastY;
+    private int lastColor;
+
+    @Setup
+    public void setUp() {
+        legacyBoard = BenchmarkPositions.legacyBoard(position);
+        board = BenchmarkPositions.board(position);
+        lastX = GameBoard.SIZE / 2;
+        lastY = GameBoard.SIZE / 2;
+        lastColor = BenchmarkPositions.colorAt(lastX, lastY);
+    }
+
+    @Benchmark
+    public GameResult fullScanLegacyBoard() {
+        return FiveGameUtil.isGameOver(legacyBoard);
+    }
+
+    @Benchmark
+    public GameResult fullScan() {
+        return FiveGameUtil.isGameOver(board);
+    }
+
+    @Benchmark
+    public GameResult lastMove() {
+        return FiveGameUtil.isGameOver(board, lastX, lastY, lastColor);
+    }
+}
@@ -0,0 +1,82 @@
+package com.five.benchmark;
+
+import com.five.utils.MoveJournal;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+// What journaling a move costs the room thread that plays it, with room threads journaling at once
+// and the flusher forcing the segment every 50 ms as configured. Each thread plays its own rooms'
+// games of 100 moves, so segments fill and rotate during the run.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoveJournalBenchmark {
+
+    private static final int MOVES_PER_GAME = 100;
+
+    private final AtomicLong nextRoomId = new AtomicLong();
+    private Path directory;
+    private MoveJournal journal;
+
+    @State(Scope.Thread)
+    public static class Game {
+        long roomId;
+        long gameId;
+        int ply = MOVES_PER_GAME;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("journal-benchmark");
+        journal = new MoveJournal(directory, 16 * 1024 * 1024, 50);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        journal.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int move(Game game) {
+        if (game.ply == MOVES_PER_GAME) {
+            if (game.gameId != 0) {
+                journal.gameEnded(game.roomId, game.gameId);
+            }
+            game.roomId = nextRoomId.incrementAndGet();
+            game.gameId = game.roomId;
+            game.ply = 0;
+            journal.gameStarted(game.roomId, game.gameId, 1, 2, false);
+        }
+        int ply = game.ply++;
+        journal.moved(game.roomId, game.gameId, ply / 15, ply % 15, 1 + ply % 2);
+        return ply;
+    }
+}
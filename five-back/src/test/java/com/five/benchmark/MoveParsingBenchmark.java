@@ -0,0 +1,47 @@
+package com.five.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.five.pojo.pojo.OnlineFiveMessage;
+import com.five.utils.InboundMessage;
+import com.five.utils.MessageDecoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Inbound move handling before the board is touched: decoding the frame and reading "(x,y)",
+// as onMessage does with its session's decoder. decodeFrameWithJackson keeps the earlier
+// Jackson and regex path for comparison.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoveParsingBenchmark {
+
+    // A move frame as the board page sends it
+    private final String frame = "{\"type\":4,\"role\":\"Joueur Noir\",\"stepOrder\":12,\"gameId\":1024,\"message\":\"(7,11)\"}";
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final MessageDecoder decoder = new MessageDecoder();
+
+    @Benchmark
+    public int decodeFrameAndParseMove() {
+        InboundMessage message = decoder.decode(frame);
+        return message.getX() * 15 + message.getY();
+    }
+
+    @Benchmark
+    public int decodeFrameWithJackson() throws Exception {
+        OnlineFiveMessage message = objectMapper.readValue(frame, OnlineFiveMessage.class);
+        String[] split = message.getMessage().replaceAll("[()]", "").split(",");
+        return Integer.parseInt(split[0]) * 15 + Integer.parseInt(split[1]);
+    }
+}
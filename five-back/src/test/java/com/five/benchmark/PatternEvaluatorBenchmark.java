@@ -0,0 +1,81 @@
+package com.five.benchmark;
+
+import com.five.utils.GameBoard;
+import com.five.utils.PatternEvaluator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// PatternEvaluator: the score the search reads at a leaf, the incremental update of a move made
+// and taken back, and scoring a whole position from scratch
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PatternEvaluatorBenchmark {
+
+    @Param({BenchmarkPositions.EMPTY, BenchmarkPositions.MIDGAME, BenchmarkPositions.NEAR_FULL})
+    public String position;
+
+    private int[] stones;
+    private PatternEvaluator evaluator;
+    private int move;
+
+    @Setup
+    public void setUp() {
+        GameBoard board = BenchmarkPositions.board(position);
+        stones = new int[GameBoard.CELLS];
+        evaluator = new PatternEvaluator();
+        // The free point nearest the centre is the move made and taken back
+        int center = GameBoard.SIZE / 2;
+        int nearest = Integer.MAX_VALUE;
+        for (int x = 0; x < GameBoard.SIZE; x++) {
+            for (int y = 0; y < GameBoard.SIZE; y++) {
+                int index = x * GameBoard.SIZE + y;
+                stones[index] = board.get(x, y);
+                if (stones[index] != GameBoard.EMPTY) {
+                    evaluator.place(index, stones[index]);
+                } else if (Math.abs(x - center) + Math.abs(y - center) < nearest) {
+                    nearest = Math.abs(x - center) + Math.abs(y - center);
+                    move = index;
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public int evaluate() {
+        return evaluator.evaluate(GameBoard.BLACK);
+    }
+
+    @Benchmark
+    public int placeAndRemove() {
+        evaluator.place(move, GameBoard.BLACK);
+        int score = evaluator.evaluate(GameBoard.WHITE);
+        evaluator.remove(move, GameBoard.BLACK);
+        return score;
+    }
+
+    @Benchmark
+    public int fullRescore() {
+        PatternEvaluator rescored = new PatternEvaluator();
+        for (int index = 0; index < GameBoard.CELLS; index++) {
+            if (stones[index] != GameBoard.EMPTY) {
+                rescored.place(index, stones[index]);
+            }
+        }
+        return rescored.evaluate(GameBoard.BLACK);
+    }
+}
@@ -0,0 +1,69 @@
+package com.five.benchmark;
+
+import com.five.utils.Role;
+import com.five.websocket.Room;
+import com.five.websocket.RoomRegistry;
+import jakarta.websocket.Session;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Joining and leaving rooms on the shared room registry, which many websocket threads touch at
+// once. Each operation opens a room, seats two players and a spectator, then empties it again.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RoomSessionsBenchmark {
+
+    // Rooms that stay open the whole run, so the map has a realistic size
+    private static final int OPEN_ROOMS = 10_000;
+
+    private final AtomicLong nextRoomId = new AtomicLong(OPEN_ROOMS);
+    // Only compared by identity, like the container's sessions
+    private static final Session SESSION = (Session) Proxy.newProxyInstance(Session.class.getClassLoader(),
+            new Class<?>[]{Session.class}, (proxy, method, args) -> {
+                throw new UnsupportedOperationException(method.getName());
+            });
+
+    private RoomRegistry rooms;
+
+    @Setup
+    public void setUp() {
+        rooms = new RoomRegistry();
+        for (long roomId = 0; roomId < OPEN_ROOMS; roomId++) {
+            Room room = rooms.computeIfAbsent(roomId, id -> new Room(id, 64));
+            room.seat(Role.BLACK, roomId * 2, SESSION);
+            room.seat(Role.WHITE, roomId * 2 + 1, SESSION);
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int joinAndLeave() {
+        long roomId = nextRoomId.getAndIncrement();
+        // Each room's members are only touched by its own task, as on the room executor
+        Room room = rooms.computeIfAbsent(roomId, id -> new Room(id, 64));
+        room.seat(Role.BLACK, 1L, SESSION);
+        room.seat(Role.WHITE, 2L, SESSION);
+        room.seat(Role.SPECTATOR, 3L, SESSION);
+        int size = rooms.get(roomId).size();
+        room.remove(3L);
+        rooms.remove(room);
+        return size;
+    }
+}
@@ -0,0 +1,77 @@
+package com.five.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.five.constant.GameConstant;
+import com.five.pojo.vo.GameActor;
+import com.five.pojo.vo.RoomEventVO;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class BinaryFramesTest {
+
+    @Test
+    public void testJsonEncoding() throws Exception {
+        // The typed events encode to the JSON the per-recipient maps used to produce, plus seq
+        ObjectMapper objectMapper = new ObjectMapper();
+        HashMap<Object, Object> move = new HashMap<>();
+        move.put("type", MessageType.MOVE.getValue());
+        move.put("seq", 3);
+        move.put("id", 1024L);
+        move.put("role", "Joueur Noir");
+        move.put("message", "(7,11)");
+        move.put("isGameOver", GameResult.CONTINUE.getValue());
+        assertEquals(objectMapper.readTree(objectMapper.writeValueAsString(move)), objectMapper.readTree(objectMapper.writeValueAsString(
+                new RoomEventVO.Move(MessageType.MOVE.getValue(), 3, 1024L, Role.BLACK, 7, 11, GameResult.CONTINUE.getValue()))));
+
+        GameBoard board = new BitGameBoard();
+        board.place(7, 7, GameBoard.BLACK);
+        HashMap<String, Object> observer = new HashMap<>();
+        observer.put("type", MessageType.OBSERVER_UPDATE.getValue());
+        observer.put("seq", 3);
+        observer.put("id", 1024L);
+        observer.put("role", "Spectateur");
+        observer.put("message", board);
+        observer.put("isGameOver", GameResult.CONTINUE);
+        observer.put("gameId", 42L);
+        assertEquals(objectMapper.readTree(objectMapper.writeValueAsString(observer)), objectMapper.readTree(objectMapper.writeValueAsString(
+                new RoomEventVO.ObserverUpdate(MessageType.OBSERVER_UPDATE.getValue(), 3, 1024L, Role.SPECTATOR, board, GameResult.CONTINUE, 42L))));
+
+        List<GameActor> actors = List.of(new GameActor(1L, "Joueur Noir", "alice"));
+        HashMap<String, Object> roomCount = new HashMap<>();
+        roomCount.put("type", MessageType.ROOM_COUNT_UPDATE.getValue());
+        roomCount.put("seq", 3);
+        roomCount.put("actors", actors);
+        assertEquals(objectMapper.readTree(objectMapper.writeValueAsString(roomCount)), objectMapper.readTree(objectMapper.writeValueAsString(
+                new RoomEventVO.RoomCount(MessageType.ROOM_COUNT_UPDATE.getValue(), 3, actors))));
+    }
+
+    @Test
+    public void testBinaryEncoding() {
+        // Room events end with the low byte of their sequence number
+        ByteBuffer move = BinaryFrames.encode(new RoomEventVO.Move(MessageType.MOVE.getValue(), 300, 1024L, Role.WHITE, 7, 11, GameResult.WHITE_WIN.getValue()));
+        assertEquals(ByteBuffer.wrap(new byte[]{4, (byte) (7 * 15 + 11), 2 << 4 | 2, 44}), move);
+        ByteBuffer resign = BinaryFrames.encode(new RoomEventVO.Game(MessageType.RESIGN.getValue(), 5, 1024L, Role.BLACK, "forced", GameResult.BLACK_WIN.getValue()));
+        assertEquals(ByteBuffer.wrap(new byte[]{7, 1 << 4 | 1, 1, 5}), resign);
+        // A draw has no winner, its role is 0
+        ByteBuffer draw = BinaryFrames.encode(new RoomEventVO.Game(MessageType.RESIGN.getValue(), 6, null, null, GameConstant.RESIGN_ABANDONED, GameResult.DRAW.getValue()));
+        assertEquals(GameResult.DRAW.getValue(), draw.get(1));
+        assertNull(BinaryFrames.encode(new RoomEventVO.Game(MessageType.CHAT_MESSAGE.getValue(), 6, 1024L, Role.SPECTATOR, "bonjour", 0)));
+
+        GameBoard board = new BitGameBoard();
+        board.place(0, 1, GameBoard.BLACK);
+        board.place(14, 14, GameBoard.WHITE);
+        ByteBuffer snapshot = BinaryFrames.encode(new RoomEventVO.ObserverUpdate(MessageType.OBSERVER_UPDATE.getValue(), 300, 1024L, Role.SPECTATOR, board, GameResult.CONTINUE, 42L));
+        assertEquals(14 + 57, snapshot.remaining());
+        assertEquals(MessageType.OBSERVER_UPDATE.getValue(), snapshot.get(0));
+        assertEquals(300, snapshot.getInt(2)); // The full sequence number
+        assertEquals(42, snapshot.getLong(6)); // The game it counts in
+        assertEquals(1 << 2, snapshot.get(14)); // Cell 1 of the first byte
+        assertEquals(GameBoard.WHITE, snapshot.get(14 + 56)); // Cell 224 alone in the last byte
+    }
+}
@@ -0,0 +1,67 @@
+package com.five.utils;
+
+import com.five.exception.MessageFormatException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class MessageDecoderTest {
+
+    @Test
+    public void testJsonFrames() {
+        MessageDecoder decoder = new MessageDecoder();
+        InboundMessage move = decoder.decode("{\"type\":4,\"role\":\"Joueur Noir\",\"stepOrder\":12,\"gameId\":1024,\"message\":\"(7,11)\"}");
+        assertEquals(MessageType.MOVE, move.getType());
+        assertEquals(7, move.getX());
+        assertEquals(11, move.getY());
+
+        // JOIN_ROOM arrives with a quoted type; unknown fields are skipped
+        InboundMessage join = decoder.decode("{\"type\":\"1\",\"extra\":{\"a\":[1,true,null]}}");
+        assertEquals(MessageType.JOIN_ROOM, join.getType());
+
+        InboundMessage chat = decoder.decode("{\"type\":3,\"role\":\"Spectateur\",\"message\":\"bonjour \\\"\\u00e0 tous\\\"\"}");
+        assertEquals("bonjour \"\u00e0 tous\"", chat.getMessage());
+
+        String[] malformed = {
+                "",
+                "{\"type\":4,\"role\":\"Joueur Noir\",\"message\":\"(7,15)\"}",
+                "{\"type\":4,\"role\":\"Joueur Noir\",\"message\":\"7,11\"}",
+                "{\"type\":4,\"role\":\"Joueur Noir\"}",
+                "{\"type\":4,\"role\":\"Arbitre\",\"message\":\"(7,11)\"}",
+                "{\"type\":42}",
+                "{\"role\":\"Spectateur\"}",
+                "{\"type\":3,\"message\":\"open",
+                "{\"type\":3} trailing"
+        };
+        for (String frame : malformed) {
+            assertThrows(MessageFormatException.class, () -> decoder.decode(frame), frame);
+        }
+    }
+
+    @Test
+    public void testBinaryFrames() {
+        MessageDecoder decoder = new MessageDecoder();
+        InboundMessage inbound = decoder.decode(ByteBuffer.wrap(new byte[]{4, (byte) (7 * 15 + 11), 1}));
+        assertEquals(MessageType.MOVE, inbound.getType());
+        assertEquals(7, inbound.getX());
+        assertEquals(11, inbound.getY());
+        assertEquals(MessageType.JOIN_ROOM, decoder.decode(ByteBuffer.wrap(new byte[]{1})).getType());
+        assertEquals(-1, decoder.decode(ByteBuffer.wrap(new byte[]{1})).getSeq());
+        InboundMessage join = decoder.decode(ByteBuffer.wrap(new byte[]{1, 0, 0, 1, 44, 0, 0, 0, 0, 0, 0, 0, 42}));
+        assertEquals(300, join.getSeq());
+        assertEquals(42, join.getGameId());
+        join = decoder.decode("{\"type\":\"1\",\"seq\":42,\"gameId\":7}");
+        assertEquals(42, join.getSeq());
+        assertEquals(7, join.getGameId());
+        assertEquals(MessageType.RESIGN, decoder.decode(ByteBuffer.wrap(new byte[]{7, 2})).getType());
+
+        byte[][] malformed = {{}, {4, (byte) 225, 1}, {4, 0, 4}, {4, 0}, {3, 0}, {7, 0}, {1, 0, 0}, {1, 0, 0, 1, 44}};
+        for (byte[] frame : malformed) {
+            assertThrows(MessageFormatException.class, () -> decoder.decode(ByteBuffer.wrap(frame)), Arrays.toString(frame));
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.five.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PatternEvaluatorTest {
+
+    // The shape of a run written as X for an own stone and . for a free point
+    private static int shape(String run) {
+        int own = 0;
+        for (int i = 0; i < run.length(); i++) {
+            if (run.charAt(i) == 'X') {
+                own |= 1 << i;
+            }
+        }
+        return PatternEvaluator.shapeOf(run.length(), own);
+    }
+
+    private static int index(int x, int y) {
+        return x * GameBoard.SIZE + y;
+    }
+
+    @Test
+    public void testShapes() {
+        assertEquals(PatternEvaluator.FIVE, shape("XXXXX"));
+        assertEquals(PatternEvaluator.FIVE, shape("..XXXXX.X"));
+        assertEquals(PatternEvaluator.OPEN_FOUR, shape(".XXXX."));
+        assertEquals(PatternEvaluator.OPEN_FOUR, shape("...XXXX...."));
+        // One point completes five: at the end of the run, or in the gap
+        assertEquals(PatternEvaluator.FOUR, shape("XXXX."));
+        assertEquals(PatternEvaluator.FOUR, shape("XXXX......"));
+        assertEquals(PatternEvaluator.FOUR, shape("..X.XXX.."));
+        assertEquals(PatternEvaluator.FOUR, shape("XX.XX"));
+        assertEquals(PatternEvaluator.OPEN_THREE, shape("..XXX.."));
+        // A broken three is open when filling the gap makes an open four
+        assertEquals(PatternEvaluator.OPEN_THREE, shape(".X.XX.."));
+        assertEquals(PatternEvaluator.OPEN_THREE, shape("..XX.X."));
+        // Against the end of the run only a four can come of it
+        assertEquals(PatternEvaluator.THREE, shape("XXX...."));
+        assertEquals(PatternEvaluator.THREE, shape("X.XX..."));
+        assertEquals(PatternEvaluator.THREE, shape(".XXX."));
+        assertEquals(PatternEvaluator.OPEN_TWO, shape("...XX...."));
+        assertEquals(PatternEvaluator.ONE, shape("....X...."));
+        assertEquals(PatternEvaluator.NONE, shape("......."));
+    }
+
+    @Test
+    public void testIncrementalScoreMatchesFullRescore() {
+        Random random = new Random(5);
+        PatternEvaluator evaluator = new PatternEvaluator();
+        int[] board = new int[GameBoard.CELLS];
+        List<Integer> stones = new ArrayList<>();
+        for (int step = 0; step < 2_000; step++) {
+            if (!stones.isEmpty() && random.nextInt(3) == 0) {
+                int index = stones.remove(random.nextInt(stones.size()));
+                evaluator.remove(index, board[index]);
+                board[index] = GameBoard.EMPTY;
+            } else {
+                int index = random.nextInt(GameBoard.CELLS);
+                if (board[index] != GameBoard.EMPTY) {
+                    continue;
+                }
+                board[index] = step % 2 == 0 ? GameBoard.BLACK : GameBoard.WHITE;
+                evaluator.place(index, board[index]);
+                stones.add(index);
+            }
+            if (step % 100 == 0) {
+                assertSameScores(rescore(board), evaluator);
+            }
+        }
+        assertSameScores(rescore(board), evaluator);
+    }
+
+    @Test
+    public void testPlaceThenRemoveRestoresTheScore() {
+        PatternEvaluator evaluator = new PatternEvaluator();
+        evaluator.place(index(7, 7), GameBoard.BLACK);
+        evaluator.place(index(7, 8), GameBoard.BLACK);
+        evaluator.place(index(8, 8), GameBoard.WHITE);
+        int black = evaluator.evaluate(GameBoard.BLACK);
+        int white = evaluator.evaluate(GameBoard.WHITE);
+        for (int index = 0; index < GameBoard.CELLS; index++) {
+            if (index == index(7, 7) || index == index(7, 8) || index == index(8, 8)) {
+                continue;
+            }
+            evaluator.place(index, GameBoard.WHITE);
+            evaluator.remove(index, GameBoard.WHITE);
+            assertEquals(black, evaluator.evaluate(GameBoard.BLACK));
+            assertEquals(white, evaluator.evaluate(GameBoard.WHITE));
+        }
+    }
+
+    @Test
+    public void testThreatsAtTheEdges() {
+        PatternEvaluator evaluator = new PatternEvaluator();
+        // Three black stones from the corner along the first row
+        evaluator.place(index(0, 0), GameBoard.BLACK);
+        evaluator.place(index(0, 1), GameBoard.BLACK);
+        evaluator.place(index(0, 2), GameBoard.BLACK);
+        assertTrue(evaluator.makesFour(index(0, 3), GameBoard.BLACK));
+        assertTrue(evaluator.makesFour(index(0, 4), GameBoard.BLACK));
+        assertFalse(evaluator.makesFour(index(0, 5), GameBoard.BLACK));
+        // Blocked by the edge on one side and by white on the other, no five fits any more
+        evaluator.place(index(0, 4), GameBoard.WHITE);
+        assertFalse(evaluator.makesFour(index(0, 3), GameBoard.BLACK));
+
+        // Two white stones in the corner of the last column make only a closed three
+        evaluator.place(index(13, 14), GameBoard.WHITE);
+        evaluator.place(index(14, 14), GameBoard.WHITE);
+        assertFalse(evaluator.makesOpenThree(index(12, 14), GameBoard.WHITE));
+        assertFalse(evaluator.makesOpenThree(index(11, 14), GameBoard.WHITE));
+        // One point away from the corner they have room for an open three
+        evaluator.remove(index(14, 14), GameBoard.WHITE);
+        evaluator.place(index(12, 14), GameBoard.WHITE);
+        assertTrue(evaluator.makesOpenThree(index(11, 14), GameBoard.WHITE));
+        assertTrue(evaluator.makesOpenThree(index(10, 14), GameBoard.WHITE));
+        assertFalse(evaluator.makesOpenThree(index(14, 14), GameBoard.WHITE));
+    }
+
+    private static PatternEvaluator rescore(int[] board) {
+        PatternEvaluator evaluator = new PatternEvaluator();
+        for (int index = 0; index < GameBoard.CELLS; index++) {
+            if (board[index] != GameBoard.EMPTY) {
+                evaluator.place(index, board[index]);
+            }
+        }
+        return evaluator;
+    }
+
+    private static void assertSameScores(PatternEvaluator expected, PatternEvaluator actual) {
+        for (int color = GameBoard.BLACK; color <= GameBoard.WHITE; color++) {
+            assertEquals(expected.evaluate(color), actual.evaluate(color));
+            assertEquals(expected.fourCount(color), actual.fourCount(color));
+        }
+    }
+}
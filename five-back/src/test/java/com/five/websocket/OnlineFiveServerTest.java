@@ -0,0 +1,137 @@
+package com.five.websocket;
+
+import com.five.pojo.dto.UserStatisticsDTO;
+import com.five.pojo.entity.GameHistory;
+import com.five.pojo.pojo.WebsocketProperties;
+import com.five.service.GameResultWriter;
+import com.five.utils.AiMoveExecutor;
+import com.five.utils.BitGameBoard;
+import com.five.utils.GameBoard;
+import com.five.utils.GameResult;
+import com.five.utils.MoveJournal;
+import com.five.utils.Role;
+import com.five.utils.RoomExecutor;
+import com.five.utils.TimeControl;
+import com.five.utils.TimingWheel;
+import jakarta.websocket.Session;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class OnlineFiveServerTest {
+
+    private static Session session() {
+        return (Session) Proxy.newProxyInstance(Session.class.getClassLoader(), new Class<?>[]{Session.class},
+                (proxy, method, args) -> {
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static Room twoPlayerRoom() {
+        Room room = new Room(1, 8);
+        room.seat(Role.BLACK, 7, session());
+        room.seat(Role.WHITE, 8, session());
+        return room;
+    }
+
+    @Test
+    public void testLoserWhoResignsAndLeavesStillLoses() {
+        Room room = twoPlayerRoom();
+        // Black resigns, then its socket closes before the end of the game reaches the room
+        room.setConcluding(true);
+        room.remove(7);
+        assertNull(room.roleOf(7));
+        assertEquals(List.of(new UserStatisticsDTO(7L, 1, 0, 1, 0), new UserStatisticsDTO(8L, 1, 1, 0, 0)),
+                OnlineFiveServer.playerStatistics(room, GameResult.WHITE_WIN));
+    }
+
+    @Test
+    public void testHeldSeatIsCounted() {
+        Room room = twoPlayerRoom();
+        // White was cut off and forfeits at the end of the grace period
+        room.remove(8);
+        room.hold(Role.WHITE, 8);
+        assertEquals(List.of(new UserStatisticsDTO(7L, 1, 1, 0, 0), new UserStatisticsDTO(8L, 1, 0, 1, 0)),
+                OnlineFiveServer.playerStatistics(room, GameResult.BLACK_WIN));
+        assertEquals(List.of(new UserStatisticsDTO(7L, 1, 0, 0, 1), new UserStatisticsDTO(8L, 1, 0, 0, 1)),
+                OnlineFiveServer.playerStatistics(room, GameResult.DRAW));
+    }
+
+    @Test
+    public void testAiHasNoStatistics() {
+        Room room = new Room(1, 8);
+        room.setAi(true);
+        room.seat(Role.BLACK, 7, session());
+        room.remove(7);
+        assertEquals(List.of(new UserStatisticsDTO(7L, 1, 0, 1, 0)),
+                OnlineFiveServer.playerStatistics(room, GameResult.WHITE_WIN));
+    }
+
+    @Test
+    public void testResignerCannotWinOnTime() throws InterruptedException {
+        List<GameHistory> results = new ArrayList<>();
+        GameResultWriter writer = new GameResultWriter(100, 10, 5_000, 0, 1, (written, statistics) -> {
+            synchronized (results) {
+                results.addAll(written);
+            }
+        });
+        RoomExecutor roomExecutor = new RoomExecutor(1);
+        AiMoveExecutor aiMoveExecutor = new AiMoveExecutor(1, 8);
+        TimingWheel roomTimer = new TimingWheel(5, 64, "test-room-timer");
+        OnlineFiveServer server = new OnlineFiveServer();
+        ReflectionTestUtils.setField(server, "roomExecutor", roomExecutor);
+        ReflectionTestUtils.setField(server, "aiMoveExecutor", aiMoveExecutor);
+        ReflectionTestUtils.setField(server, "roomTimer", roomTimer);
+        ReflectionTestUtils.setField(server, "gameResultWriter", writer);
+        ReflectionTestUtils.setField(server, "moveJournal", MoveJournal.disabled());
+        ReflectionTestUtils.setField(server, "websocketProperties", new WebsocketProperties());
+
+        // Black has played, white is to move with 100 ms on the clock; both players are away
+        long roomId = -6_006;
+        Room room = server.getRooms().computeIfAbsent(roomId, id -> new Room(id, 8));
+        GameBoard board = new BitGameBoard();
+        board.place(7, 7, GameBoard.BLACK);
+        room.setBoard(board);
+        room.setGameId(6_006L);
+        room.hold(Role.BLACK, 7);
+        room.hold(Role.WHITE, 8);
+        room.setTimeControl(new TimeControl(TimeControl.Kind.FISCHER, 100, 0, 0, 0));
+
+        // The forced-win search of the resignation waits behind another room's AI move
+        CountDownLatch gate = new CountDownLatch(1);
+        aiMoveExecutor.submit(roomId - 1, () -> {
+            try {
+                gate.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        server.inRoom(room, () -> {
+            ReflectionTestUtils.invokeMethod(server, "startClock", room, GameBoard.WHITE);
+            ReflectionTestUtils.invokeMethod(server, "resign", room, 7L, Role.BLACK);
+        });
+        // White's flag falls while the search waits
+        Thread.sleep(300);
+        gate.countDown();
+        for (int i = 0; i < 500 && server.getRooms().get(roomId) == room; i++) {
+            Thread.sleep(10);
+        }
+        writer.shutdown();
+        roomTimer.shutdown();
+        aiMoveExecutor.shutdown();
+        roomExecutor.shutdown();
+
+        assertTrue(server.getRooms().get(roomId) != room, "The resignation concluded the game");
+        assertEquals(1, results.size());
+        assertEquals(GameResult.WHITE_WIN.getValue(), results.get(0).getGameResult());
+    }
+}
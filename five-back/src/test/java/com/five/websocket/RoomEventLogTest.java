@@ -0,0 +1,51 @@
+package com.five.websocket;
+
+import com.five.pojo.vo.RoomEventVO;
+import com.five.utils.GameResult;
+import com.five.utils.MessageType;
+import com.five.utils.Role;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RoomEventLogTest {
+
+    private static RoomEventVO move(long seq) {
+        return new RoomEventVO.Move(MessageType.MOVE.getValue(), seq, 1024L, Role.BLACK, 7, (int) seq % 15, GameResult.CONTINUE.getValue());
+    }
+
+    @Test
+    public void testReplaysOnlyTheMissedEvents() {
+        RoomEventLog log = new RoomEventLog(4);
+        for (int i = 1; i <= 6; i++) {
+            assertEquals(i, log.append(RoomEventLogTest::move).event().seq());
+        }
+        assertEquals(6, log.lastSeq());
+        List<OutboundFrame> missing = log.since(3);
+        assertEquals(List.of(4L, 5L, 6L), missing.stream().map(frame -> frame.event().seq()).toList());
+        assertEquals(0, log.since(6).size());
+        assertEquals(4, log.since(2).size());
+        // Older than the ring, from the future, or no sequence number at all: a snapshot is needed
+        assertNull(log.since(1));
+        assertNull(log.since(7));
+        assertNull(log.since(-1));
+    }
+
+    @Test
+    public void testRoomIsQueuedOnceUntilFlushed() {
+        RoomEventLog log = new RoomEventLog(4);
+        assertTrue(log.addPending(log.append(RoomEventLogTest::move)));
+        assertFalse(log.addPending(log.append(RoomEventLogTest::move)));
+        assertFalse(log.markRoomCountStale());
+        log.clean();
+        assertEquals(2, log.drainPending().size());
+        assertTrue(log.takeRoomCountStale());
+        // Held back after the flush started: queued again
+        assertTrue(log.markRoomCountStale());
+    }
+}
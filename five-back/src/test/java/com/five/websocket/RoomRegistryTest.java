@@ -0,0 +1,139 @@
+package com.five.websocket;
+
+import com.five.utils.LongObjectMap;
+import com.five.utils.Role;
+import jakarta.websocket.Session;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RoomRegistryTest {
+
+    private static Session session() {
+        return (Session) Proxy.newProxyInstance(Session.class.getClassLoader(), new Class<?>[]{Session.class},
+                (proxy, method, args) -> {
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    // The room layout before the registry: the members of each room in their own map, and the board
+    // in a second map keyed by the same boxed id
+    private record Actor(String role, Session session) {
+    }
+
+    @Test
+    public void testRegistryOpensFindsAndRemovesRooms() {
+        RoomRegistry rooms = new RoomRegistry();
+        for (long id = 0; id < 1000; id++) {
+            rooms.computeIfAbsent(id * 7919, roomId -> new Room(roomId, 8));
+        }
+        assertEquals(1000, rooms.size());
+        Room room = rooms.get(7919 * 500);
+        assertSame(room, rooms.computeIfAbsent(7919 * 500, roomId -> new Room(roomId, 8)));
+        assertTrue(rooms.remove(room));
+        assertFalse(rooms.remove(room));
+        assertNull(rooms.get(7919 * 500));
+        // A new room under the same id is a different room
+        Room reopened = rooms.computeIfAbsent(7919 * 500, roomId -> new Room(roomId, 8));
+        assertFalse(rooms.remove(room));
+        assertSame(reopened, rooms.get(7919 * 500));
+        // Churn leaves no tombstones behind for long
+        for (long id = 0; id < 1000; id++) {
+            rooms.remove(rooms.get(id * 7919));
+        }
+        for (long id = 0; id < 100_000; id++) {
+            rooms.remove(rooms.computeIfAbsent(-id, roomId -> new Room(roomId, 8)));
+        }
+        assertEquals(0, rooms.size());
+        assertTrue(rooms.capacity() <= 64);
+    }
+
+    @Test
+    public void testRoomSeatsAndSpectators() {
+        Room room = new Room(1, 8);
+        Session black = session();
+        Session white = session();
+        room.seat(Role.BLACK, 10, black);
+        room.seat(Role.WHITE, 20, white);
+        for (long userId = 100; userId < 110; userId++) {
+            room.seat(Role.SPECTATOR, userId, session());
+        }
+        assertEquals(Role.BLACK, room.roleOf(10));
+        assertEquals(Role.WHITE, room.roleOf(20));
+        assertEquals(Role.SPECTATOR, room.roleOf(105));
+        assertNull(room.roleOf(30));
+        assertEquals(12, room.size());
+        assertEquals(List.of(10L, 20L), room.memberIds().subList(0, 2));
+        assertSame(white, room.remove(20));
+        assertFalse(room.isSeated(Role.WHITE));
+        assertEquals(Long.valueOf(10), room.playerId(Role.BLACK));
+        assertNull(room.playerId(Role.WHITE));
+        room.remove(105);
+        assertNull(room.roleOf(105));
+        assertEquals(10, room.size());
+    }
+
+    @Test
+    public void testLongObjectMapMatchesHashMap() {
+        LongObjectMap<String> map = new LongObjectMap<>();
+        Map<Long, String> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            long key = random.nextInt(512) - 256;
+            if (random.nextBoolean()) {
+                assertEquals(expected.put(key, "v" + i), map.put(key, "v" + i));
+            } else {
+                assertEquals(expected.remove(key), map.remove(key));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        expected.forEach((key, value) -> assertEquals(value, map.get(key)));
+        map.forEach((key, value) -> assertEquals(expected.get(key), value));
+    }
+
+    // Bytes allocated per room for rooms waiting for their second player, the board left out as it
+    // is the same in both layouts. Printed for the record; the registry must be well under half.
+    @Test
+    public void testIdleRoomFootprint() {
+        int count = 20_000;
+        Session session = session();
+        long before = allocatedBytes();
+        ConcurrentHashMap<Long, ConcurrentHashMap<Long, Actor>> roomSessions = new ConcurrentHashMap<>();
+        ConcurrentHashMap<Long, Object> roomBoards = new ConcurrentHashMap<>();
+        for (long roomId = 10_000; roomId < 10_000 + count; roomId++) {
+            roomSessions.putIfAbsent(roomId, new ConcurrentHashMap<>());
+            roomSessions.get(roomId).put(roomId * 2, new Actor("Joueur Noir", session));
+            roomBoards.put(roomId, session);
+        }
+        long mapsPerRoom = (allocatedBytes() - before) / count;
+
+        before = allocatedBytes();
+        RoomRegistry rooms = new RoomRegistry();
+        for (long roomId = 10_000; roomId < 10_000 + count; roomId++) {
+            rooms.computeIfAbsent(roomId, id -> new Room(id, 64)).seat(Role.BLACK, roomId * 2, session);
+        }
+        long registryPerRoom = (allocatedBytes() - before) / count;
+
+        System.out.println("Idle room footprint: maps " + mapsPerRoom + " bytes, registry " + registryPerRoom + " bytes");
+        assertEquals(count, rooms.size());
+        assertEquals(count, roomSessions.size());
+        assertEquals(count, roomBoards.size());
+        assertTrue(registryPerRoom * 2 < mapsPerRoom);
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+    }
+}
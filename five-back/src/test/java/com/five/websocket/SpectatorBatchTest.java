@@ -0,0 +1,60 @@
+package com.five.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.five.pojo.vo.GameActor;
+import com.five.pojo.vo.RoomEventVO;
+import com.five.utils.GameResult;
+import com.five.utils.MessageType;
+import com.five.utils.Role;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SpectatorBatchTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void testBatchReusesTheEventEncodings() throws Exception {
+        RoomEventLog log = new RoomEventLog(8);
+        OutboundFrame move = log.append(seq -> new RoomEventVO.Move(MessageType.MOVE.getValue(), seq, 1024L, Role.BLACK, 7, 8, GameResult.CONTINUE.getValue()));
+        OutboundFrame count = log.append(seq -> new RoomEventVO.RoomCount(MessageType.ROOM_COUNT_UPDATE.getValue(), seq, List.of(new GameActor(1024L, "Joueur Noir", "alice"))));
+        SpectatorBatch batch = new SpectatorBatch(List.of(move, count));
+
+        // JSON: the events as the array of the frames they would have been on their own
+        assertEquals(objectMapper.readTree("{\"type\":8,\"events\":[" + move.text(objectMapper) + "," + count.text(objectMapper) + "]}"),
+                objectMapper.readTree(batch.text(objectMapper)));
+
+        // Binary: each event prefixed by its length, JSON for the room count that has no binary form
+        ByteBuffer frame = batch.binary(objectMapper);
+        assertEquals(MessageType.BATCH.getValue(), frame.get());
+        int moveLength = frame.getInt();
+        byte[] moveBytes = new byte[moveLength];
+        frame.get(moveBytes);
+        assertEquals(move.binary(), ByteBuffer.wrap(moveBytes));
+        byte[] countBytes = new byte[frame.getInt()];
+        frame.get(countBytes);
+        assertEquals(count.text(objectMapper), new String(countBytes, StandardCharsets.UTF_8));
+        assertFalse(frame.hasRemaining());
+    }
+
+    @Test
+    public void testPendingEventsDrainOnce() {
+        RoomEventLog log = new RoomEventLog(8);
+        OutboundFrame first = log.append(seq -> new RoomEventVO.Game(MessageType.CHAT_MESSAGE.getValue(), seq, 1024L, Role.BLACK, "hi", 0));
+        OutboundFrame second = log.append(seq -> new RoomEventVO.Game(MessageType.CHAT_MESSAGE.getValue(), seq, 2048L, Role.WHITE, "hello", 0));
+        log.addPending(first);
+        log.addPending(second);
+        log.markRoomCountStale();
+        assertEquals(List.of(first, second), log.drainPending());
+        assertEquals(List.of(), log.drainPending());
+        assertTrue(log.takeRoomCountStale());
+        assertFalse(log.takeRoomCountStale());
+    }
+}
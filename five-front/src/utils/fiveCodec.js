@@ -0,0 +1,105 @@
+// Codec of the "five.bin.v1" websocket subprotocol, the binary form of the game messages
+// (see BinaryFrames on the server). Moves, resignations and board snapshots travel as a few
+// bytes; every other message stays JSON text, so decodeFrame handles both kinds of frame.
+
+export const SUBPROTOCOL = 'five.bin.v1'
+
+const SIZE = 15
+const CELLS = SIZE * SIZE
+const ROLES = ['Joueur Noir', 'Joueur Blanc', 'Spectateur'] // Role codes 1, 2, 3
+const RESULTS = ['CONTINUE', 'BLACK_WIN', 'WHITE_WIN', 'DRAW']
+
+const Type = {
+  JoinRoom: 1,
+  Move: 4,
+  ObserverUpdate: 6,
+  Resign: 7,
+  Batch: 8
+}
+
+const roleCode = (role) => ROLES.indexOf(role) + 1
+
+const roleName = (code) => ROLES[code - 1]
+
+// Room events carry the low byte of their sequence number, widened to the number within 128
+// either way of the last one seen: a spectator batch can replay events older than a snapshot
+const widenSeq = (low, lastSeq) => lastSeq + (((low - lastSeq + 128) & 0xff) - 128)
+
+const utf8 = new TextDecoder()
+
+// Turns a received frame into the same message object a JSON frame parses to
+export const decodeFrame = (data, lastSeq = 0) => {
+  if (typeof data === 'string') {
+    return JSON.parse(data)
+  }
+  const bytes = data instanceof Uint8Array ? data : new Uint8Array(data)
+  switch (bytes[0]) {
+    case Type.Move:
+      return {
+        type: Type.Move,
+        role: roleName(bytes[2] >> 4),
+        message: '(' + Math.floor(bytes[1] / SIZE) + ',' + (bytes[1] % SIZE) + ')',
+        isGameOver: bytes[2] & 0x0f,
+        seq: widenSeq(bytes[3], lastSeq)
+      }
+    case Type.Resign:
+      return {
+        type: Type.Resign,
+        role: roleName(bytes[1] >> 4),
+        message: ['open', 'forced', 'time', 'abandoned'][bytes[2]] || 'open',
+        isGameOver: bytes[1] & 0x0f,
+        seq: widenSeq(bytes[3], lastSeq)
+      }
+    case Type.ObserverUpdate: {
+      const board = Array.from({ length: SIZE }, () => Array(SIZE).fill(0))
+      for (let i = 0; i < CELLS; i++) {
+        board[Math.floor(i / SIZE)][i % SIZE] = (bytes[14 + (i >> 2)] >> ((i & 3) * 2)) & 3
+      }
+      const view = new DataView(bytes.buffer, bytes.byteOffset)
+      return {
+        type: Type.ObserverUpdate,
+        role: 'Spectateur',
+        message: board,
+        isGameOver: RESULTS[bytes[1]],
+        seq: view.getUint32(2),
+        gameId: Number(view.getBigUint64(6))
+      }
+    }
+    case Type.Batch: {
+      // Each event is a binary frame, or JSON for the events without a binary form
+      const view = new DataView(bytes.buffer, bytes.byteOffset, bytes.byteLength)
+      const events = []
+      let seq = lastSeq
+      for (let pos = 1; pos < bytes.length;) {
+        const length = view.getUint32(pos)
+        const frame = bytes.subarray(pos + 4, pos + 4 + length)
+        const event = frame[0] === 0x7b ? JSON.parse(utf8.decode(frame)) : decodeFrame(frame, seq)
+        if (event.seq !== undefined) {
+          seq = event.seq
+        }
+        events.push(event)
+        pos += 4 + length
+      }
+      return { type: Type.Batch, events }
+    }
+    default:
+      throw new Error(`Unknown binary frame type ${bytes[0]}`)
+  }
+}
+
+// seq, when given, is the last room event seen before a reconnect, in the game gameId
+export const encodeJoin = (seq, gameId) => {
+  if (seq === undefined) {
+    return Uint8Array.of(Type.JoinRoom)
+  }
+  const frame = new Uint8Array(13)
+  frame[0] = Type.JoinRoom
+  const view = new DataView(frame.buffer)
+  view.setUint32(1, seq)
+  view.setBigUint64(5, BigInt(Math.max(0, gameId)))
+  return frame
+}
+
+export const encodeMove = (role, x, y) => Uint8Array.of(Type.Move, x * SIZE + y, roleCode(role))
+
+export const encodeResign = (role) => Uint8Array.of(Type.Resign, roleCode(role))